@@ -0,0 +1,47 @@
+package voteflix.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Acesso aos métodos de BenchmarkFixtures (pacote padrão) por MethodHandles.
+ * Só é usado no @Setup; o laço medido chama direto a interface funcional devolvida.
+ */
+final class Fixtures {
+
+    private static final Class<?> BRIDGE;
+
+    static {
+        try {
+            BRIDGE = Class.forName("BenchmarkFixtures");
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Fixtures() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T call(String method, Class<T> returnType, Class<?> argType, Object arg) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findStatic(BRIDGE, method, MethodType.methodType(returnType, argType));
+            return (T) handle.invoke(arg);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Falha ao preparar " + method, t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T call(String method, Class<T> returnType) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findStatic(BRIDGE, method, MethodType.methodType(returnType));
+            return (T) handle.invoke();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Falha ao preparar " + method, t);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package voteflix.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Montagem do modelo da grade de filmes a partir de uma resposta de LISTAR_FILMES já decodificada,
+ * incluindo o bind dos cartões visíveis. Roda com java.awt.headless=true.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+@State(Scope.Thread)
+public class MovieGridModelBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int items;
+
+    private Object response;
+    private ToIntFunction<Object> builder;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        byte[] bytes = Fixtures.call("listMoviesResponse", byte[].class, int.class, items);
+        response = Fixtures.call("decode", Object.class, byte[].class, bytes);
+        builder = Fixtures.call("gridModelBuilder", ToIntFunction.class);
+    }
+
+    @Benchmark
+    public int buildModel() {
+        return builder.applyAsInt(response);
+    }
+}
@@ -0,0 +1,38 @@
+package voteflix.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Codificação de cada tipo de requisição pelo RequestEncoder, com os campos que o NetworkService envia.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestEncodingBenchmark {
+
+    @Param({
+            "CRIAR_USUARIO", "LOGIN", "LISTAR_PROPRIO_USUARIO", "EDITAR_PROPRIO_USUARIO", "EXCLUIR_PROPRIO_USUARIO",
+            "LOGOUT", "LISTAR_FILMES", "BUSCAR_FILME_ID", "CRIAR_FILME", "EDITAR_FILME", "EXCLUIR_FILME",
+            "CRIAR_REVIEW", "EDITAR_REVIEW", "EXCLUIR_REVIEW", "LISTAR_REVIEWS_USUARIO", "LISTAR_USUARIOS",
+            "ADMIN_EXCLUIR_USUARIO", "ADMIN_EDITAR_USUARIO", "LOTE"
+    })
+    public String operation;
+
+    private IntSupplier encoder;
+
+    @Setup
+    public void setup() {
+        encoder = Fixtures.call("requestEncoder", IntSupplier.class, String.class, operation);
+    }
+
+    @Benchmark
+    public int encode() {
+        return encoder.getAsInt();
+    }
+}
@@ -0,0 +1,56 @@
+package voteflix.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Decodificação de respostas de LISTAR_FILMES e BUSCAR_FILME_ID com 100 a 100 mil itens:
+ * JsonStreamDecoder montando a árvore, em fluxo (elemento a elemento) e, como referência, org.json.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+
+    @Param({"LISTAR_FILMES", "BUSCAR_FILME_ID"})
+    public String source;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int items;
+
+    private byte[] response;
+    private ToIntFunction<byte[]> tree;
+    private ToIntFunction<byte[]> streaming;
+    private ToIntFunction<byte[]> orgJson;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        boolean movies = "LISTAR_FILMES".equals(source);
+        String field = movies ? "filmes" : "reviews";
+        response = Fixtures.call(movies ? "listMoviesResponse" : "movieByIdResponse", byte[].class, int.class, items);
+        tree = Fixtures.call("treeDecoder", ToIntFunction.class, String.class, field);
+        streaming = Fixtures.call("streamingDecoder", ToIntFunction.class, String.class, field);
+        orgJson = Fixtures.call("orgJsonDecoder", ToIntFunction.class, String.class, field);
+    }
+
+    @Benchmark
+    public int decodeTree() {
+        return tree.applyAsInt(response);
+    }
+
+    @Benchmark
+    public int decodeStreaming() {
+        return streaming.applyAsInt(response);
+    }
+
+    @Benchmark
+    public int decodeOrgJson() {
+        return orgJson.applyAsInt(response);
+    }
+}
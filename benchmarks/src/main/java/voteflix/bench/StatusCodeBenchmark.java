@@ -0,0 +1,36 @@
+package voteflix.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Tradução de códigos de status por StatusCodeHandler.getMessage, para código conhecido e desconhecido.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatusCodeBenchmark {
+
+    @Param({"200", "404", "500", "999"})
+    public String status;
+
+    private Function<String, String> messages;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        messages = Fixtures.call("statusMessages", Function.class);
+        // Código vindo da rede: instância nova, sem hash já calculado
+        status = new String(status.toCharArray());
+    }
+
+    @Benchmark
+    public String getMessage() {
+        return messages.apply(status);
+    }
+}
@@ -0,0 +1,62 @@
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado de um lote enviado pelo NetworkService: a resposta de cada item, na ordem de envio.
+ */
+public final class BatchResult {
+
+    private final List<JSONObject> responses;
+
+    BatchResult(List<JSONObject> responses) {
+        this.responses = Collections.unmodifiableList(responses);
+    }
+
+    public List<JSONObject> responses() {
+        return responses;
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    public String status(int index) {
+        return responses.get(index).optString("status");
+    }
+
+    public boolean succeeded(int index) {
+        return status(index).startsWith("2");
+    }
+
+    public int successCount() {
+        int count = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            if (succeeded(i)) count++;
+        }
+        return count;
+    }
+
+    /** Quantos itens terminaram com cada status, em ordem de código. */
+    public Map<String, Integer> countsByStatus() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (JSONObject response : responses) {
+            counts.merge(response.optString("status"), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /** Uma linha por status, com a quantidade de itens e a mensagem do StatusCodeHandler. */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(successCount()).append(" de ").append(size()).append(" itens concluídos.");
+        for (Map.Entry<String, Integer> e : countsByStatus().entrySet()) {
+            sb.append('\n').append(e.getValue()).append(" × ").append(e.getKey())
+                    .append(": ").append(StatusCodeHandler.getMessage(e.getKey()));
+        }
+        return sb.toString();
+    }
+}
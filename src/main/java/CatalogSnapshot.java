@@ -0,0 +1,345 @@
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Cópia binária do último catálogo recebido, gravada em disco para a próxima sessão mostrar os
+ * filmes logo após o login, antes (ou sem) a resposta de LISTAR_FILMES. O arquivo é mapeado
+ * em memória (MemorySegment) e os filmes são decodificados sob demanda, por faixa: abrir custa
+ * uma passada de CRC32 sobre os bytes, e a primeira página não paga a decodificação do resto.
+ *
+ * Formato (big-endian): cabeçalho com MAGIC, VERSION, data de gravação, CRC32 do restante,
+ * quantidade de filmes e a tabela de nomes de campo; depois os deslocamentos de cada filme
+ * e os filmes, cada um como uma lista de (campo, tipo, valor) sem aspas nem chaves repetidas.
+ *
+ * Ao abrir, o CRC32 e a estrutura (tabela de campos e deslocamentos) são conferidos; um arquivo
+ * que não confere é apagado e ignorado. read() ainda confere cada campo contra o fim do seu
+ * filme, e um filme malformado é pulado em vez de derrubar a leitura.
+ *
+ * Cada gravação cria um arquivo novo (catalogo-servidor-porta-data.bin) e apaga os antigos:
+ * no Windows um arquivo ainda mapeado não pode ser substituído nem apagado, e fica para a
+ * limpeza da gravação seguinte.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x56465853; // "VFXS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+
+    private static final byte STRING = 0;
+    private static final byte STRING_ARRAY = 1;
+    private static final byte JSON = 2;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /** Catálogo já codificado, pronto para gravar. */
+    public record Encoded(byte[] bytes, long checksum) {}
+
+    private final Path file;
+    private final MemorySegment segment;
+    private final long savedAt;
+    private final long checksum;
+    private final int count;
+    private final String[] keys;
+    private final long offsetsBase;
+    private final long recordsBase;
+
+    private CatalogSnapshot(Path file, MemorySegment segment) throws IOException {
+        this.file = file;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC || segment.get(INT, 4) != VERSION) {
+            throw new IOException("Arquivo de catálogo em formato desconhecido: " + file);
+        }
+        long size = segment.byteSize();
+        savedAt = segment.get(LONG, 8);
+        checksum = segment.get(LONG, 16);
+        count = segment.get(INT, 24);
+        int keyCount = segment.get(INT, 28);
+        if (size > Integer.MAX_VALUE || count < 0 || keyCount < 0 || keyCount > 255) {
+            throw new IOException("Arquivo de catálogo em formato desconhecido: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(segment.asSlice(HEADER_SIZE).asByteBuffer());
+        if (crc.getValue() != checksum) {
+            throw new IOException("Arquivo de catálogo corrompido (CRC32 não confere): " + file);
+        }
+        keys = new String[keyCount];
+        long pos = HEADER_SIZE;
+        for (int i = 0; i < keyCount; i++) {
+            if (pos + 2 > size) throw new IOException("Arquivo de catálogo truncado: " + file);
+            int length = Short.toUnsignedInt(segment.get(SHORT, pos));
+            if (pos + 2 + length > size) throw new IOException("Arquivo de catálogo truncado: " + file);
+            keys[i] = readString(pos + 2, length, new byte[length]);
+            pos += 2 + length;
+        }
+        offsetsBase = pos;
+        recordsBase = offsetsBase + 4L * (count + 1);
+        if (recordsBase > size) {
+            throw new IOException("Arquivo de catálogo truncado: " + file);
+        }
+        // Deslocamentos crescentes, o último exatamente no fim do arquivo
+        long previous = 0;
+        for (int i = 0; i <= count; i++) {
+            long offset = segment.get(INT, offsetsBase + 4L * i);
+            if (offset < previous || recordsBase + offset > size) {
+                throw new IOException("Tabela de deslocamentos inválida: " + file);
+            }
+            previous = offset;
+        }
+        if (recordsBase + previous != size) {
+            throw new IOException("Arquivo de catálogo truncado: " + file);
+        }
+    }
+
+    /** Pasta dos arquivos (propriedade voteflix.snapshot.dir, padrão ~/.voteflix). */
+    public static Path directory() {
+        return Path.of(System.getProperty("voteflix.snapshot.dir",
+                Path.of(System.getProperty("user.home"), ".voteflix").toString()));
+    }
+
+    /**
+     * Mapeia o arquivo mais recente do servidor, ou devolve null se não houver nenhum válido.
+     * O mapeamento é liberado pelo coletor quando o objeto deixa de ser usado.
+     */
+    public static CatalogSnapshot openLatest(String serverAddress) {
+        for (Path file : files(serverAddress)) {
+            MemorySegment segment;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            } catch (IOException | RuntimeException e) {
+                WireLogger.warn("CatalogSnapshot", "Cópia local do catálogo ignorada (" + file.getFileName() + "): " + e.getMessage());
+                continue;
+            }
+            try {
+                return new CatalogSnapshot(file, segment);
+            } catch (IOException | RuntimeException e) {
+                WireLogger.warn("CatalogSnapshot", "Cópia local do catálogo descartada (" + file.getFileName() + "): " + e.getMessage());
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Ainda mapeado (Windows): sai na próxima gravação
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Codifica os filmes no formato do arquivo. */
+    public static Encoded encode(JSONArray movies) throws IOException {
+        Map<String, Integer> keyIndex = new LinkedHashMap<>();
+        ByteArrayOutputStream records = new ByteArrayOutputStream(movies.length() * 128);
+        DataOutputStream out = new DataOutputStream(records);
+        int[] offsets = new int[movies.length() + 1];
+        for (int i = 0; i < movies.length(); i++) {
+            offsets[i] = out.size();
+            JSONObject movie = movies.getJSONObject(i);
+            out.writeByte(movie.length());
+            for (String key : movie.keySet()) {
+                Integer index = keyIndex.get(key);
+                if (index == null) {
+                    if (keyIndex.size() == 255) throw new IOException("Campos distintos demais para a cópia do catálogo.");
+                    index = keyIndex.size();
+                    keyIndex.put(key, index);
+                }
+                out.writeByte(index);
+                writeValue(out, movie.get(key));
+            }
+        }
+        offsets[movies.length()] = out.size();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(records.size() + offsets.length * 4 + 256);
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        for (String key : keyIndex.keySet()) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            bodyOut.writeShort(bytes.length);
+            bodyOut.write(bytes);
+        }
+        for (int offset : offsets) bodyOut.writeInt(offset);
+        records.writeTo(bodyOut);
+        byte[] bodyBytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream(HEADER_SIZE + bodyBytes.length);
+        DataOutputStream fileOut = new DataOutputStream(file);
+        fileOut.writeInt(MAGIC);
+        fileOut.writeInt(VERSION);
+        fileOut.writeLong(System.currentTimeMillis());
+        fileOut.writeLong(crc.getValue());
+        fileOut.writeInt(movies.length());
+        fileOut.writeInt(keyIndex.size());
+        fileOut.write(bodyBytes);
+        return new Encoded(file.toByteArray(), crc.getValue());
+    }
+
+    /** Grava um arquivo novo para o servidor e apaga os anteriores. */
+    public static void write(String serverAddress, Encoded encoded) throws IOException {
+        Path dir = directory();
+        Files.createDirectories(dir);
+        Path target = dir.resolve(prefix(serverAddress) + System.currentTimeMillis() + ".bin");
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        Files.write(temp, encoded.bytes());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        for (Path old : files(serverAddress)) {
+            if (old.equals(target)) continue;
+            try {
+                Files.deleteIfExists(old);
+            } catch (IOException ignored) {
+                // Ainda mapeado (Windows): sai na próxima gravação
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Momento (epoch, ms) em que o catálogo foi gravado. */
+    public long savedAt() {
+        return savedAt;
+    }
+
+    /** CRC32 do conteúdo; igual ao de encode() para o mesmo catálogo. */
+    public long checksum() {
+        return checksum;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /** Decodifica os filmes [from, to); um filme malformado fica de fora. */
+    public JSONArray read(int from, int to) {
+        JSONArray movies = new JSONArray();
+        byte[] scratch = new byte[256];
+        for (int i = Math.max(0, from); i < Math.min(to, count); i++) {
+            long start = recordsBase + segment.get(INT, offsetsBase + 4L * i);
+            long end = recordsBase + segment.get(INT, offsetsBase + 4L * (i + 1));
+            // Todo texto do filme cabe no filme: basta um buffer do tamanho dele
+            if (end - start > scratch.length) scratch = new byte[(int) (end - start)];
+            JSONObject movie;
+            try {
+                movie = readMovie(start, end, scratch);
+            } catch (JSONException e) {
+                movie = null;
+            }
+            if (movie != null) movies.put(movie);
+        }
+        return movies;
+    }
+
+    // null se algum campo não couber em [pos, end) ou tiver tipo ou nome desconhecido
+    private JSONObject readMovie(long pos, long end, byte[] scratch) {
+        if (pos >= end) return null;
+        int fields = Byte.toUnsignedInt(segment.get(ValueLayout.JAVA_BYTE, pos++));
+        JSONObject movie = new JSONObject();
+        for (int f = 0; f < fields; f++) {
+            if (pos + 2 > end) return null;
+            int keyIndex = Byte.toUnsignedInt(segment.get(ValueLayout.JAVA_BYTE, pos++));
+            byte type = segment.get(ValueLayout.JAVA_BYTE, pos++);
+            if (keyIndex >= keys.length || type < STRING || type > JSON) return null;
+            if (type == STRING_ARRAY) {
+                if (pos + 2 > end) return null;
+                int n = Short.toUnsignedInt(segment.get(SHORT, pos));
+                pos += 2;
+                JSONArray array = new JSONArray();
+                for (int k = 0; k < n; k++) {
+                    String text = readLengthPrefixed(pos, end, scratch);
+                    if (text == null) return null;
+                    array.put(text);
+                    pos += 4 + segment.get(INT, pos);
+                }
+                movie.put(keys[keyIndex], array);
+            } else {
+                String text = readLengthPrefixed(pos, end, scratch);
+                if (text == null) return null;
+                pos += 4 + segment.get(INT, pos);
+                movie.put(keys[keyIndex], type == JSON ? new JSONTokener(text).nextValue() : text);
+            }
+        }
+        return movie;
+    }
+
+    private String readLengthPrefixed(long pos, long end, byte[] scratch) {
+        if (pos + 4 > end) return null;
+        int length = segment.get(INT, pos);
+        if (length < 0 || pos + 4 + length > end) return null;
+        return readString(pos + 4, length, scratch);
+    }
+
+    private String readString(long offset, int length, byte[] scratch) {
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof JSONArray array && isStringArray(array)) {
+            out.writeByte(STRING_ARRAY);
+            out.writeShort(array.length());
+            for (int i = 0; i < array.length(); i++) writeString(out, array.getString(i));
+        } else {
+            // Números, objetos e o que mais vier: guardados como texto JSON
+            out.writeByte(JSON);
+            writeString(out, value instanceof JSONObject || value instanceof JSONArray
+                    ? value.toString() : JSONObject.valueToString(value));
+        }
+    }
+
+    private static boolean isStringArray(JSONArray array) {
+        if (array.length() > 0xFFFF) return false;
+        for (int i = 0; i < array.length(); i++) {
+            if (!(array.get(i) instanceof String)) return false;
+        }
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String prefix(String serverAddress) {
+        return "catalogo-" + serverAddress.replaceAll("[^A-Za-z0-9.-]", "-") + "-";
+    }
+
+    // Arquivos do servidor, do mais recente para o mais antigo
+    private static List<Path> files(String serverAddress) {
+        List<Path> files = new ArrayList<>();
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix(serverAddress) + "*.bin")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            return files;
+        }
+        files.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+        return files;
+    }
+}
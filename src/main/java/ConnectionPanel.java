@@ -23,6 +23,10 @@ public class ConnectionPanel extends JPanel {
 
         JTextField ipField = new JTextField("127.0.0.1", 20);
         JTextField portField = new JTextField("12345", 20);
+        JSpinner poolSizeSpinner = new JSpinner(new SpinnerNumberModel(ConnectionPool.DEFAULT_SIZE, 1, 32, 1));
+        JComboBox<ServerConnection.Transport> transportBox = new JComboBox<>(ServerConnection.Transport.values());
+        transportBox.setSelectedItem(ServerConnection.Transport.fromProperty());
+        JCheckBox compressionBox = new JCheckBox("Comprimir mensagens grandes", DeflateFrames.enabledByProperty());
         JButton connectButton = new JButton("Conectar");
 
         gbc.gridx = 0;
@@ -42,6 +46,21 @@ public class ConnectionPanel extends JPanel {
         gbc.gridx = 1;
         add(portField, gbc);
 
+        gbc.gridy++;
+        gbc.gridx = 0;
+        add(new JLabel("Conexões:"), gbc);
+        gbc.gridx = 1;
+        add(poolSizeSpinner, gbc);
+
+        gbc.gridy++;
+        gbc.gridx = 0;
+        add(new JLabel("Transporte:"), gbc);
+        gbc.gridx = 1;
+        add(transportBox, gbc);
+
+        gbc.gridy++;
+        add(compressionBox, gbc);
+
         gbc.gridy++;
         gbc.gridx = 0;
         gbc.gridwidth = 2;
@@ -52,29 +71,21 @@ public class ConnectionPanel extends JPanel {
         connectButton.addActionListener(e -> {
             String ip = ipField.getText();
             String portStr = portField.getText();
+            int poolSize = (Integer) poolSizeSpinner.getValue();
+            ServerConnection.Transport transport = (ServerConnection.Transport) transportBox.getSelectedItem();
+            int compressionThreshold = compressionBox.isSelected() ? DeflateFrames.defaultThreshold() : DeflateFrames.DISABLED;
 
             // Ação de conectar executada em uma thread separada para não travar a UI
-            new SwingWorker<Void, Void>() {
-                @Override
-                protected Void doInBackground() throws Exception {
-                    int port = Integer.parseInt(portStr);
-                    networkService.connect(ip, port);
-                    return null;
-                }
-
-                @Override
-                protected void done() {
-                    try {
-                        get(); // Pega exceções do doInBackground
-                        JOptionPane.showMessageDialog(ConnectionPanel.this, "Conexão estabelecida com sucesso!");
-                        cardLayout.show(mainPanel, "LOGIN");
-                    } catch (Exception ex) {
-                        JOptionPane.showMessageDialog(ConnectionPanel.this,
-                                "Erro ao conectar: " + ex.getCause().getMessage(),
-                                "Erro de Conexão", JOptionPane.ERROR_MESSAGE);
-                    }
-                }
-            }.execute();
+            UiTasks.submit(() -> {
+                int port = Integer.parseInt(portStr);
+                networkService.connect(ip, port, poolSize, transport, compressionThreshold);
+                return null;
+            }, ignored -> {
+                JOptionPane.showMessageDialog(ConnectionPanel.this, "Conexão estabelecida com sucesso!");
+                cardLayout.show(mainPanel, "LOGIN");
+            }, ex -> JOptionPane.showMessageDialog(ConnectionPanel.this,
+                    "Erro ao conectar: " + ex.getMessage(),
+                    "Erro de Conexão", JOptionPane.ERROR_MESSAGE));
         });
     }
 }
\ No newline at end of file
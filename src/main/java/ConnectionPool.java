@@ -0,0 +1,464 @@
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de até N conexões com o servidor, usado pelo NetworkService.
+ * Cada requisição faz checkout da conexão menos carregada e a devolve quando a resposta chega.
+ * Se todas estiverem ocupadas e ainda houver vaga, uma conexão nova é aberta em segundo plano,
+ * fora do lock do pool: quem envia (às vezes a EDT) nunca espera um connect, a não ser que
+ * não haja nenhuma conexão viva, e aí a requisição segue quando a nova abrir.
+ * Conexões abertas depois do login repetem o LOGIN com as credenciais guardadas
+ * e passam a usar o próprio token.
+ *
+ * Conexões sem resposta há algum tempo recebem um keep-alive (LISTAR_PROPRIO_USUARIO); se ele
+ * não for respondido a tempo, a conexão é dada como morta e fechada. Quando a última conexão
+ * cai, o pool reconecta em segundo plano com espera exponencial e refaz o login antes de
+ * liberar a nova conexão; whenConnected() avisa quando isso acontece.
+ */
+public class ConnectionPool implements Closeable {
+
+    public static final int DEFAULT_SIZE = Integer.getInteger("voteflix.pool.size", 4);
+    private static final long KEEPALIVE_MILLIS = Long.getLong("voteflix.keepalive.ms", 15_000);
+    private static final long KEEPALIVE_TIMEOUT_MILLIS = Long.getLong("voteflix.keepalive.timeout.ms", 10_000);
+    private static final long HEALTH_CHECK_MILLIS = Math.min(5_000, KEEPALIVE_MILLIS);
+    private static final long RECONNECT_INITIAL_MILLIS = 50;
+    private static final long RECONNECT_MAX_MILLIS = 5_000;
+
+    // Uma thread de verificação para todos os pools (o gerador de carga abre milhares)
+    private static final ScheduledExecutorService HEALTH_CHECKER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "voteflix-pool-health");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String ip;
+    private final int port;
+    private final int maxSize;
+    private final ServerConnection.Transport transport;
+    private final int compressionThreshold;
+    private final NetworkMetrics metrics;
+    private final List<PooledConnection> connections = new ArrayList<>();
+    private final ScheduledFuture<?> healthCheck;
+
+    // Credenciais da sessão para repetir o login em conexões novas
+    private volatile String login;
+    private volatile String senha;
+    private volatile int authGeneration;
+    // Último token de sessão visto, usado no keep-alive de conexões sem token próprio
+    private volatile String sessionToken;
+    private volatile boolean closed;
+
+    // Reconexão em andamento; completado quando uma conexão nova (já autenticada) entra no pool
+    private CompletableFuture<Void> reconnected;
+    // Conexão extra sendo aberta em segundo plano (no máximo uma por vez)
+    private CompletableFuture<PooledConnection> opening;
+
+    /** @param compressionThreshold menor mensagem a comprimir, ou DeflateFrames.DISABLED. */
+    public ConnectionPool(String ip, int port, int maxSize, ServerConnection.Transport transport,
+                          int compressionThreshold, NetworkMetrics metrics) throws IOException {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("O pool precisa de pelo menos uma conexão.");
+        }
+        this.ip = ip;
+        this.port = port;
+        this.maxSize = maxSize;
+        this.transport = transport;
+        this.compressionThreshold = compressionThreshold;
+        this.metrics = metrics;
+        // A primeira conexão é aberta já aqui para validar endereço e porta
+        connections.add(track(ServerConnection.open(transport, ip, port, compressionThreshold, metrics)));
+
+        healthCheck = HEALTH_CHECKER.scheduleWithFixedDelay(this::checkHealth, HEALTH_CHECK_MILLIS, HEALTH_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Envia a requisição por uma conexão do pool, substituindo o token pelo da conexão quando houver.
+     */
+    public CompletableFuture<JSONObject> send(Operation operation, String token, RequestEncoder.Body body,
+                                              JsonStreamDecoder.ElementSink sink) {
+        if (token != null) sessionToken = token;
+        return acquire().thenCompose(conn -> {
+            CompletableFuture<JSONObject> result = ensureAuthenticated(conn).thenCompose(ignored -> {
+                String connectionToken = (token != null && conn.token != null) ? conn.token : token;
+                return conn.connection.send(operation, connectionToken, body, sink);
+            });
+            if (operation == Operation.LOGOUT) return logout(conn, result);
+            return result.whenComplete((response, error) -> release(conn));
+        });
+    }
+
+    private CompletableFuture<JSONObject> logout(PooledConnection conn, CompletableFuture<JSONObject> result) {
+        List<PooledConnection> others;
+        synchronized (this) {
+            login = null;
+            senha = null;
+            sessionToken = null;
+            authGeneration++; // logins repetidos ainda em andamento ficam obsoletos
+            others = new ArrayList<>(connections);
+            others.remove(conn);
+        }
+        // Cada conexão que repetiu o LOGIN abriu a própria sessão no servidor: todas são encerradas
+        // antes de a resposta sair, já que quem chama costuma fechar o pool em seguida
+        List<CompletableFuture<?>> all = new ArrayList<>();
+        all.add(result.whenComplete((response, error) -> {
+            synchronized (conn) {
+                conn.token = null;
+            }
+            release(conn);
+        }));
+        for (PooledConnection c : others) all.add(logoutQuietly(c));
+        return CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).handle((ignored, error) -> null)
+                .thenCompose(ignored -> result);
+    }
+
+    /** Encerra a sessão própria da conexão, se houver; falhas são ignoradas. */
+    private CompletableFuture<?> logoutQuietly(PooledConnection c) {
+        String token;
+        synchronized (c) {
+            token = c.token;
+            c.token = null;
+        }
+        if (token == null || !c.connection.isOpen()) return CompletableFuture.completedFuture(null);
+        return c.connection.send(Operation.LOGOUT, token, RequestEncoder.EMPTY, null)
+                .orTimeout(KEEPALIVE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .handle((response, error) -> null);
+    }
+
+    /**
+     * Faz o LOGIN e, se der certo, guarda as credenciais para autenticar as demais conexões do pool.
+     */
+    public CompletableFuture<JSONObject> login(String usuario, String password) {
+        return acquire().thenCompose(conn -> conn.connection.send(Operation.LOGIN, null, loginBody(usuario, password), null)
+                .thenApply(response -> {
+                    onLogin(conn, usuario, password, response);
+                    return response;
+                })
+                .whenComplete((response, error) -> release(conn)));
+    }
+
+    /** A senha da sessão mudou: os próximos logins automáticos usam a nova. */
+    public void onPasswordChanged(String password) {
+        if (login != null) senha = password;
+    }
+
+    /**
+     * Completa quando houver conexão ativa: na hora, se já houver; senão, quando a
+     * reconexão em andamento abrir e autenticar uma nova.
+     */
+    public synchronized CompletableFuture<Void> whenConnected() {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("A conexão foi encerrada."));
+        }
+        for (PooledConnection c : connections) {
+            if (c.connection.isOpen()) return CompletableFuture.completedFuture(null);
+        }
+        scheduleReconnect();
+        return reconnected;
+    }
+
+    static RequestEncoder.Body loginBody(String usuario, String password) {
+        return enc -> enc.string(RequestEncoder.USUARIO, usuario).string(RequestEncoder.SENHA, password);
+    }
+
+    /**
+     * Reserva a conexão menos carregada. Não bloqueia: o connect de uma conexão nova corre em
+     * segundo plano e só é esperado quando não há nenhuma conexão viva para multiplexar.
+     */
+    private synchronized CompletableFuture<PooledConnection> acquire() {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("A conexão não está ativa."));
+        }
+        connections.removeIf(c -> !c.connection.isOpen());
+
+        PooledConnection best = null;
+        for (PooledConnection c : connections) {
+            if (best == null || c.leases < best.leases) best = c;
+        }
+        if (best == null && reconnected != null) {
+            // A reconexão em segundo plano já está tentando, com espera entre as tentativas
+            return CompletableFuture.failedFuture(new IOException("Sem conexão com o servidor; reconectando."));
+        }
+        if ((best == null || best.leases > 0) && connections.size() < maxSize && opening == null) {
+            opening = openInBackground();
+        }
+        if (best != null) {
+            // Enquanto a nova abre, a requisição segue multiplexada na menos carregada
+            best.leases++;
+            return CompletableFuture.completedFuture(best);
+        }
+        return opening.thenApply(this::lease);
+    }
+
+    private synchronized PooledConnection lease(PooledConnection conn) {
+        conn.leases++;
+        return conn;
+    }
+
+    // Chamado com o lock do pool; a conexão só entra no pool (e o campo opening é limpo) depois do connect
+    private CompletableFuture<PooledConnection> openInBackground() {
+        CompletableFuture<PooledConnection> future = new CompletableFuture<>();
+        Thread.ofVirtual().name("voteflix-pool-open").start(() -> {
+            PooledConnection conn;
+            try {
+                conn = track(ServerConnection.open(transport, ip, port, compressionThreshold, metrics));
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (opening == future) opening = null;
+                    if (connections.isEmpty()) scheduleReconnect();
+                }
+                future.completeExceptionally(e);
+                return;
+            }
+            boolean added;
+            synchronized (this) {
+                if (opening == future) opening = null;
+                added = !closed;
+                if (added) connections.add(conn);
+            }
+            if (added) {
+                future.complete(conn);
+            } else {
+                closeQuietly(conn.connection);
+                future.completeExceptionally(new IOException("A conexão foi encerrada."));
+            }
+        });
+        return future;
+    }
+
+    private synchronized void release(PooledConnection conn) {
+        conn.leases--;
+    }
+
+    private void onLogin(PooledConnection conn, String usuario, String password, JSONObject response) {
+        if (!response.has("token")) return;
+        synchronized (this) {
+            login = usuario;
+            senha = password;
+            authGeneration++;
+        }
+        synchronized (conn) {
+            conn.token = response.getString("token");
+            conn.authGeneration = authGeneration;
+            conn.authFuture = null;
+        }
+    }
+
+    /**
+     * Repete o LOGIN numa conexão que ainda não foi autenticada na sessão atual.
+     */
+    private CompletableFuture<Void> ensureAuthenticated(PooledConnection conn) {
+        String user = login;
+        String password = senha;
+        int generation = authGeneration;
+        if (user == null || password == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        synchronized (conn) {
+            if (conn.authGeneration == generation) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (conn.authFuture == null) {
+                CompletableFuture<Void> auth = conn.connection.send(Operation.LOGIN, null, loginBody(user, password), null).thenAccept(response -> {
+                    boolean stale;
+                    synchronized (conn) {
+                        // Se o servidor recusar o segundo login, a conexão usa o token da sessão
+                        conn.token = response.optString("token", null);
+                        conn.authFuture = null;
+                        stale = generation != authGeneration;
+                        if (!stale) conn.authGeneration = generation;
+                    }
+                    // Houve LOGOUT (ou outro login) enquanto este era refeito: a sessão aberta sobra
+                    if (stale) logoutQuietly(conn);
+                });
+                conn.authFuture = auth;
+                // Um LOGIN que falhou não pode ficar guardado: a próxima requisição tenta de novo
+                auth.whenComplete((ignored, error) -> {
+                    if (error == null) return;
+                    synchronized (conn) {
+                        if (conn.authFuture == auth) conn.authFuture = null;
+                    }
+                });
+                return auth;
+            }
+            return conn.authFuture;
+        }
+    }
+
+    private PooledConnection track(ServerConnection connection) {
+        PooledConnection pooled = new PooledConnection(connection);
+        connection.setCloseListener(() -> connectionLost(pooled));
+        return pooled;
+    }
+
+    /** Uma conexão caiu (ou foi fechada): sai do pool e, se era a última, começa a reconexão. */
+    private synchronized void connectionLost(PooledConnection conn) {
+        connections.remove(conn);
+        if (!closed && connections.isEmpty()) {
+            WireLogger.warn("ConnectionPool", "Conexão com o servidor perdida; reconectando.");
+            scheduleReconnect();
+        }
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (closed || reconnected != null) return;
+        reconnected = new CompletableFuture<>();
+        Thread.ofVirtual().name("voteflix-reconnect").start(this::reconnectLoop);
+    }
+
+    private void reconnectLoop() {
+        long delay = RECONNECT_INITIAL_MILLIS;
+        while (!closed) {
+            PooledConnection conn;
+            try {
+                conn = track(ServerConnection.open(transport, ip, port, compressionThreshold, metrics));
+            } catch (IOException e) {
+                try {
+                    // Espera exponencial com variação aleatória, para clientes não voltarem todos juntos
+                    Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                delay = Math.min(delay * 2, RECONNECT_MAX_MILLIS);
+                continue;
+            }
+            metrics.recordReconnect();
+            // A sessão é retomada antes de a conexão ser usada: as requisições reenviadas já saem autenticadas
+            ensureAuthenticated(conn).whenComplete((ignored, error) -> {
+                CompletableFuture<Void> done;
+                synchronized (this) {
+                    if (!closed && conn.connection.isOpen()) connections.add(conn);
+                    done = reconnected;
+                    reconnected = null;
+                }
+                if (closed || done == null) {
+                    // O pool foi encerrado enquanto o login era refeito
+                    closeQuietly(conn.connection);
+                    return;
+                }
+                if (conn.connection.isOpen()) {
+                    done.complete(null);
+                } else {
+                    // Caiu de novo durante o login: tenta outra vez
+                    done.completeExceptionally(new IOException("A conexão caiu durante a reconexão."));
+                    if (!closed) scheduleReconnect();
+                }
+            });
+            return;
+        }
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            done = reconnected;
+            reconnected = null;
+        }
+        if (done != null) done.completeExceptionally(new IOException("A conexão foi encerrada."));
+    }
+
+    private void checkHealth() {
+        List<PooledConnection> idle = new ArrayList<>();
+        synchronized (this) {
+            if (closed) return;
+            connections.removeIf(c -> {
+                if (c.connection.isOpen()) return false;
+                WireLogger.warn("ConnectionPool", "Conexão inativa removida do pool.");
+                return true;
+            });
+            if (connections.isEmpty()) scheduleReconnect();
+            long keepAliveNanos = TimeUnit.MILLISECONDS.toNanos(KEEPALIVE_MILLIS);
+            for (PooledConnection c : connections) {
+                if (!c.probing && c.connection.idleNanos() >= keepAliveNanos) {
+                    c.probing = true;
+                    idle.add(c);
+                }
+            }
+        }
+        for (PooledConnection c : idle) keepAlive(c);
+    }
+
+    /**
+     * O protocolo não tem operação de ping: LISTAR_PROPRIO_USUARIO é a mais barata que o servidor
+     * responde em qualquer estado, e custa a ele só a busca do token. Vai como sondagem
+     * (sendProbe), sem entrar nas métricas por operação nem no log de tráfego.
+     * Qualquer resposta, mesmo um 401 antes do login, prova que o servidor ainda atende a conexão.
+     * Com requisições em voo o keep-alive vai para o fim da fila: sem resposta a nenhuma delas
+     * no prazo, a conexão é considerada morta.
+     */
+    private void keepAlive(PooledConnection c) {
+        String probeToken = c.token != null ? c.token : sessionToken;
+        c.connection.sendProbe(Operation.LISTAR_PROPRIO_USUARIO, probeToken)
+                .orTimeout(KEEPALIVE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    c.probing = false;
+                    if (error != null && c.connection.isOpen()) {
+                        WireLogger.warn("ConnectionPool", "Conexão sem resposta ao keep-alive; fechando.");
+                        metrics.recordKeepAliveTimeout();
+                        closeQuietly(c.connection);
+                    }
+                });
+    }
+
+    private static void closeQuietly(ServerConnection connection) {
+        try {
+            connection.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public synchronized int size() {
+        return connections.size();
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /** Se há agora alguma conexão aberta (isOpen diz só que o pool não foi encerrado). */
+    public synchronized boolean isConnected() {
+        if (closed) return false;
+        for (PooledConnection c : connections) {
+            if (c.connection.isOpen()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<PooledConnection> toClose;
+        CompletableFuture<Void> pendingReconnect;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(connections);
+            connections.clear();
+            pendingReconnect = reconnected;
+            reconnected = null;
+        }
+        if (pendingReconnect != null) pendingReconnect.completeExceptionally(new IOException("A conexão foi encerrada."));
+        healthCheck.cancel(false);
+        for (PooledConnection c : toClose) {
+            c.connection.close();
+        }
+    }
+
+    private static final class PooledConnection {
+        final ServerConnection connection;
+        int leases;
+        String token;
+        int authGeneration;
+        CompletableFuture<Void> authFuture;
+        volatile boolean probing;
+
+        PooledConnection(ServerConnection connection) {
+            this.connection = connection;
+        }
+    }
+}
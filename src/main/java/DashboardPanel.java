@@ -3,18 +3,40 @@ import org.json.JSONObject;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class DashboardPanel extends JPanel {
     private final CardLayout rootCardLayout;
     private final JPanel mainContainer;
     private final NetworkService networkService;
+    private final MovieCatalogCache catalogCache;
+    private final MovieSearchIndex movieIndex;
+    private final MovieDetailCache detailCache;
+    private final RatingStats ratingStats;
+
+    // Modelo local das telas: as ações do usuário o alteram na hora e são desfeitas se o servidor recusar
+    private final ModelList movieModel = new ModelList();
+    private final ModelList myReviewModel = new ModelList();
+    private final ModelList userModel = new ModelList();
 
     // Layout interno do Dashboard
     private JPanel contentArea;
@@ -29,6 +51,15 @@ public class DashboardPanel extends JPanel {
     private JPanel myReviewsPanel;
     private JPanel adminUsersPanel;
     private JPanel profilePanel;
+    private DiagnosticsPanel diagnosticsPanel;
+    private UiTasks.Task viewLoad;
+    // Troca o catálogo da tela de filmes aberta pelo que veio do servidor (ver MovieCatalogCache)
+    private Consumer<JSONArray> moviesRefresh = fresh -> { };
+    // Redesenha a nota de um filme (null: de todos) na grade aberta
+    private Consumer<String> ratingsRefresh = id -> { };
+
+    // Contagens no formato brasileiro (1.234)
+    private static final Locale PT_BR = Locale.forLanguageTag("pt-BR");
 
     // Lista de Gêneros Padrão
     private static final String[] GENRES_LIST = {
@@ -41,6 +72,16 @@ public class DashboardPanel extends JPanel {
         this.mainContainer = mainContainer;
         this.rootCardLayout = rootCardLayout;
         this.networkService = networkService;
+        this.catalogCache = new MovieCatalogCache(networkService);
+        this.movieIndex = new MovieSearchIndex(networkService);
+        this.detailCache = new MovieDetailCache(networkService);
+        this.ratingStats = new RatingStats(networkService);
+        detailCache.setLoadListener(ratingStats::onMovieLoaded);
+        ratingStats.addListener(id -> SwingUtilities.invokeLater(() -> ratingsRefresh.accept(id)));
+        movieIndex.registerGenres(GENRES_LIST);
+        catalogCache.setReconcileListener(fresh -> SwingUtilities.invokeLater(() -> moviesRefresh.accept(fresh)));
+        networkService.setJournalListener((operation, request, response) ->
+                SwingUtilities.invokeLater(() -> showRejectedMutation(operation, request, response)));
 
         setLayout(new BorderLayout());
         setBackground(StyleTheme.BG_COLOR);
@@ -67,6 +108,10 @@ public class DashboardPanel extends JPanel {
         contentArea.add(myReviewsPanel, "REVIEWS");
         contentArea.add(adminUsersPanel, "ADMIN_USERS");
         contentArea.add(profilePanel, "PROFILE");
+
+        diagnosticsPanel = new DiagnosticsPanel(networkService.getMetrics(), catalogCache, detailCache,
+                networkService::getPendingMutations);
+        contentArea.add(diagnosticsPanel, "DIAGNOSTICS");
     }
 
     private JPanel createSidebar() {
@@ -98,6 +143,11 @@ public class DashboardPanel extends JPanel {
         sidebar.add(createMenuButton("⭐ Minhas Avaliações", e -> loadMyReviewsView()));
         sidebar.add(Box.createVerticalStrut(10));
         sidebar.add(createMenuButton("👤 Meu Perfil", e -> loadProfileView()));
+        sidebar.add(Box.createVerticalStrut(10));
+        sidebar.add(createMenuButton("📊 Diagnóstico", e -> {
+            cancelViewLoad();
+            contentLayout.show(contentArea, "DIAGNOSTICS");
+        }));
 
         sidebar.add(Box.createVerticalStrut(30));
         JLabel adminLbl = new JLabel("ADMINISTRAÇÃO");
@@ -142,6 +192,9 @@ public class DashboardPanel extends JPanel {
         this.currentUsername = username;
         this.isAdmin = "admin".equalsIgnoreCase(username);
         userLabel.setText(isAdmin ? username + " (Admin)" : username);
+        catalogCache.startSession(); // O catálogo em cache pode ser de outra sessão
+        detailCache.invalidate();
+        ratingStats.invalidate();
         loadMoviesView();
     }
 
@@ -164,92 +217,227 @@ public class DashboardPanel extends JPanel {
             addMovieBtn.addActionListener(e -> showMovieForm(null, null));
             header.add(addMovieBtn, BorderLayout.EAST);
         }
-        moviesPanel.add(header, BorderLayout.NORTH);
 
-        new SwingWorker<JSONObject, Void>() {
-            @Override protected JSONObject doInBackground() throws Exception {
-                return networkService.listAllMovies();
-            }
-            @Override protected void done() {
-                try {
-                    JSONObject res = get();
-                    JSONArray movies = res.optJSONArray("filmes");
-                    JPanel grid = new JPanel(new GridLayout(0, 3, 15, 15));
-                    grid.setBackground(StyleTheme.BG_COLOR);
-
-                    if (movies != null) {
-                        for (int i = 0; i < movies.length(); i++) {
-                            grid.add(createMovieCard(movies.getJSONObject(i)));
-                        }
-                    }
+        // Busca e filtros locais no índice: reagem a cada tecla ou clique, sem ir ao servidor
+        MovieFilters filters = new MovieFilters();
+        header.add(filters.searchPanel, BorderLayout.CENTER);
+        JPanel top = new JPanel(new BorderLayout(0, 10));
+        top.setBackground(StyleTheme.BG_COLOR);
+        top.setBorder(new EmptyBorder(0, 0, 10, 0));
+        top.add(header, BorderLayout.NORTH);
+        top.add(filters.chipBar, BorderLayout.CENTER);
+        moviesPanel.add(top, BorderLayout.NORTH);
+
+        // Primeira página renderizada assim que chega; as demais conforme a rolagem.
+        // Logo após o login, as páginas podem vir da cópia em disco até o servidor responder
+        moviesRefresh = fresh -> { };
+        ratingsRefresh = id -> { };
+        PageIterator pages = catalogCache.moviePages(PageIterator.DEFAULT_PAGE_SIZE);
+        loadView(() -> {
+            JSONArray firstPage = pages.hasNext() ? pages.next() : new JSONArray();
+            movieIndex.replaceAll(firstPage); // com o catálogo em cache, já é o catálogo todo
+            return firstPage;
+        }, firstPage -> {
+            long renderStart = System.nanoTime();
+            // Faltando páginas, a busca só veria as já carregadas: a primeira busca traz o resto
+            if (pages.hasNext()) filters.setPartial(() -> loadCatalogForSearch(filters));
+            // A grade só cria cartões para a parte visível do catálogo
+            MovieGridView grid = new MovieGridView(isAdmin, movieCardActions());
+            grid.setRatingSource(ratingStats::get);
+            grid.setMovies(filters.apply());
+            ratingsRefresh = grid::refreshRating;
+            movieModel.clearListeners();
+            movieModel.replaceAll(firstPage);
+            movieModel.addListener(new ModelList.Listener() {
+                @Override public void added(int index, JSONObject movie) {
+                    if (filters.isActive()) grid.setMovies(filters.apply());
+                    else grid.insertMovie(index, movie);
+                }
+                @Override public void changed(int index, JSONObject previous, JSONObject movie) {
+                    grid.replaceMovie(movie);
+                }
+                @Override public void removed(int index, JSONObject movie) {
+                    grid.removeMovie(movie.optString("id"));
+                }
+                @Override public void reset() {
+                    grid.setMovies(filters.apply());
+                }
+            });
 
-                    JScrollPane scroll = new JScrollPane(grid);
-                    scroll.setBorder(null);
-                    scroll.getVerticalScrollBar().setUnitIncrement(16);
-                    moviesPanel.add(scroll, BorderLayout.CENTER);
+            JScrollPane scroll = new JScrollPane(grid);
+            scroll.setBorder(null);
+            scroll.getViewport().setBackground(StyleTheme.BG_COLOR);
+            moviesPanel.add(scroll, BorderLayout.CENTER);
 
-                    contentLayout.show(contentArea, "MOVIES");
-                    moviesPanel.revalidate();
-                } catch (Exception e) { e.printStackTrace(); }
-            }
-        }.execute();
+            filters.setOnChange(() -> {
+                long searchStart = System.nanoTime();
+                grid.setMovies(filters.apply());
+                scroll.getVerticalScrollBar().setValue(0);
+                networkService.getMetrics().recordRender("Busca de filmes", System.nanoTime() - searchStart);
+            });
+            PageAppender appender = new PageAppender(scroll, pages, page -> {
+                movieIndex.addAll(page);
+                if (!pages.hasNext()) filters.setComplete();
+                movieModel.appendAll(page);
+                List<JSONObject> visible = filters.apply();
+                if (filters.isActive()) grid.setMovies(visible);
+                else grid.appendMovies(toObjectList(page));
+            });
+            moviesRefresh = fresh -> {
+                // O catálogo do servidor já vem inteiro: as páginas restantes da cópia deixam de valer
+                appender.stop();
+                UiTasks.submit(() -> {
+                    movieIndex.replaceAll(fresh);
+                    return fresh;
+                }, ignored -> {
+                    long refreshStart = System.nanoTime();
+                    filters.setComplete();
+                    movieModel.replaceAll(fresh);
+                    networkService.getMetrics().recordRender("Catálogo atualizado", System.nanoTime() - refreshStart);
+                }, UiTasks.reportTo(this));
+            };
+
+            contentLayout.show(contentArea, "MOVIES");
+            moviesPanel.revalidate();
+            networkService.getMetrics().recordRender("Catálogo de filmes", System.nanoTime() - renderStart);
+        });
     }
 
-    private JPanel createMovieCard(JSONObject movie) {
-        JPanel card = new JPanel();
-        card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
-        card.setBackground(StyleTheme.PANEL_COLOR);
-        card.setBorder(BorderFactory.createLineBorder(new Color(60,60,60)));
-        card.setMaximumSize(new Dimension(200, 250));
+    /**
+     * Traz o catálogo inteiro numa listagem só, em segundo plano, para a busca não ficar restrita
+     * às páginas já roladas. Chega pelo moviesRefresh, como o catálogo que substitui a cópia em disco.
+     */
+    private void loadCatalogForSearch(MovieFilters filters) {
+        UiTasks.submit(catalogCache::listAllMovies, response -> {
+            JSONArray all = response.optJSONArray("filmes");
+            if ("200".equals(response.optString("status")) && all != null) moviesRefresh.accept(all);
+            else filters.setPartial(() -> loadCatalogForSearch(filters)); // tenta de novo na próxima busca
+        }, e -> filters.setPartial(() -> loadCatalogForSearch(filters)));
+    }
 
-        JLabel title = new JLabel(movie.optString("titulo"));
-        title.setFont(StyleTheme.FONT_BOLD);
-        title.setForeground(StyleTheme.ACCENT_COLOR);
-        title.setAlignmentX(Component.CENTER_ALIGNMENT);
+    /**
+     * Caixa de busca e botões de gênero da tela de filmes. Cada botão mostra quantos filmes
+     * restariam com ele marcado; tudo sai do movieIndex.
+     */
+    private final class MovieFilters {
+        final JPanel searchPanel = new JPanel(new BorderLayout(10, 0));
+        final JScrollPane chipBar;
+        private final JTextField searchField = StyleTheme.createTextField();
+        private final JLabel resultCount = new JLabel();
+        private final JComboBox<String> modeBox = new JComboBox<>(new String[]{"Qualquer gênero", "Todos os gêneros"});
+        private final JPanel chipPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        private final Map<String, JToggleButton> chips = new LinkedHashMap<>();
+        private final Set<String> selected = new LinkedHashSet<>();
+        private Runnable onChange = () -> { };
+        // Índice com só as páginas já buscadas; loadRest traz o resto na primeira busca
+        private boolean partial;
+        private Runnable loadRest;
+
+        MovieFilters() {
+            searchField.putClientProperty("JTextField.placeholderText", "Buscar por título, diretor, gênero ou sinopse");
+            resultCount.setForeground(StyleTheme.TEXT_SECONDARY);
+            searchPanel.setBackground(StyleTheme.BG_COLOR);
+            searchPanel.setBorder(new EmptyBorder(0, 20, 0, 20));
+            searchPanel.add(searchField, BorderLayout.CENTER);
+            searchPanel.add(resultCount, BorderLayout.EAST);
+
+            chipPanel.setBackground(StyleTheme.BG_COLOR);
+            chipPanel.add(modeBox);
+            chipBar = new JScrollPane(chipPanel, ScrollPaneConstants.VERTICAL_SCROLLBAR_NEVER,
+                    ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+            chipBar.setBorder(null);
+            chipBar.getViewport().setBackground(StyleTheme.BG_COLOR);
+
+            modeBox.addActionListener(e -> {
+                if (!selected.isEmpty()) onChange.run();
+            });
+            searchField.getDocument().addDocumentListener(new DocumentListener() {
+                @Override public void insertUpdate(DocumentEvent e) { onChange.run(); }
+                @Override public void removeUpdate(DocumentEvent e) { onChange.run(); }
+                @Override public void changedUpdate(DocumentEvent e) { onChange.run(); }
+            });
+        }
 
-        JLabel info = new JLabel(movie.optString("ano") + " | " + movie.optString("diretor"));
-        info.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-        info.setForeground(Color.GRAY);
-        info.setAlignmentX(Component.CENTER_ALIGNMENT);
+        void setOnChange(Runnable onChange) {
+            this.onChange = onChange;
+            if (isActive()) onChange.run(); // digitado antes da primeira página
+        }
 
-        JLabel rating = new JLabel("★ " + movie.optString("nota", "-"));
-        rating.setForeground(Color.YELLOW);
-        rating.setAlignmentX(Component.CENTER_ALIGNMENT);
+        boolean isActive() {
+            return !searchField.getText().isBlank() || !selected.isEmpty();
+        }
 
-        JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        btnPanel.setBackground(StyleTheme.PANEL_COLOR);
+        /**
+         * O índice ainda não tem o catálogo inteiro. A primeira busca nesse estado chama loadRest
+         * (uma vez só) e, até setComplete, a contagem avisa que o resultado é parcial.
+         */
+        void setPartial(Runnable loadRest) {
+            this.partial = true;
+            this.loadRest = loadRest;
+        }
 
-        JButton viewBtn = new JButton("Ver");
-        viewBtn.setBackground(StyleTheme.INPUT_BG);
-        viewBtn.setForeground(Color.WHITE);
-        viewBtn.addActionListener(e -> openMovieDetails(movie.optString("id")));
-        btnPanel.add(viewBtn);
+        void setComplete() {
+            partial = false;
+            loadRest = null;
+        }
 
-        if (isAdmin) {
-            JButton editBtn = new JButton("✎");
-            editBtn.setToolTipText("Editar Filme");
-            editBtn.addActionListener(e -> showMovieForm(movie.optString("id"), movie));
-
-            JButton delBtn = new JButton("✖");
-            delBtn.setForeground(Color.RED);
-            delBtn.setToolTipText("Excluir Filme");
-            delBtn.addActionListener(e -> {
-                if (confirmAction("Excluir filme " + movie.optString("titulo") + "?")) {
-                    executeTask(() -> networkService.deleteMovie(movie.optString("id")), "Excluir", this::loadMoviesView);
-                }
-            });
-            btnPanel.add(editBtn);
-            btnPanel.add(delBtn);
+        /** Consulta o índice, atualiza as contagens dos botões e devolve os filmes a mostrar. */
+        List<JSONObject> apply() {
+            if (partial && loadRest != null && isActive()) {
+                Runnable load = loadRest;
+                loadRest = null;
+                load.run();
+            }
+            MovieSearchIndex.Result result = movieIndex.query(searchField.getText(), selected, modeBox.getSelectedIndex() == 1);
+            result.genreCounts().forEach((genre, count) ->
+                    chip(genre).setText(genre + " (" + String.format(PT_BR, "%,d", count) + ")"));
+            String format = partial ? "%,d filmes (buscando no catálogo inteiro...)" : "%,d filmes";
+            resultCount.setText(isActive() ? String.format(PT_BR, format, result.movies().size()) : "");
+            return result.movies();
         }
 
-        card.add(Box.createVerticalStrut(10));
-        card.add(title);
-        card.add(info);
-        card.add(rating);
-        card.add(Box.createVerticalGlue());
-        card.add(btnPanel);
+        private JToggleButton chip(String genre) {
+            JToggleButton chip = chips.get(genre);
+            if (chip == null) {
+                chip = new JToggleButton(genre);
+                chip.setFocusPainted(false);
+                chip.setFont(StyleTheme.FONT_REGULAR);
+                JToggleButton button = chip;
+                chip.addActionListener(e -> {
+                    if (button.isSelected()) selected.add(genre);
+                    else selected.remove(genre);
+                    onChange.run();
+                });
+                chips.put(genre, chip);
+                chipPanel.add(chip);
+                chipPanel.revalidate();
+            }
+            return chip;
+        }
+    }
 
-        return card;
+    private MovieGridView.CardActions movieCardActions() {
+        return new MovieGridView.CardActions() {
+            @Override public void onView(JSONObject movie) {
+                openMovieDetails(movie.optString("id"));
+            }
+            // Aquece os detalhes do que está na tela para o "Ver" abrir sem esperar o servidor
+            @Override public void onVisible(List<JSONObject> movies) {
+                detailCache.prefetchVisible(movies.stream().map(m -> m.optString("id")).toList());
+            }
+            @Override public void onHover(JSONObject movie) {
+                detailCache.prefetchFirst(movie.optString("id"));
+            }
+            @Override public void onEdit(JSONObject movie) {
+                showMovieForm(movie.optString("id"), movie);
+            }
+            @Override public void onDelete(JSONObject movie) {
+                if (confirmAction("Excluir filme " + movie.optString("titulo") + "?")) {
+                    String id = movie.optString("id");
+                    UiTasks.optimistic(DashboardPanel.this, movieModel.remove(id), true, () -> networkService.deleteMovie(id), null);
+                }
+            }
+        };
     }
 
     // =============================================================================================
@@ -262,41 +450,117 @@ public class DashboardPanel extends JPanel {
         JLabel title = new JLabel("Minhas Avaliações");
         title.setFont(StyleTheme.FONT_TITLE);
         title.setForeground(Color.WHITE);
-        title.setBorder(new EmptyBorder(0,0,20,0));
-        myReviewsPanel.add(title, BorderLayout.NORTH);
 
-        new SwingWorker<JSONObject, Void>() {
-            @Override protected JSONObject doInBackground() throws Exception {
-                return networkService.listMyReviews();
-            }
-            @Override protected void done() {
-                try {
-                    JSONArray reviews = get().optJSONArray("reviews");
-                    JPanel listContainer = new JPanel();
-                    listContainer.setLayout(new BoxLayout(listContainer, BoxLayout.Y_AXIS));
-                    listContainer.setBackground(StyleTheme.BG_COLOR);
-
-                    if (reviews != null && reviews.length() > 0) {
-                        for(int i=0; i<reviews.length(); i++) {
-                            listContainer.add(createReviewItem(reviews.getJSONObject(i), true));
-                            listContainer.add(Box.createVerticalStrut(10));
+        ReviewSelection selection = new ReviewSelection(ids -> deleteOptimistic(myReviewModel, ids, NetworkService.BatchItem::deleteReview));
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBackground(StyleTheme.BG_COLOR);
+        header.setBorder(new EmptyBorder(0,0,20,0));
+        header.add(title, BorderLayout.WEST);
+        header.add(selection.deleteButton, BorderLayout.EAST);
+        myReviewsPanel.add(header, BorderLayout.NORTH);
+
+        PageIterator pages = networkService.myReviewPages(PageIterator.DEFAULT_PAGE_SIZE);
+        loadView(() -> pages.hasNext() ? pages.next() : new JSONArray(), reviews -> {
+            long renderStart = System.nanoTime();
+            JPanel listContainer = new JPanel();
+            listContainer.setLayout(new BoxLayout(listContainer, BoxLayout.Y_AXIS));
+            listContainer.setBackground(StyleTheme.BG_COLOR);
+            appendReviewItems(listContainer, reviews, selection);
+            ratingStats.onUserReviews(reviews);
+
+            JLabel empty = new JLabel("Você ainda não avaliou nenhum filme.");
+            empty.setForeground(Color.GRAY);
+            empty.setVisible(reviews.length() == 0);
+            JPanel content = new JPanel(new BorderLayout());
+            content.setBackground(StyleTheme.BG_COLOR);
+            content.add(empty, BorderLayout.NORTH);
+            content.add(listContainer, BorderLayout.CENTER);
+
+            // Cada review ocupa dois componentes na lista: o item (2 * i) e o espaço depois dele
+            myReviewModel.clearListeners();
+            myReviewModel.replaceAll(reviews);
+            myReviewModel.addListener(new ModelList.Listener() {
+                @Override public void added(int index, JSONObject review) {
+                    listContainer.add(createReviewItem(review, true, selection), 2 * index);
+                    listContainer.add(Box.createVerticalStrut(10), 2 * index + 1);
+                    refresh();
+                }
+                @Override public void changed(int index, JSONObject previous, JSONObject review) {
+                    listContainer.remove(2 * index);
+                    listContainer.add(createReviewItem(review, true, selection), 2 * index);
+                    refresh();
+                }
+                @Override public void removed(int index, JSONObject review) {
+                    selection.forget(review.optString("id"));
+                    listContainer.remove(2 * index + 1);
+                    listContainer.remove(2 * index);
+                    refresh();
+                }
+                // Em lote, a lista é remontada uma vez com os componentes que ficam, sem recriá-los
+                @Override public void removedAll(int[] indices, List<JSONObject> reviews) {
+                    reviews.forEach(r -> selection.forget(r.optString("id")));
+                    Component[] current = listContainer.getComponents();
+                    List<Component> kept = new ArrayList<>(current.length);
+                    int next = 0;
+                    for (int i = 0; i < current.length; i += 2) {
+                        if (next < indices.length && indices[next] == i / 2) {
+                            next++;
+                            continue;
                         }
-                    } else {
-                        JLabel empty = new JLabel("Você ainda não avaliou nenhum filme.");
-                        empty.setForeground(Color.GRAY);
-                        listContainer.add(empty);
+                        kept.add(current[i]);
+                        if (i + 1 < current.length) kept.add(current[i + 1]);
                     }
-                    myReviewsPanel.add(new JScrollPane(listContainer), BorderLayout.CENTER);
-                    contentLayout.show(contentArea, "REVIEWS");
-                } catch (Exception e) { e.printStackTrace(); }
-            }
-        }.execute();
+                    rebuild(kept);
+                }
+                @Override public void addedAll(int[] indices, List<JSONObject> reviews) {
+                    List<Component> current = Arrays.asList(listContainer.getComponents());
+                    List<Component> merged = new ArrayList<>(current.size() + 2 * reviews.size());
+                    int from = 0;
+                    for (int k = 0; k < indices.length; k++) {
+                        while (merged.size() < 2 * indices[k] && from < current.size()) merged.add(current.get(from++));
+                        merged.add(createReviewItem(reviews.get(k), true, selection));
+                        merged.add(Box.createVerticalStrut(10));
+                    }
+                    while (from < current.size()) merged.add(current.get(from++));
+                    rebuild(merged);
+                }
+                private void rebuild(List<Component> components) {
+                    listContainer.removeAll();
+                    components.forEach(listContainer::add);
+                    refresh();
+                }
+                private void refresh() {
+                    empty.setVisible(myReviewModel.size() == 0);
+                    listContainer.revalidate();
+                    listContainer.repaint();
+                }
+            });
+
+            JScrollPane scroll = new JScrollPane(content);
+            myReviewsPanel.add(scroll, BorderLayout.CENTER);
+            new PageAppender(scroll, pages, page -> {
+                myReviewModel.appendAll(page);
+                ratingStats.onUserReviews(page);
+                appendReviewItems(listContainer, page, selection);
+            });
+            contentLayout.show(contentArea, "REVIEWS");
+            networkService.getMetrics().recordRender("Minhas avaliações", System.nanoTime() - renderStart);
+        });
+    }
+
+    private void appendReviewItems(JPanel listContainer, JSONArray reviews, ReviewSelection selection) {
+        for (int i = 0; i < reviews.length(); i++) {
+            listContainer.add(createReviewItem(reviews.getJSONObject(i), true, selection));
+            listContainer.add(Box.createVerticalStrut(10));
+        }
+        listContainer.revalidate();
     }
 
     /**
      * ATUALIZADO: Agora verifica se a review foi editada e exibe o label.
+     * Com selection, o item ganha uma caixa para marcá-lo para exclusão em lote.
      */
-    private JPanel createReviewItem(JSONObject review, boolean allowEdit) {
+    private JPanel createReviewItem(JSONObject review, boolean allowEdit, ReviewSelection selection) {
         JPanel p = new JPanel(new BorderLayout());
         p.setBackground(StyleTheme.PANEL_COLOR);
         p.setBorder(BorderFactory.createCompoundBorder(
@@ -323,6 +587,9 @@ public class DashboardPanel extends JPanel {
 
         p.add(header, BorderLayout.NORTH);
         p.add(desc, BorderLayout.CENTER);
+        if (selection != null) {
+            p.add(selection.checkBoxFor(review.optString("id")), BorderLayout.WEST);
+        }
 
         if (allowEdit || isAdmin) {
             JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -338,8 +605,12 @@ public class DashboardPanel extends JPanel {
             del.setForeground(Color.RED);
             del.addActionListener(e -> {
                 if(confirmAction("Apagar esta avaliação?")) {
-                    executeTask(() -> networkService.deleteReview(review.getString("id")), "Apagar Review",
-                            allowEdit ? this::loadMyReviewsView : null);
+                    String id = review.getString("id");
+                    if (allowEdit) {
+                        UiTasks.optimistic(DashboardPanel.this, myReviewModel.remove(id), true, () -> networkService.deleteReview(id), null);
+                    } else {
+                        UiTasks.request(DashboardPanel.this, () -> networkService.deleteReview(id), null);
+                    }
                 }
             });
             actions.add(del);
@@ -365,81 +636,124 @@ public class DashboardPanel extends JPanel {
         title.setForeground(Color.WHITE);
         adminUsersPanel.add(title, BorderLayout.NORTH);
 
-        new SwingWorker<JSONObject, Void>() {
-            @Override protected JSONObject doInBackground() throws Exception {
-                return networkService.listAllUsers();
-            }
-            @Override protected void done() {
-                try {
-                    JSONArray users = get().optJSONArray("usuarios");
-                    String[] cols = {"ID", "Nome"};
-                    DefaultTableModel model = new DefaultTableModel(cols, 0) {
-                        public boolean isCellEditable(int row, int col) { return false; }
-                    };
-
-                    if(users != null) {
-                        for(int i=0; i<users.length(); i++) {
-                            JSONObject u = users.getJSONObject(i);
-                            model.addRow(new Object[]{ u.getString("id"), u.getString("nome") });
-                        }
+        PageIterator pages = networkService.userPages(PageIterator.DEFAULT_PAGE_SIZE);
+        loadView(() -> pages.hasNext() ? pages.next() : new JSONArray(), firstPage -> {
+            long renderStart = System.nanoTime();
+            String[] cols = {"ID", "Nome"};
+            DefaultTableModel model = new DefaultTableModel(cols, 0) {
+                public boolean isCellEditable(int row, int col) { return false; }
+            };
+            appendUserRows(model, firstPage);
+            userModel.clearListeners();
+            userModel.replaceAll(firstPage);
+            userModel.addListener(new ModelList.Listener() {
+                @Override public void added(int index, JSONObject u) {
+                    model.insertRow(index, new Object[]{ u.getString("id"), u.getString("nome") });
+                }
+                @Override public void changed(int index, JSONObject previous, JSONObject u) {
+                    model.setValueAt(u.getString("nome"), index, 1);
+                }
+                @Override public void removed(int index, JSONObject u) {
+                    model.removeRow(index);
+                }
+                // Em lote, as linhas saem do modelo da lista numa troca só (removeRow desloca o vetor a cada linha)
+                @Override public void removedAll(int[] indices, List<JSONObject> users) {
+                    resetUserRows(model, userModel.items());
+                }
+                @Override public void addedAll(int[] indices, List<JSONObject> users) {
+                    resetUserRows(model, userModel.items());
+                }
+            });
+
+            JTable table = new JTable(model);
+            table.setBackground(StyleTheme.PANEL_COLOR);
+            table.setForeground(Color.WHITE);
+            table.setRowHeight(25);
+            table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+
+            JPopupMenu popup = new JPopupMenu();
+            JMenuItem editItem = new JMenuItem("Alterar Senha");
+            JMenuItem delItem = new JMenuItem("Excluir Usuário");
+            popup.add(editItem);
+            popup.add(delItem);
+
+            table.setComponentPopupMenu(popup);
+
+            table.addMouseListener(new MouseAdapter() {
+                public void mousePressed(MouseEvent e) {
+                    int r = table.rowAtPoint(e.getPoint());
+                    if (r >= 0 && r < table.getRowCount()) {
+                        // Clique sobre uma linha já marcada mantém a seleção múltipla para o menu
+                        if (!table.isRowSelected(r)) table.setRowSelectionInterval(r, r);
+                    } else {
+                        table.clearSelection();
                     }
+                }
+            });
 
-                    JTable table = new JTable(model);
-                    table.setBackground(StyleTheme.PANEL_COLOR);
-                    table.setForeground(Color.WHITE);
-                    table.setRowHeight(25);
-
-                    JPopupMenu popup = new JPopupMenu();
-                    JMenuItem editItem = new JMenuItem("Alterar Senha");
-                    JMenuItem delItem = new JMenuItem("Excluir Usuário");
-                    popup.add(editItem);
-                    popup.add(delItem);
-
-                    table.setComponentPopupMenu(popup);
-
-                    table.addMouseListener(new MouseAdapter() {
-                        public void mousePressed(MouseEvent e) {
-                            int r = table.rowAtPoint(e.getPoint());
-                            if (r >= 0 && r < table.getRowCount()) {
-                                table.setRowSelectionInterval(r, r);
-                            } else {
-                                table.clearSelection();
-                            }
-                        }
-                    });
-
-                    editItem.addActionListener(e -> {
-                        int row = table.getSelectedRow();
-                        if(row == -1) return;
-                        String id = (String) model.getValueAt(row, 0);
-                        String nome = (String) model.getValueAt(row, 1);
-                        String newPass = JOptionPane.showInputDialog(DashboardPanel.this, "Nova senha para " + nome + ":");
-                        if(newPass != null && !newPass.trim().isEmpty()) {
-                            executeTask(() -> networkService.updateOtherUserPassword(id, newPass), "Alterar Senha", null);
-                        }
-                    });
-
-                    delItem.addActionListener(e -> {
-                        int row = table.getSelectedRow();
-                        if(row == -1) return;
-                        String id = (String) model.getValueAt(row, 0);
-                        String nome = (String) model.getValueAt(row, 1);
-                        if(confirmAction("Excluir usuário " + nome + "?\nIsso apagará todas as reviews dele.")) {
-                            executeTask(() -> networkService.deleteOtherUser(id), "Excluir Usuário", DashboardPanel.this::loadAdminUsersView);
-                        }
-                    });
+            editItem.addActionListener(e -> {
+                int row = table.getSelectedRow();
+                if(row == -1) return;
+                if(table.getSelectedRowCount() > 1) {
+                    JOptionPane.showMessageDialog(DashboardPanel.this, "Selecione apenas um usuário para alterar a senha.");
+                    return;
+                }
+                String id = (String) model.getValueAt(row, 0);
+                String nome = (String) model.getValueAt(row, 1);
+                String newPass = JOptionPane.showInputDialog(DashboardPanel.this, "Nova senha para " + nome + ":");
+                if(newPass != null && !newPass.trim().isEmpty()) {
+                    UiTasks.request(DashboardPanel.this, () -> networkService.updateOtherUserPassword(id, newPass), null);
+                }
+            });
 
-                    adminUsersPanel.add(new JScrollPane(table), BorderLayout.CENTER);
-                    contentLayout.show(contentArea, "ADMIN_USERS");
-                } catch (Exception e) { e.printStackTrace(); }
-            }
-        }.execute();
+            delItem.addActionListener(e -> {
+                int[] rows = table.getSelectedRows();
+                if(rows.length > 1) {
+                    List<String> ids = new ArrayList<>();
+                    for (int r : rows) ids.add((String) model.getValueAt(r, 0));
+                    if(confirmAction("Excluir " + rows.length + " usuários?\nIsso apagará todas as reviews deles.")) {
+                        deleteOptimistic(userModel, ids, NetworkService.BatchItem::deleteUser);
+                    }
+                    return;
+                }
+                int row = table.getSelectedRow();
+                if(row == -1) return;
+                String id = (String) model.getValueAt(row, 0);
+                String nome = (String) model.getValueAt(row, 1);
+                if(confirmAction("Excluir usuário " + nome + "?\nIsso apagará todas as reviews dele.")) {
+                    UiTasks.optimistic(DashboardPanel.this, userModel.remove(id), true, () -> networkService.deleteOtherUser(id), null);
+                }
+            });
+
+            JScrollPane scroll = new JScrollPane(table);
+            adminUsersPanel.add(scroll, BorderLayout.CENTER);
+            new PageAppender(scroll, pages, page -> {
+                userModel.appendAll(page);
+                appendUserRows(model, page);
+            });
+            contentLayout.show(contentArea, "ADMIN_USERS");
+            networkService.getMetrics().recordRender("Gestão de usuários", System.nanoTime() - renderStart);
+        });
+    }
+
+    // Esvazia a tabela num evento só e a remonta em ordem, mantendo as colunas
+    private static void resetUserRows(DefaultTableModel model, List<JSONObject> users) {
+        model.setRowCount(0);
+        for (JSONObject u : users) model.addRow(new Object[]{ u.getString("id"), u.getString("nome") });
+    }
+
+    private static void appendUserRows(DefaultTableModel model, JSONArray users) {
+        for (int i = 0; i < users.length(); i++) {
+            JSONObject u = users.getJSONObject(i);
+            model.addRow(new Object[]{ u.getString("id"), u.getString("nome") });
+        }
     }
 
     // =============================================================================================
     // VIEW: PROFILE
     // =============================================================================================
     private void loadProfileView() {
+        cancelViewLoad();
         profilePanel.removeAll();
         profilePanel.setBackground(StyleTheme.BG_COLOR);
 
@@ -462,7 +776,7 @@ public class DashboardPanel extends JPanel {
         changePass.addActionListener(e -> {
             String newPass = JOptionPane.showInputDialog(this, "Nova senha:");
             if (newPass != null && !newPass.trim().isEmpty()) {
-                executeTask(() -> networkService.updateUserPassword(newPass), "Senha", null);
+                UiTasks.request(DashboardPanel.this, () -> networkService.updateUserPassword(newPass), null);
             }
         });
         profilePanel.add(changePass, gbc);
@@ -473,11 +787,11 @@ public class DashboardPanel extends JPanel {
         deleteAcc.setBackground(new Color(40, 20, 20));
         deleteAcc.addActionListener(e -> {
             if(confirmAction("TEM CERTEZA? Essa ação é irreversível.")) {
-                executeTask(() -> {
+                UiTasks.request(this, () -> {
                     JSONObject r = networkService.deleteUser();
                     if("200".equals(r.optString("status"))) SwingUtilities.invokeLater(() -> rootCardLayout.show(mainContainer, "CONNECTION"));
                     return r;
-                }, "Excluir Conta", null);
+                }, null);
             }
         });
         profilePanel.add(deleteAcc, gbc);
@@ -490,81 +804,142 @@ public class DashboardPanel extends JPanel {
     // =============================================================================================
 
     private void openMovieDetails(String movieId) {
-        new SwingWorker<JSONObject, Void>() {
-            @Override protected JSONObject doInBackground() throws Exception {
-                return networkService.getMovieById(movieId);
-            }
-            @Override protected void done() {
-                try {
-                    JSONObject res = get();
-                    if(!"200".equals(res.optString("status"))) return;
-
-                    JSONObject movie = res.getJSONObject("filme");
-                    JSONArray reviews = res.optJSONArray("reviews");
-
-                    JDialog d = new JDialog((Frame) SwingUtilities.getWindowAncestor(DashboardPanel.this), movie.getString("titulo"), true);
-                    d.setSize(600, 700);
-                    d.setLocationRelativeTo(DashboardPanel.this);
-
-                    JPanel main = new JPanel(new BorderLayout());
-                    main.setBackground(StyleTheme.BG_COLOR);
-
-                    // Info Panel
-                    JPanel info = new JPanel();
-                    info.setLayout(new BoxLayout(info, BoxLayout.Y_AXIS));
-                    info.setBackground(StyleTheme.BG_COLOR);
-                    info.setBorder(new EmptyBorder(20,20,20,20));
-
-                    JLabel title = new JLabel(movie.getString("titulo"));
-                    title.setFont(StyleTheme.FONT_TITLE);
-                    title.setForeground(StyleTheme.ACCENT_COLOR);
-
-                    // Exibir Gêneros formatados
-                    JSONArray genArr = movie.optJSONArray("genero");
-                    String genStr = (genArr != null) ? genArr.join(", ").replace("\"", "") : "";
-                    JLabel genres = new JLabel(genStr);
-                    genres.setForeground(Color.GRAY);
-
-                    JTextArea sinopse = new JTextArea(movie.optString("sinopse"));
-                    sinopse.setLineWrap(true);
-                    sinopse.setWrapStyleWord(true);
-                    sinopse.setEditable(false);
-                    sinopse.setBackground(StyleTheme.BG_COLOR);
-                    sinopse.setForeground(Color.LIGHT_GRAY);
-
-                    info.add(title);
-                    info.add(genres);
-                    info.add(new JLabel(" "));
-                    info.add(sinopse);
-
-                    // Reviews List
-                    JPanel reviewsList = new JPanel();
-                    reviewsList.setLayout(new BoxLayout(reviewsList, BoxLayout.Y_AXIS));
-                    reviewsList.setBackground(StyleTheme.PANEL_COLOR);
-
-                    if(reviews != null) {
-                        for(int i=0; i<reviews.length(); i++) {
-                            reviewsList.add(createReviewItem(reviews.getJSONObject(i), false));
-                            reviewsList.add(Box.createVerticalStrut(10));
-                        }
-                    }
+        // Com os detalhes já no cache (prefetch ou visita anterior), o diálogo abre na hora
+        JSONObject cached = detailCache.getIfPresent(movieId);
+        if (cached != null) {
+            showMovieDetails(movieId, cached);
+            return;
+        }
+        UiTasks.submit(() -> detailCache.get(movieId), res -> showMovieDetails(movieId, res), UiTasks.reportTo(this));
+    }
 
-                    JButton addRev = StyleTheme.createButton("Escrever Avaliação", true);
-                    addRev.addActionListener(e -> {
-                        d.dispose();
-                        showReviewForm(movieId, null, () -> openMovieDetails(movieId));
-                    });
+    private void showMovieDetails(String movieId, JSONObject res) {
+        long renderStart = System.nanoTime();
+        if(!"200".equals(res.optString("status"))) return;
 
-                    main.add(info, BorderLayout.NORTH);
-                    main.add(new JScrollPane(reviewsList), BorderLayout.CENTER);
-                    main.add(addRev, BorderLayout.SOUTH);
+        JSONObject movie = res.getJSONObject("filme");
+        JSONArray reviews = res.optJSONArray("reviews");
 
-                    d.add(main);
-                    d.setVisible(true);
+        JDialog d = new JDialog((Frame) SwingUtilities.getWindowAncestor(DashboardPanel.this), movie.getString("titulo"), true);
+        d.setSize(600, 700);
+        d.setLocationRelativeTo(DashboardPanel.this);
 
-                } catch (Exception e) { e.printStackTrace(); }
+        JPanel main = new JPanel(new BorderLayout());
+        main.setBackground(StyleTheme.BG_COLOR);
+
+        // Info Panel
+        JPanel info = new JPanel();
+        info.setLayout(new BoxLayout(info, BoxLayout.Y_AXIS));
+        info.setBackground(StyleTheme.BG_COLOR);
+        info.setBorder(new EmptyBorder(20,20,20,20));
+
+        JLabel title = new JLabel(movie.getString("titulo"));
+        title.setFont(StyleTheme.FONT_TITLE);
+        title.setForeground(StyleTheme.ACCENT_COLOR);
+
+        // Exibir Gêneros formatados
+        JSONArray genArr = movie.optJSONArray("genero");
+        String genStr = (genArr != null) ? genArr.join(", ").replace("\"", "") : "";
+        JLabel genres = new JLabel(genStr);
+        genres.setForeground(Color.GRAY);
+
+        JTextArea sinopse = new JTextArea(movie.optString("sinopse"));
+        sinopse.setLineWrap(true);
+        sinopse.setWrapStyleWord(true);
+        sinopse.setEditable(false);
+        sinopse.setBackground(StyleTheme.BG_COLOR);
+        sinopse.setForeground(Color.LIGHT_GRAY);
+
+        // As notas já montadas no cliente; sem elas (resposta fora do cache), saem desta resposta
+        RatingStats.Summary summary = ratingStats.get(movieId);
+        if (summary == null) {
+            ratingStats.onMovieLoaded(movieId, res);
+            summary = ratingStats.get(movieId);
+        }
+
+        info.add(title);
+        info.add(genres);
+        info.add(new JLabel(" "));
+        info.add(sinopse);
+        if (summary != null) {
+            info.add(new JLabel(" "));
+            info.add(createRatingPanel(summary));
+        }
+
+        // Reviews List
+        JPanel reviewsList = new JPanel();
+        reviewsList.setLayout(new BoxLayout(reviewsList, BoxLayout.Y_AXIS));
+        reviewsList.setBackground(StyleTheme.PANEL_COLOR);
+
+        // O admin pode marcar várias reviews (spam, por exemplo) e apagá-las de uma vez
+        ReviewSelection selection = isAdmin ? new ReviewSelection(ids ->
+                runBatch(ids.stream().map(NetworkService.BatchItem::deleteReview).toList(), () -> {
+                    d.dispose();
+                    openMovieDetails(movieId);
+                })) : null;
+        if(reviews != null) {
+            for(int i=0; i<reviews.length(); i++) {
+                reviewsList.add(createReviewItem(reviews.getJSONObject(i), false, selection));
+                reviewsList.add(Box.createVerticalStrut(10));
             }
-        }.execute();
+        }
+
+        JButton addRev = StyleTheme.createButton("Escrever Avaliação", true);
+        addRev.addActionListener(e -> {
+            d.dispose();
+            showReviewForm(movieId, null, () -> openMovieDetails(movieId));
+        });
+
+        main.add(info, BorderLayout.NORTH);
+        main.add(new JScrollPane(reviewsList), BorderLayout.CENTER);
+        if (selection != null) {
+            JPanel buttons = new JPanel(new GridLayout(1, 2, 10, 0));
+            buttons.setBackground(StyleTheme.BG_COLOR);
+            buttons.add(selection.deleteButton);
+            buttons.add(addRev);
+            main.add(buttons, BorderLayout.SOUTH);
+        } else {
+            main.add(addRev, BorderLayout.SOUTH);
+        }
+
+        d.add(main);
+        networkService.getMetrics().recordRender("Detalhes do filme", System.nanoTime() - renderStart);
+        d.setVisible(true);
+    }
+
+    /** Média, quantidade e desvio das notas, com uma barra por nota de 5 a 0. */
+    private JPanel createRatingPanel(RatingStats.Summary summary) {
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.setBackground(StyleTheme.BG_COLOR);
+        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        JLabel header = new JLabel(summary.count() == 0 ? "Sem avaliações"
+                : String.format(PT_BR, "★ %.1f  ·  %d avaliações  ·  desvio padrão %.2f",
+                        summary.mean(), summary.count(), summary.standardDeviation()));
+        header.setForeground(Color.YELLOW);
+        header.setFont(StyleTheme.FONT_BOLD);
+        panel.add(header, BorderLayout.NORTH);
+
+        int max = 1;
+        for (int score = 0; score <= RatingStats.MAX_SCORE; score++) max = Math.max(max, summary.countOf(score));
+        JPanel bars = new JPanel(new GridLayout(RatingStats.MAX_SCORE + 1, 1, 0, 2));
+        bars.setBackground(StyleTheme.BG_COLOR);
+        for (int score = RatingStats.MAX_SCORE; score >= 0; score--) {
+            JPanel row = new JPanel(new BorderLayout(8, 0));
+            row.setBackground(StyleTheme.BG_COLOR);
+            JLabel label = new JLabel(score + " ★");
+            label.setForeground(Color.LIGHT_GRAY);
+            JProgressBar bar = new JProgressBar(0, max);
+            bar.setValue(summary.countOf(score));
+            JLabel count = new JLabel(String.valueOf(summary.countOf(score)));
+            count.setForeground(Color.GRAY);
+            row.add(label, BorderLayout.WEST);
+            row.add(bar, BorderLayout.CENTER);
+            row.add(count, BorderLayout.EAST);
+            bars.add(row);
+        }
+        panel.add(bars, BorderLayout.CENTER);
+        return panel;
     }
 
     private void showReviewForm(String idFilme, JSONObject existing, Runnable onSuccess) {
@@ -591,10 +966,22 @@ public class DashboardPanel extends JPanel {
 
         JButton save = StyleTheme.createButton("Publicar", true);
         save.addActionListener(e -> {
-            executeTask(() -> {
+            if (existing != null && onSuccess == null) {
+                // Edição em "Minhas Avaliações": o item muda na hora e volta se o servidor recusar
+                JSONObject edited = new JSONObject(existing.toMap())
+                        .put("titulo", titleF.getText())
+                        .put("descricao", descF.getText())
+                        .put("nota", notaF.getText())
+                        .put("editado", "true");
+                d.dispose();
+                UiTasks.optimistic(this, myReviewModel.replace(edited), false, () -> networkService.updateReview(
+                        existing.getString("id"), titleF.getText(), descF.getText(), notaF.getText()), null);
+                return;
+            }
+            UiTasks.request(d, () -> {
                 if(existing == null) return networkService.createReview(idFilme, titleF.getText(), descF.getText(), notaF.getText());
                 else return networkService.updateReview(existing.getString("id"), titleF.getText(), descF.getText(), notaF.getText());
-            }, "Review", () -> {
+            }, () -> {
                 d.dispose();
                 if(onSuccess != null) onSuccess.run();
                 else loadMyReviewsView();
@@ -689,10 +1076,29 @@ public class DashboardPanel extends JPanel {
                 return;
             }
 
-            executeTask(() -> {
-                if(id == null) return networkService.createMovie(tit.getText(), dir.getText(), ano.getText(), selectedGenres, sin.getText());
-                else return networkService.updateMovie(id, tit.getText(), dir.getText(), ano.getText(), selectedGenres, sin.getText());
-            }, "Filme", () -> { d.dispose(); loadMoviesView(); });
+            if (id == null) {
+                // O filme só entra na grade com o id devolvido pelo servidor
+                UiTasks.optimistic(d, ModelList.Undo.NONE, false,
+                        () -> networkService.createMovie(tit.getText(), dir.getText(), ano.getText(), selectedGenres, sin.getText()), res -> {
+                            d.dispose();
+                            JSONObject created = res.optJSONObject("filme");
+                            if (created != null && created.has("id")) movieModel.add(created);
+                            else if (MutationJournal.QUEUED_STATUS.equals(res.optString("status"))) {
+                                // Sem id até chegar ao servidor: entra na grade na próxima carga
+                                JOptionPane.showMessageDialog(this, res.optString("mensagem"));
+                            } else loadMoviesView();
+                        });
+                return;
+            }
+            JSONObject edited = new JSONObject(data.toMap())
+                    .put("titulo", tit.getText())
+                    .put("diretor", dir.getText())
+                    .put("ano", ano.getText())
+                    .put("genero", new JSONArray(selectedGenres.split(",")))
+                    .put("sinopse", sin.getText());
+            d.dispose();
+            UiTasks.optimistic(this, movieModel.replace(edited), false,
+                    () -> networkService.updateMovie(id, tit.getText(), dir.getText(), ano.getText(), selectedGenres, sin.getText()), null);
         });
 
         gbc.gridy=6;
@@ -703,30 +1109,198 @@ public class DashboardPanel extends JPanel {
     }
 
     private void performLogout() {
-        executeTask(networkService::logoutUser, "Logout", () -> rootCardLayout.show(mainContainer, "CONNECTION"));
+        UiTasks.request(this, networkService::logoutUser, () -> rootCardLayout.show(mainContainer, "CONNECTION"));
+    }
+
+    /** Envia os itens num lote e mostra quantos terminaram com cada status. */
+    private void runBatch(List<NetworkService.BatchItem> items, Runnable onDone) {
+        UiTasks.submit(() -> networkService.sendBatch(items), result -> {
+            int type = result.successCount() == result.size() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+            JOptionPane.showMessageDialog(this, result.summary(), "Resultado", type);
+            if (onDone != null) onDone.run();
+        }, UiTasks.reportTo(this));
+    }
+
+    /**
+     * Tira os itens do modelo na hora e os exclui num lote; os que o servidor recusar voltam
+     * para a posição em que estavam (404 conta como excluído).
+     */
+    private void deleteOptimistic(ModelList model, List<String> ids, Function<String, NetworkService.BatchItem> toItem) {
+        ModelList.Removal removal = model.removeAll(ids);
+        List<NetworkService.BatchItem> items = ids.stream().map(toItem).toList();
+        UiTasks.submit(() -> networkService.sendBatch(items), result -> {
+            // As recusadas voltam juntas, cada uma à posição original, qualquer que seja a ordem dos ids
+            List<String> rejected = new ArrayList<>();
+            for (int i = 0; i < result.size(); i++) {
+                if (!result.succeeded(i) && !"404".equals(result.status(i))) rejected.add(ids.get(i));
+            }
+            removal.restore(rejected);
+            if (result.successCount() < result.size()) {
+                JOptionPane.showMessageDialog(this, result.summary(), "Resultado", JOptionPane.WARNING_MESSAGE);
+            }
+        }, e -> {
+            removal.undo();
+            UiTasks.reportTo(this).accept(e);
+        });
+    }
+
+    /**
+     * Uma alteração feita sem conexão foi recusada quando enviada (o filme foi excluído, a review
+     * já existia...). A tela mostrava o resultado esperado: os caches saem e a tela afetada é
+     * recarregada, desfazendo a alteração otimista.
+     */
+    private void showRejectedMutation(Operation operation, JSONObject request, JSONObject response) {
+        catalogCache.invalidate();
+        detailCache.invalidate();
+        JSONObject filme = request.optJSONObject("filme");
+        JSONObject review = request.optJSONObject("review");
+        String what = switch (operation) {
+            case CRIAR_FILME -> "Cadastro do filme \"" + (filme != null ? filme.optString("titulo") : "") + "\"";
+            case EDITAR_FILME -> "Edição do filme \"" + (filme != null ? filme.optString("titulo") : "") + "\"";
+            case EXCLUIR_FILME -> "Exclusão do filme " + request.optString("id");
+            case CRIAR_REVIEW -> "Avaliação \"" + (review != null ? review.optString("titulo") : "") + "\"";
+            case EDITAR_REVIEW -> "Edição da avaliação \"" + (review != null ? review.optString("titulo") : "") + "\"";
+            case EXCLUIR_REVIEW -> "Exclusão da avaliação " + request.optString("id");
+            case ADMIN_EXCLUIR_USUARIO -> "Exclusão do usuário " + request.optString("id");
+            default -> operation.name();
+        };
+        // O modelo da tela ainda mostra a alteração otimista: a tela afetada volta ao que o servidor tem.
+        // As que não estão à vista são remontadas do servidor quando forem abertas de novo
+        switch (operation) {
+            case CRIAR_FILME, EDITAR_FILME, EXCLUIR_FILME -> {
+                if (moviesPanel.isShowing()) loadMoviesView();
+            }
+            case CRIAR_REVIEW, EDITAR_REVIEW, EXCLUIR_REVIEW -> {
+                if (myReviewsPanel.isShowing()) loadMyReviewsView();
+            }
+            case ADMIN_EXCLUIR_USUARIO -> {
+                if (adminUsersPanel.isShowing()) loadAdminUsersView();
+            }
+            default -> { }
+        }
+        String status = response.optString("status");
+        JOptionPane.showMessageDialog(this,
+                "Uma alteração feita sem conexão foi recusada pelo servidor:\n" + what + "\n\n"
+                        + StatusCodeHandler.getMessage(status),
+                "Alteração não aplicada", JOptionPane.WARNING_MESSAGE);
     }
 
     private boolean confirmAction(String msg) {
         return JOptionPane.showConfirmDialog(this, msg, "Confirmar", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
     }
 
-    private void executeTask(NetworkTask task, String name, Runnable onSuccess) {
-        new SwingWorker<JSONObject, Void>() {
-            @Override protected JSONObject doInBackground() throws Exception { return task.run(); }
-            @Override protected void done() {
-                try {
-                    JSONObject res = get();
-                    String status = res.optString("status");
-                    if(status.startsWith("2")) {
-                        if(onSuccess != null) onSuccess.run();
-                        else JOptionPane.showMessageDialog(DashboardPanel.this, res.optString("mensagem"));
-                    } else {
-                        JOptionPane.showMessageDialog(DashboardPanel.this, "Erro: " + res.optString("mensagem"));
-                    }
-                } catch (Exception e) { e.printStackTrace(); }
-            }
-        }.execute();
+    /**
+     * Carrega os dados de uma view e a monta na EDT. Trocar de view cancela a carga anterior,
+     * para que uma resposta atrasada não mostre por cima a tela que o usuário já deixou.
+     */
+    private <T> void loadView(UiTasks.Work<T> work, Consumer<T> render) {
+        cancelViewLoad();
+        viewLoad = UiTasks.submit(work, render, UiTasks.reportTo(this));
+    }
+
+    private void cancelViewLoad() {
+        if (viewLoad != null) viewLoad.cancel();
+        viewLoad = null;
+    }
+
+    static List<JSONObject> toObjectList(JSONArray array) {
+        List<JSONObject> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) list.add(array.getJSONObject(i));
+        return list;
+    }
+
+    /**
+     * Reviews marcadas numa lista, apagadas juntas num único lote pelo deleteButton.
+     */
+    private final class ReviewSelection {
+        private final Set<String> ids = new LinkedHashSet<>();
+        final JButton deleteButton = StyleTheme.createButton("Excluir selecionadas", false);
+
+        ReviewSelection(Consumer<List<String>> delete) {
+            deleteButton.setEnabled(false);
+            deleteButton.addActionListener(e -> {
+                if (ids.isEmpty() || !confirmAction("Apagar " + ids.size() + " avaliações?")) return;
+                List<String> selected = new ArrayList<>(ids);
+                ids.clear();
+                updateButton();
+                delete.accept(selected);
+            });
+        }
+
+        /** O item saiu da lista (excluído sozinho): deixa de contar na seleção. */
+        void forget(String id) {
+            if (ids.remove(id)) updateButton();
+        }
+
+        private void updateButton() {
+            deleteButton.setEnabled(!ids.isEmpty());
+            deleteButton.setText(ids.isEmpty() ? "Excluir selecionadas" : "Excluir selecionadas (" + ids.size() + ")");
+        }
+
+        JCheckBox checkBoxFor(String id) {
+            JCheckBox box = new JCheckBox();
+            box.setBackground(StyleTheme.PANEL_COLOR);
+            box.addItemListener(e -> {
+                if (box.isSelected()) ids.add(id);
+                else ids.remove(id);
+                updateButton();
+            });
+            return box;
+        }
     }
 
-    @FunctionalInterface interface NetworkTask { JSONObject run() throws Exception; }
+    /**
+     * Busca a próxima página quando a rolagem se aproxima do fim da lista
+     * (ou enquanto o conteúdo ainda não preenche o viewport).
+     */
+    private static final class PageAppender implements AdjustmentListener {
+        private final JScrollPane scroll;
+        private final PageIterator pages;
+        private final Consumer<JSONArray> appender;
+        private boolean loading;
+        private boolean stopped;
+        // A última busca falhou e o erro já foi mostrado: a próxima rolagem tenta de novo sem outro aviso
+        private boolean failed;
+
+        PageAppender(JScrollPane scroll, PageIterator pages, Consumer<JSONArray> appender) {
+            this.scroll = scroll;
+            this.pages = pages;
+            this.appender = appender;
+            scroll.getVerticalScrollBar().addAdjustmentListener(this);
+            SwingUtilities.invokeLater(this::loadIfNeeded);
+        }
+
+        @Override public void adjustmentValueChanged(AdjustmentEvent e) {
+            loadIfNeeded();
+        }
+
+        /** Para de buscar páginas e descarta a que estiver a caminho. Chamar da EDT. */
+        void stop() {
+            stopped = true;
+            scroll.getVerticalScrollBar().removeAdjustmentListener(this);
+        }
+
+        private void loadIfNeeded() {
+            if (stopped || loading || !pages.hasNext()) return;
+            JScrollBar bar = scroll.getVerticalScrollBar();
+            int remaining = bar.getMaximum() - (bar.getValue() + bar.getVisibleAmount());
+            if (remaining > scroll.getViewport().getHeight()) return;
+
+            loading = true;
+            UiTasks.submit(pages::next, page -> {
+                loading = false;
+                failed = false;
+                if (stopped) return;
+                appender.accept(page);
+                SwingUtilities.invokeLater(PageAppender.this::loadIfNeeded);
+            }, e -> {
+                loading = false;
+                if (stopped || failed) return;
+                failed = true;
+                Throwable cause = e instanceof UncheckedIOException && e.getCause() != null ? e.getCause() : e;
+                JOptionPane.showMessageDialog(scroll, "Não foi possível carregar mais itens: " + cause.getMessage()
+                        + "\nRole a lista para tentar de novo.", "Erro", JOptionPane.ERROR_MESSAGE);
+            });
+        }
+    }
 }
\ No newline at end of file
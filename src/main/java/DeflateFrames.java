@@ -0,0 +1,242 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressão opcional das mensagens, negociada por conexão com NEGOCIAR_COMPRESSAO.
+ * Depois da negociação, cada lado pode trocar uma linha JSON por um quadro comprimido:
+ * o byte MARKER (nunca é o início de uma linha JSON), o tamanho do conteúdo em 4 bytes
+ * big-endian e o conteúdo comprimido (deflate no formato zlib), sem o '\n'. Só mensagens
+ * a partir do limite combinado viram quadro; as pequenas continuam como linhas comuns,
+ * então os dois formatos se misturam na mesma conexão. Cada quadro é comprimido de forma
+ * independente.
+ *
+ * Uma instância não é thread-safe, mas compress e inflate usam estados separados e podem
+ * rodar em threads diferentes, cada um com uma chamada por vez.
+ */
+public final class DeflateFrames {
+
+    public static final byte MARKER = 0x00;
+    public static final int HEADER_SIZE = 5;
+    /** Valor do limite que desliga a compressão. */
+    public static final int DISABLED = -1;
+    public static final String ALGORITHM = "deflate";
+
+    // Tamanho máximo aceito, comprimido ou não: um tamanho absurdo indica fluxo corrompido
+    static final int MAX_FRAME_SIZE = 256 * 1024 * 1024;
+
+    private final Deflater deflater = new Deflater();
+    private final Inflater inflater = new Inflater();
+    private byte[] frame = new byte[8 * 1024];
+    private byte[] inflated = new byte[8 * 1024];
+    private int inflatedLength;
+
+    /** Se a compressão deve ser pedida ao conectar (propriedade voteflix.compression, padrão false). */
+    public static boolean enabledByProperty() {
+        return Boolean.getBoolean("voteflix.compression");
+    }
+
+    /** Menor mensagem, em bytes, que vale a pena comprimir (voteflix.compression.threshold, padrão 1024). */
+    public static int defaultThreshold() {
+        return Integer.getInteger("voteflix.compression.threshold", 1024);
+    }
+
+    /** Limite a usar ao conectar conforme as propriedades: defaultThreshold() ou DISABLED. */
+    public static int thresholdFromProperty() {
+        return enabledByProperty() ? defaultThreshold() : DISABLED;
+    }
+
+    /**
+     * Comprime src[offset, offset + length) num quadro completo, com cabeçalho.
+     * Devolve o tamanho do quadro, que fica em frame() até a próxima chamada.
+     */
+    public int compress(byte[] src, int offset, int length) {
+        deflater.reset();
+        deflater.setInput(src, offset, length);
+        deflater.finish();
+        int n = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (n == frame.length) frame = Arrays.copyOf(frame, frame.length * 2);
+            n += deflater.deflate(frame, n, frame.length - n);
+        }
+        int payload = n - HEADER_SIZE;
+        frame[0] = MARKER;
+        frame[1] = (byte) (payload >>> 24);
+        frame[2] = (byte) (payload >>> 16);
+        frame[3] = (byte) (payload >>> 8);
+        frame[4] = (byte) payload;
+        return n;
+    }
+
+    public byte[] frame() {
+        return frame;
+    }
+
+    /** Tamanho do conteúdo declarado no cabeçalho que começa em data[offset] (depois do MARKER). */
+    public static int payloadLength(byte[] data, int offset) throws IOException {
+        int length = (data[offset + 1] & 0xFF) << 24 | (data[offset + 2] & 0xFF) << 16
+                | (data[offset + 3] & 0xFF) << 8 | (data[offset + 4] & 0xFF);
+        if (length <= 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Quadro comprimido com tamanho inválido: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Descomprime o conteúdo de um quadro (sem cabeçalho). O resultado fica em inflated(),
+     * com inflatedLength() bytes, até a próxima chamada.
+     */
+    public void inflate(byte[] payload, int offset, int length) throws IOException {
+        inflater.reset();
+        inflater.setInput(payload, offset, length);
+        int n = 0;
+        try {
+            while (!inflater.finished()) {
+                if (n == inflated.length) {
+                    if (n >= MAX_FRAME_SIZE) throw new IOException("Quadro descomprimido grande demais.");
+                    inflated = Arrays.copyOf(inflated, Math.min(inflated.length * 2, MAX_FRAME_SIZE));
+                }
+                int count = inflater.inflate(inflated, n, inflated.length - n);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Quadro comprimido truncado.");
+                }
+                n += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Quadro comprimido inválido: " + e.getMessage(), e);
+        }
+        inflatedLength = n;
+    }
+
+    public byte[] inflated() {
+        return inflated;
+    }
+
+    public int inflatedLength() {
+        return inflatedLength;
+    }
+
+    /** Recebe o tamanho original e o tamanho no fio de cada quadro lido. */
+    @FunctionalInterface
+    public interface FrameListener {
+        void frameRead(long plainBytes, long wireBytes);
+    }
+
+    /** Fluxo que entrega as mensagens de in sempre como linhas, descomprimindo os quadros. */
+    public LineStream lineStream(InputStream in, FrameListener listener) {
+        return new LineStream(in, listener);
+    }
+
+    /**
+     * Leitura para o transporte bloqueante: cada read para no fim da mensagem atual, então
+     * wirePosition() logo depois de decodificar uma resposta mede os bytes dela no fio.
+     */
+    public final class LineStream extends InputStream {
+        private final InputStream in;
+        private final FrameListener listener;
+        private final byte[] raw = new byte[64 * 1024];
+        private int rawPos;
+        private int rawLimit;
+        private boolean atLineStart = true;
+        private int inflatedPos;
+        private int inflatedLimit;
+        private long wirePosition;
+
+        private LineStream(InputStream in, FrameListener listener) {
+            this.in = in;
+            this.listener = listener;
+        }
+
+        /** Bytes do fio já entregues (um quadro conta inteiro, com o cabeçalho). */
+        public long wirePosition() {
+            return wirePosition;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (inflatedPos < inflatedLimit) return copyInflated(b, off, len);
+            if (rawPos == rawLimit && !fill()) return -1;
+            if (atLineStart && raw[rawPos] == MARKER) {
+                readFrame();
+                return copyInflated(b, off, len);
+            }
+            // Linha comum: copia até o '\n', sem passar para a mensagem seguinte
+            int count = 0;
+            while (count < len && rawPos < rawLimit) {
+                byte c = raw[rawPos++];
+                b[off + count++] = c;
+                if (c == '\n') {
+                    atLineStart = true;
+                    wirePosition += count;
+                    return count;
+                }
+            }
+            atLineStart = false;
+            wirePosition += count;
+            return count;
+        }
+
+        private int copyInflated(byte[] b, int off, int len) {
+            int count = Math.min(len, inflatedLimit - inflatedPos);
+            if (inflatedPos + count > inflatedLength) {
+                // O '\n' que separa as mensagens não vem no quadro; é devolvido aqui
+                int fromBuffer = Math.max(0, inflatedLength - inflatedPos);
+                System.arraycopy(inflated, inflatedPos, b, off, fromBuffer);
+                b[off + fromBuffer] = '\n';
+                count = fromBuffer + 1;
+            } else {
+                System.arraycopy(inflated, inflatedPos, b, off, count);
+            }
+            inflatedPos += count;
+            return count;
+        }
+
+        private void readFrame() throws IOException {
+            byte[] header = readFully(HEADER_SIZE);
+            int length = payloadLength(header, 0);
+            byte[] payload = readFully(length);
+            inflate(payload, 0, length);
+            inflatedPos = 0;
+            inflatedLimit = inflatedLength + 1;
+            wirePosition += HEADER_SIZE + length;
+            listener.frameRead(inflatedLimit, HEADER_SIZE + length);
+        }
+
+        private byte[] readFully(int length) throws IOException {
+            byte[] data = new byte[length];
+            int n = 0;
+            while (n < length) {
+                if (rawPos == rawLimit && !fill()) throw new EOFException("Conexão encerrada no meio de um quadro comprimido.");
+                int count = Math.min(length - n, rawLimit - rawPos);
+                System.arraycopy(raw, rawPos, data, n, count);
+                rawPos += count;
+                n += count;
+            }
+            return data;
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(raw, 0, raw.length);
+            if (n <= 0) return false;
+            rawPos = 0;
+            rawLimit = n;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Tela de diagnóstico: latência por operação (p50/p90/p99/máx), tempo de decodificação,
+ * bytes trafegados, respostas por código de status, tempo de montagem das telas e os
+ * contadores de cada subsistema (caches, log de tráfego, reconexão, compressão, offline).
+ * Atualizada a cada segundo enquanto está visível.
+ */
+public class DiagnosticsPanel extends JPanel {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final NetworkMetrics metrics;
+    private final MovieCatalogCache catalogCache;
+    private final MovieDetailCache detailCache;
+    private final IntSupplier pendingMutations;
+    private final Timer refreshTimer;
+
+    private final DefaultTableModel operationsModel = readOnlyModel(
+            "Operação", "Req.", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Máx (ms)", "Decod. p99 (ms)", "Enviados", "Recebidos", "Falhas");
+    private final DefaultTableModel statusModel = readOnlyModel("Código", "Respostas", "Descrição");
+    private final DefaultTableModel renderModel = readOnlyModel("Tela", "Vezes", "p50 (ms)", "p99 (ms)", "Máx (ms)");
+    private final DefaultTableModel countersModel = readOnlyModel("Subsistema", "Indicador", "Valor");
+
+    public DiagnosticsPanel(NetworkMetrics metrics, MovieCatalogCache catalogCache, MovieDetailCache detailCache,
+                            IntSupplier pendingMutations) {
+        this.metrics = metrics;
+        this.catalogCache = catalogCache;
+        this.detailCache = detailCache;
+        this.pendingMutations = pendingMutations;
+
+        setLayout(new BorderLayout(0, 15));
+        setBackground(StyleTheme.BG_COLOR);
+
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBackground(StyleTheme.BG_COLOR);
+        JLabel title = new JLabel("Diagnóstico de Rede");
+        title.setFont(StyleTheme.FONT_TITLE);
+        title.setForeground(Color.WHITE);
+        header.add(title, BorderLayout.WEST);
+
+        JButton resetBtn = StyleTheme.createButton("Zerar", false);
+        resetBtn.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        header.add(resetBtn, BorderLayout.EAST);
+        add(header, BorderLayout.NORTH);
+
+        JPanel tables = new JPanel(new GridLayout(4, 1, 0, 10));
+        tables.setBackground(StyleTheme.BG_COLOR);
+        tables.add(tableSection("Por operação", operationsModel));
+        tables.add(tableSection("Por código de status", statusModel));
+        tables.add(tableSection("Montagem das telas (cliente)", renderModel));
+        tables.add(tableSection("Contadores", countersModel));
+        add(tables, BorderLayout.CENTER);
+
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> {
+            if (isShowing()) refresh();
+        });
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        operationsModel.setRowCount(0);
+        for (Operation op : Operation.values()) {
+            NetworkMetrics.OperationStats s = metrics.stats(op);
+            LatencyHistogram h = s.latency();
+            if (h.count() == 0 && s.failures() == 0) continue;
+            operationsModel.addRow(new Object[]{
+                    op.name(), h.count(),
+                    millis(h.percentileNanos(50)), millis(h.percentileNanos(90)), millis(h.percentileNanos(99)),
+                    millis(h.maxNanos()), millis(s.decode().percentileNanos(99)),
+                    bytes(s.bytesSent()), bytes(s.bytesReceived()), s.failures()
+            });
+        }
+
+        statusModel.setRowCount(0);
+        for (Map.Entry<String, Long> e : metrics.statusCounts().entrySet()) {
+            statusModel.addRow(new Object[]{ e.getKey(), e.getValue(), StatusCodeHandler.getMessage(e.getKey()) });
+        }
+
+        renderModel.setRowCount(0);
+        for (Map.Entry<String, LatencyHistogram> e : metrics.renderTimes().entrySet()) {
+            LatencyHistogram h = e.getValue();
+            renderModel.addRow(new Object[]{
+                    e.getKey(), h.count(), millis(h.percentileNanos(50)), millis(h.percentileNanos(99)), millis(h.maxNanos())
+            });
+        }
+
+        countersModel.setRowCount(0);
+        counter("Cache do catálogo", "Acertos", catalogCache.getHits());
+        counter("Cache do catálogo", "Faltas", catalogCache.getMisses());
+        counter("Detalhes", "Acertos", detailCache.getHits());
+        counter("Detalhes", "Faltas", detailCache.getMisses());
+        counter("Detalhes", "Prefetch", detailCache.getPrefetches());
+        counter("Detalhes", "Expulsos", detailCache.getEvictions());
+        counter("Detalhes", "Ocupação", bytes(detailCache.getBytes()));
+        counter("Log de tráfego", "Entradas descartadas", WireLogger.getDroppedCount());
+        counter("Conexão", "Reconexões", metrics.getReconnects());
+        counter("Conexão", "Reenvios", metrics.getRetries());
+        counter("Conexão", "Leituras coalescidas", metrics.getCoalesced());
+        LatencyHistogram keepAlive = metrics.keepAliveLatency();
+        counter("Conexão", "Keep-alives respondidos", keepAlive.count());
+        counter("Conexão", "Keep-alive p99 (ms)", millis(keepAlive.percentileNanos(99)));
+        counter("Conexão", "Keep-alives sem resposta", metrics.getKeepAliveTimeouts());
+        counter("Compressão", "Quadros", metrics.getCompressedFrames());
+        counter("Compressão", "Antes → depois", bytes(metrics.getCompressedPlainBytes()) + " → " + bytes(metrics.getCompressedWireBytes()));
+        counter("Offline", "Alterações pendentes", pendingMutations.getAsInt());
+    }
+
+    private void counter(String subsystem, String name, Object value) {
+        countersModel.addRow(new Object[]{ subsystem, name, value });
+    }
+
+    private static JPanel tableSection(String title, DefaultTableModel model) {
+        JPanel section = new JPanel(new BorderLayout(0, 5));
+        section.setBackground(StyleTheme.BG_COLOR);
+
+        JLabel label = new JLabel(title);
+        label.setFont(StyleTheme.FONT_BOLD);
+        label.setForeground(Color.LIGHT_GRAY);
+        section.add(label, BorderLayout.NORTH);
+
+        JTable table = new JTable(model);
+        table.setBackground(StyleTheme.PANEL_COLOR);
+        table.setForeground(Color.WHITE);
+        table.setRowHeight(22);
+        table.setFillsViewportHeight(true);
+        section.add(new JScrollPane(table), BorderLayout.CENTER);
+        return section;
+    }
+
+    private static DefaultTableModel readOnlyModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            public boolean isCellEditable(int row, int col) { return false; }
+        };
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    private static String bytes(long n) {
+        if (n < 1024) return n + " B";
+        if (n < 1024 * 1024) return String.format("%.1f KB", n / 1024.0);
+        return String.format("%.1f MB", n / (1024.0 * 1024));
+    }
+}
@@ -0,0 +1,330 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+/**
+ * Decodificador JSON de leitura direta (pull) sobre os bytes UTF-8 do socket.
+ * Lê uma resposta por linha sem montar a String da linha inteira: os campos escalares
+ * do envelope (status, mensagem, token...) vão para o JSONObject devolvido e os arrays
+ * de topo pedidos por um ElementSink (ex.: "filmes", "reviews") são entregues elemento a elemento.
+ * Chaves repetidas são reaproveitadas de um pequeno cache, sem nova String a cada ocorrência.
+ */
+public class JsonStreamDecoder {
+
+    /**
+     * Recebe, um a um, os elementos dos arrays de topo que desejar.
+     */
+    public interface ElementSink {
+        boolean wants(String field);
+        void accept(String field, Object element);
+    }
+
+    /**
+     * Resposta que não é JSON válido. A leitura já foi ressincronizada na próxima linha.
+     */
+    public static class JsonFormatException extends IOException {
+        public JsonFormatException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int KEY_CACHE_SIZE = 512; // potência de 2
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+    private long filled;
+    private int last = -1;
+    private long messageStartNanos;
+
+    private char[] chars = new char[256];
+    private final String[] keyCache = new String[KEY_CACHE_SIZE];
+
+    public JsonStreamDecoder(InputStream in) {
+        this(in, 64 * 1024);
+    }
+
+    public JsonStreamDecoder(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Decodificador sem fluxo, para mensagens que já chegaram inteiras (transporte NIO).
+     * Cada mensagem é apontada com reset; o cache de chaves é mantido entre elas.
+     */
+    public JsonStreamDecoder() {
+        this.in = InputStream.nullInputStream();
+        this.buffer = new byte[0];
+    }
+
+    /** Passa a ler data[offset, offset + length). Só para o decodificador sem fluxo. */
+    public void reset(byte[] data, int offset, int length) {
+        buffer = data;
+        pos = offset;
+        limit = offset + length;
+        filled = length;
+        last = -1;
+    }
+
+    /**
+     * Total de bytes consumidos até aqui (útil para medir o tamanho de cada resposta).
+     */
+    public long position() {
+        return filled - (limit - pos);
+    }
+
+    /** Instante (System.nanoTime) em que o primeiro byte da última mensagem começou a ser decodificado. */
+    public long messageStartNanos() {
+        return messageStartNanos;
+    }
+
+    /**
+     * Lê a próxima resposta. Devolve null no fim do fluxo.
+     *
+     * @param sink destino dos arrays de topo a transmitir em fluxo; pode ser null.
+     */
+    public JSONObject next(ElementSink sink) throws IOException {
+        int c = skipWhitespace();
+        if (c == -1) return null;
+        messageStartNanos = System.nanoTime();
+        try {
+            if (c != '{') throw syntax("esperado '{'");
+            JSONObject result = readObject(sink);
+            c = read();
+            while (c == ' ' || c == '\t' || c == '\r') c = read();
+            if (c != '\n' && c != -1) throw syntax("conteúdo após o fim do objeto");
+            return result;
+        } catch (JsonFormatException e) {
+            skipLine();
+            throw e;
+        }
+    }
+
+    // --- leitura de bytes ---
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return last = -1;
+        return last = buffer[pos++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        filled += n;
+        return true;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+        return c;
+    }
+
+    private void skipLine() throws IOException {
+        int c = last;
+        while (c != '\n' && c != -1) c = read();
+    }
+
+    private JsonFormatException syntax(String detail) {
+        return new JsonFormatException(detail + " (byte " + position() + ")");
+    }
+
+    // --- valores ---
+
+    private JSONObject readObject(ElementSink sink) throws IOException {
+        JSONObject obj = new JSONObject();
+        int c = skipWhitespace();
+        if (c == '}') return obj;
+        while (true) {
+            if (c != '"') throw syntax("esperada chave entre aspas");
+            String key = readKey();
+            if (skipWhitespace() != ':') throw syntax("esperado ':'");
+            int v = skipWhitespace();
+            if (v == '[' && sink != null && sink.wants(key)) {
+                streamArray(key, sink);
+            } else {
+                obj.put(key, readValue(v));
+            }
+            c = skipWhitespace();
+            if (c == '}') return obj;
+            if (c != ',') throw syntax("esperado ',' ou '}'");
+            c = skipWhitespace();
+        }
+    }
+
+    private void streamArray(String field, ElementSink sink) throws IOException {
+        int c = skipWhitespace();
+        if (c == ']') return;
+        while (true) {
+            sink.accept(field, readValue(c));
+            c = skipWhitespace();
+            if (c == ']') return;
+            if (c != ',') throw syntax("esperado ',' ou ']'");
+            c = skipWhitespace();
+        }
+    }
+
+    private JSONArray readArray() throws IOException {
+        JSONArray array = new JSONArray();
+        int c = skipWhitespace();
+        if (c == ']') return array;
+        while (true) {
+            array.put(readValue(c));
+            c = skipWhitespace();
+            if (c == ']') return array;
+            if (c != ',') throw syntax("esperado ',' ou ']'");
+            c = skipWhitespace();
+        }
+    }
+
+    private Object readValue(int c) throws IOException {
+        switch (c) {
+            case '{': return readObject(null);
+            case '[': return readArray();
+            case '"': {
+                int len = readChars(); // antes de ler chars: readChars pode trocar o array ao crescer
+                return new String(chars, 0, len);
+            }
+            case 't': expect("rue"); return Boolean.TRUE;
+            case 'f': expect("alse"); return Boolean.FALSE;
+            case 'n': expect("ull"); return JSONObject.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return readNumber(c);
+                throw syntax(c == -1 ? "fim inesperado" : "valor inesperado");
+        }
+    }
+
+    private void expect(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) throw syntax("literal inválido");
+        }
+    }
+
+    private Object readNumber(int first) throws IOException {
+        int len = 0;
+        boolean decimal = false;
+        ensureChars(1);
+        chars[len++] = (char) first;
+        int c;
+        while ((c = peek()) != -1 && ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-')) {
+            pos++;
+            if (c == '.' || c == 'e' || c == 'E') decimal = true;
+            ensureChars(len + 1);
+            chars[len++] = (char) c;
+        }
+        if (!decimal && len < 19) {
+            long value = 0;
+            int i = chars[0] == '-' ? 1 : 0;
+            if (i == len) throw syntax("número inválido");
+            for (; i < len; i++) {
+                char d = chars[i];
+                if (d < '0' || d > '9') throw syntax("número inválido");
+                value = value * 10 + (d - '0');
+            }
+            if (chars[0] == '-') value = -value;
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) return (int) value;
+            return value;
+        }
+        try {
+            return new BigDecimal(chars, 0, len);
+        } catch (NumberFormatException e) {
+            throw syntax("número inválido");
+        }
+    }
+
+    private String readKey() throws IOException {
+        int len = readChars();
+        int hash = 0;
+        for (int i = 0; i < len; i++) hash = 31 * hash + chars[i];
+        int slot = hash & (KEY_CACHE_SIZE - 1);
+        String cached = keyCache[slot];
+        if (cached != null && cached.length() == len) {
+            boolean same = true;
+            for (int i = 0; i < len && same; i++) same = cached.charAt(i) == chars[i];
+            if (same) return cached;
+        }
+        String key = new String(chars, 0, len);
+        keyCache[slot] = key;
+        return key;
+    }
+
+    /**
+     * Decodifica o conteúdo de uma string JSON (já consumida a aspa inicial) em chars. Devolve o tamanho.
+     */
+    private int readChars() throws IOException {
+        int len = 0;
+        while (true) {
+            int b = read();
+            if (b == '"') return len;
+            if (b == -1 || b < 0x20) throw syntax("string não terminada");
+            ensureChars(len + 2);
+            if (b == '\\') {
+                int e = read();
+                switch (e) {
+                    case '"': chars[len++] = '"'; break;
+                    case '\\': chars[len++] = '\\'; break;
+                    case '/': chars[len++] = '/'; break;
+                    case 'b': chars[len++] = '\b'; break;
+                    case 'f': chars[len++] = '\f'; break;
+                    case 'n': chars[len++] = '\n'; break;
+                    case 'r': chars[len++] = '\r'; break;
+                    case 't': chars[len++] = '\t'; break;
+                    case 'u': chars[len++] = (char) readHex4(); break;
+                    default: throw syntax("escape inválido");
+                }
+            } else if (b < 0x80) {
+                chars[len++] = (char) b;
+            } else {
+                int codePoint;
+                if ((b & 0xE0) == 0xC0) {
+                    codePoint = ((b & 0x1F) << 6) | continuation();
+                } else if ((b & 0xF0) == 0xE0) {
+                    codePoint = ((b & 0x0F) << 12) | (continuation() << 6) | continuation();
+                } else if ((b & 0xF8) == 0xF0) {
+                    codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                } else {
+                    throw syntax("UTF-8 inválido");
+                }
+                len += Character.toChars(codePoint, chars, len);
+            }
+        }
+    }
+
+    private int continuation() throws IOException {
+        int b = read();
+        if ((b & 0xC0) != 0x80) throw syntax("UTF-8 inválido");
+        return b & 0x3F;
+    }
+
+    private int readHex4() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int h = Character.digit(read(), 16);
+            if (h < 0) throw syntax("escape \\u inválido");
+            value = (value << 4) | h;
+        }
+        return value;
+    }
+
+    private void ensureChars(int capacity) {
+        if (capacity > chars.length) {
+            char[] bigger = new char[Math.max(capacity, chars.length * 2)];
+            System.arraycopy(chars, 0, bigger, 0, chars.length);
+            chars = bigger;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga sem interface gráfica, separado do MainApp. Cada sessão simulada é uma
+ * thread virtual com o próprio NetworkService (uma conexão), que faz login e depois escolhe
+ * operações segundo o mix configurado, com pausas ("think time") de distribuição exponencial.
+ * As métricas de todas as sessões vão para um único NetworkMetrics; ao final são impressos
+ * vazão, percentis de latência e taxa de erro por operação e por código de status.
+ *
+ * Uso (argumentos chave=valor, todos opcionais):
+ *   java -cp ... LoadGenerator host=127.0.0.1 port=20000 sessions=1000 duration=60 rampUp=10
+ *        think=500 mix=LISTAR_FILMES:40,BUSCAR_FILME_ID:40,CRIAR_REVIEW:15,LOGOUT:5
+ *        user=carga password=senha123 register=true report=5 transport=NIO compression=1024
+ * (compression: menor mensagem comprimida, em bytes; omitido, vale voteflix.compression)
+ */
+public class LoadGenerator {
+
+    /** Operações que o gerador sabe simular. */
+    private static final Operation[] SUPPORTED = {
+            Operation.LOGIN, Operation.LISTAR_FILMES, Operation.BUSCAR_FILME_ID, Operation.CRIAR_REVIEW, Operation.LOGOUT
+    };
+
+    private final String host;
+    private final int port;
+    private final ServerConnection.Transport transport;
+    private final int compressionThreshold;
+    private final int sessions;
+    private final long durationMillis;
+    private final long rampUpMillis;
+    private final long thinkMillis;
+    private final String userPrefix;
+    private final String password;
+    private final boolean register;
+    private final long reportMillis;
+    private final Operation[] mixOps;
+    private final int[] mixCumulative;
+
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private final Map<Operation, LongAdder> clientErrors = new EnumMap<>(Operation.class);
+    private final LongAdder connectErrors = new LongAdder();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    // Ids de filmes vistos em LISTAR_FILMES, usados por BUSCAR_FILME_ID e CRIAR_REVIEW
+    private volatile String[] movieIds = new String[0];
+    private volatile long deadline;
+
+    public LoadGenerator(Map<String, String> options) {
+        host = options.getOrDefault("host", "127.0.0.1");
+        port = Integer.parseInt(options.getOrDefault("port", "20000"));
+        transport = ServerConnection.Transport.valueOf(
+                options.getOrDefault("transport", ServerConnection.Transport.fromProperty().name()).toUpperCase());
+        compressionThreshold = Integer.parseInt(options.getOrDefault("compression",
+                String.valueOf(DeflateFrames.thresholdFromProperty())));
+        sessions = Integer.parseInt(options.getOrDefault("sessions", "100"));
+        durationMillis = Long.parseLong(options.getOrDefault("duration", "60")) * 1000;
+        rampUpMillis = Long.parseLong(options.getOrDefault("rampUp", "10")) * 1000;
+        thinkMillis = Long.parseLong(options.getOrDefault("think", "500"));
+        userPrefix = options.getOrDefault("user", "carga");
+        password = options.getOrDefault("password", "senha123");
+        register = Boolean.parseBoolean(options.getOrDefault("register", "true"));
+        reportMillis = Long.parseLong(options.getOrDefault("report", "5")) * 1000;
+
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix",
+                "LISTAR_FILMES:40,BUSCAR_FILME_ID:40,CRIAR_REVIEW:15,LOGOUT:5"));
+        mixOps = mix.keySet().toArray(new Operation[0]);
+        mixCumulative = new int[mixOps.length];
+        int total = 0;
+        for (int i = 0; i < mixOps.length; i++) {
+            total += mix.get(mixOps[i]);
+            mixCumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("O mix precisa de pelo menos uma operação com peso positivo.");
+        }
+        for (Operation op : Operation.values()) clientErrors.put(op, new LongAdder());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Argumento ignorado (esperado chave=valor): " + arg);
+                continue;
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            Operation op = Operation.valueOf(kv[0].trim().toUpperCase());
+            boolean supported = false;
+            for (Operation s : SUPPORTED) supported |= s == op;
+            if (!supported) {
+                throw new IllegalArgumentException("Operação não suportada pelo gerador de carga: " + op);
+            }
+            mix.put(op, kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1);
+        }
+        return mix;
+    }
+
+    public void run() throws InterruptedException {
+        System.out.printf("Gerando carga em %s:%d (%s): %d sessões por %d s (rampa de %d s, pausa média de %d ms)%n",
+                host, port, transport, sessions, durationMillis / 1000, rampUpMillis / 1000, thinkMillis);
+
+        long start = System.currentTimeMillis();
+        deadline = start + durationMillis;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                int index = i;
+                executor.submit(() -> runSession(index));
+            }
+            long lastCount = 0;
+            long lastReport = start;
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(Math.min(reportMillis, Math.max(1, deadline - System.currentTimeMillis())));
+                long now = System.currentTimeMillis();
+                long count = totalResponses();
+                System.out.printf("[%4d s] sessões ativas: %d | respostas: %d | %.1f req/s%n",
+                        (now - start) / 1000, activeSessions.get(), count,
+                        (count - lastCount) * 1000.0 / Math.max(1, now - lastReport));
+                lastCount = count;
+                lastReport = now;
+            }
+        }
+        printReport((System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    private void runSession(int index) {
+        String user = userPrefix + index;
+        NetworkService service = new NetworkService(metrics);
+        boolean connected = false;
+        boolean registered = !register;
+        try {
+            sleepUntilDeadline(rampUpMillis * index / Math.max(1, sessions));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        activeSessions.incrementAndGet();
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                if (!connected) {
+                    try {
+                        service.connect(host, port, 1, transport, compressionThreshold);
+                    } catch (IOException e) {
+                        connectErrors.increment();
+                        sleepUntilDeadline(thinkTime());
+                        continue;
+                    }
+                    connected = true;
+                    if (!registered) {
+                        // 409 (usuário já existe) também serve: só precisamos que ele exista
+                        registered = call(Operation.CRIAR_USUARIO, () -> service.registerUser(user, password)) != null;
+                    }
+                    if (!isSuccess(call(Operation.LOGIN, () -> service.loginUser(user, password)))) {
+                        service.closeConnection();
+                        connected = false;
+                        sleepUntilDeadline(thinkTime());
+                        continue;
+                    }
+                }
+
+                Operation op = pickOperation();
+                JSONObject response = switch (op) {
+                    case LOGIN -> call(op, () -> service.loginUser(user, password));
+                    case LISTAR_FILMES -> listMovies(service);
+                    case BUSCAR_FILME_ID -> {
+                        String id = randomMovieId();
+                        yield id == null ? listMovies(service) : call(op, () -> service.getMovieById(id));
+                    }
+                    case CRIAR_REVIEW -> {
+                        String id = randomMovieId();
+                        String nota = String.valueOf(1 + ThreadLocalRandom.current().nextInt(5));
+                        yield id == null ? listMovies(service)
+                                : call(op, () -> service.createReview(id, "Carga", "Avaliação gerada pelo gerador de carga.", nota));
+                    }
+                    case LOGOUT -> {
+                        JSONObject r = call(op, service::logoutUser);
+                        connected = false;
+                        yield r;
+                    }
+                    default -> null;
+                };
+                if (response == null && op != Operation.LOGOUT) {
+                    // Falha de E/S: a conexão caiu; a sessão reconecta e refaz o login
+                    service.closeConnection();
+                    connected = false;
+                }
+                sleepUntilDeadline(thinkTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+            // closeConnection só falha se a conexão já estiver encerrada
+        } finally {
+            activeSessions.decrementAndGet();
+            if (connected) {
+                try {
+                    service.closeConnection();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private JSONObject listMovies(NetworkService service) {
+        JSONObject response = call(Operation.LISTAR_FILMES,
+                () -> NetworkService.await(service.listMoviesPageAsync(PageIterator.DEFAULT_PAGE_SIZE, null)));
+        if (response != null && movieIds.length == 0) {
+            JSONArray filmes = response.optJSONArray("filmes");
+            if (filmes != null && filmes.length() > 0) {
+                String[] ids = new String[filmes.length()];
+                for (int i = 0; i < ids.length; i++) ids[i] = filmes.getJSONObject(i).optString("id");
+                movieIds = ids;
+            }
+        }
+        return response;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        JSONObject execute() throws IOException;
+    }
+
+    /** Executa a chamada; falhas de E/S são contadas por operação e devolvem null. */
+    private JSONObject call(Operation op, Call call) {
+        try {
+            return call.execute();
+        } catch (IOException e) {
+            clientErrors.get(op).increment();
+            return null;
+        }
+    }
+
+    private static boolean isSuccess(JSONObject response) {
+        return response != null && response.optString("status").startsWith("2");
+    }
+
+    private Operation pickOperation() {
+        int r = ThreadLocalRandom.current().nextInt(mixCumulative[mixCumulative.length - 1]);
+        for (int i = 0; i < mixCumulative.length; i++) {
+            if (r < mixCumulative[i]) return mixOps[i];
+        }
+        return mixOps[mixOps.length - 1];
+    }
+
+    private String randomMovieId() {
+        String[] ids = movieIds;
+        return ids.length == 0 ? null : ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private long thinkTime() {
+        if (thinkMillis <= 0) return 0;
+        return (long) (-thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private void sleepUntilDeadline(long millis) throws InterruptedException {
+        long remaining = deadline - System.currentTimeMillis();
+        long wait = Math.min(millis, remaining);
+        if (wait > 0) Thread.sleep(wait);
+    }
+
+    private long totalResponses() {
+        long total = 0;
+        for (Operation op : Operation.values()) total += metrics.stats(op).latency().count();
+        return total;
+    }
+
+    private void printReport(double elapsedSeconds) {
+        System.out.println();
+        System.out.printf("Resultado após %.1f s%n", elapsedSeconds);
+        System.out.printf("%-16s %9s %9s %9s %9s %9s %9s %9s %8s  %s%n",
+                "Operação", "Resp.", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Máx ms", "Erro %", "Status");
+        for (Operation op : Operation.values()) {
+            NetworkMetrics.OperationStats stats = metrics.stats(op);
+            LatencyHistogram h = stats.latency();
+            // Uma falha por chamada: o ServerConnection também conta em stats.failures() cada tentativa
+            // que caiu com a conexão, e somar as duas contaria a mesma falha mais de uma vez
+            long failed = clientErrors.get(op).sum();
+            if (h.count() == 0 && failed == 0) continue;
+
+            Map<String, Long> statuses = stats.statusCounts();
+            long errors = failed;
+            for (Map.Entry<String, Long> e : statuses.entrySet()) {
+                if (!e.getKey().startsWith("2")) errors += e.getValue();
+            }
+            System.out.printf("%-16s %9d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %8.2f  %s%n",
+                    op.name(), h.count(), h.count() / elapsedSeconds,
+                    ms(h.percentileNanos(50)), ms(h.percentileNanos(90)), ms(h.percentileNanos(99)),
+                    ms(h.percentileNanos(99.9)), ms(h.maxNanos()),
+                    100.0 * errors / Math.max(1, h.count() + failed),
+                    statuses + (failed > 0 ? " falhas de E/S=" + failed : ""));
+        }
+        if (connectErrors.sum() > 0) {
+            System.out.println("Falhas ao conectar: " + connectErrors.sum());
+        }
+        if (metrics.getCompressedFrames() > 0) {
+            System.out.printf("Quadros comprimidos: %d, %.1f KB -> %.1f KB%n", metrics.getCompressedFrames(),
+                    metrics.getCompressedPlainBytes() / 1024.0, metrics.getCompressedWireBytes() / 1024.0);
+        }
+
+        System.out.println();
+        System.out.println("Respostas por código de status:");
+        metrics.statusCounts().forEach((code, count) -> {
+            if (count > 0) {
+                System.out.printf("  %s  %9d  %s%n", code, count, StatusCodeHandler.getMessage(code));
+            }
+        });
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
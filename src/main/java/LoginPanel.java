@@ -1,4 +1,3 @@
-import org.json.JSONObject;
 import javax.swing.*;
 import java.awt.*;
 
@@ -37,41 +36,28 @@ public class LoginPanel extends JPanel {
             String login = loginField.getText();
             String password = new String(passwordField.getPassword());
 
-            new SwingWorker<JSONObject, Void>() {
-                @Override
-                protected JSONObject doInBackground() throws Exception {
-                    return networkService.loginUser(login, password);
-                }
-                @Override
-                protected void done() {
-                    try {
-                        JSONObject response = get();
-                        // Pega o status da resposta
-                        String status = response.getString("status");
-
-                        if (status.equals("200")) { // 200 OK
-                            // Passa os dados do usuário para o Dashboard
-                            DashboardPanel dashboard = (DashboardPanel) mainPanel.getComponent(3);
-                            dashboard.updateUserInfo(login); // Atualiza a UI com os dados do usuário
-                            cardLayout.show(mainPanel, "DASHBOARD");
-                        } else {
-                            // Usa o StatusCodeHandler para obter a mensagem de erro
-                            String errorMessage = StatusCodeHandler.getMessage(status); // Agora 'status' é String
+            UiTasks.submit(() -> networkService.loginUser(login, password), response -> {
+                // Pega o status da resposta
+                String status = response.getString("status");
 
-                            // Opcional: Se o servidor enviar um detalhe extra, podemos adicionar
-                            if (response.has("mensagem")) {
-                                errorMessage += "\nDetalhe: " + response.getString("mensagem");
-                            }
+                if (status.equals("200")) { // 200 OK
+                    // Passa os dados do usuário para o Dashboard
+                    DashboardPanel dashboard = (DashboardPanel) mainPanel.getComponent(3);
+                    dashboard.updateUserInfo(login); // Atualiza a UI com os dados do usuário
+                    cardLayout.show(mainPanel, "DASHBOARD");
+                } else {
+                    // Usa o StatusCodeHandler para obter a mensagem de erro
+                    String errorMessage = StatusCodeHandler.getMessage(status); // Agora 'status' é String
 
-                            JOptionPane.showMessageDialog(LoginPanel.this,
-                                    errorMessage, "Erro de Login", JOptionPane.ERROR_MESSAGE);
-                        }
-                    } catch (Exception ex) {
-                        JOptionPane.showMessageDialog(LoginPanel.this,
-                                "Erro de comunicação: " + ex.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+                    // Opcional: Se o servidor enviar um detalhe extra, podemos adicionar
+                    if (response.has("mensagem")) {
+                        errorMessage += "\nDetalhe: " + response.getString("mensagem");
                     }
+
+                    JOptionPane.showMessageDialog(LoginPanel.this,
+                            errorMessage, "Erro de Login", JOptionPane.ERROR_MESSAGE);
                 }
-            }.execute();
+            }, UiTasks.reportTo(LoginPanel.this));
         });
 
         registerButton.addActionListener(e -> cardLayout.show(mainPanel, "REGISTER"));
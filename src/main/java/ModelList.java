@@ -0,0 +1,280 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Lista observável de objetos do servidor identificados por "id" (filmes, reviews, usuários),
+ * à qual as telas se ligam. Cada alteração avisa os ouvintes só do item afetado, para que a
+ * tela redesenhe um cartão ou uma linha em vez de se remontar, e devolve um Undo que desfaz
+ * a alteração: assim ela pode ser aplicada antes da resposta do servidor e revertida se o
+ * servidor recusar (ver UiTasks.optimistic).
+ *
+ * Como os modelos do Swing, deve ser usada só na EDT.
+ */
+public class ModelList {
+
+    /** Recebe as alterações da lista; index é a posição do item (antes da remoção, em removed). */
+    public interface Listener {
+        void added(int index, JSONObject item);
+        void changed(int index, JSONObject previous, JSONObject item);
+        void removed(int index, JSONObject item);
+
+        /** A lista foi trocada inteira. */
+        default void reset() { }
+
+        /**
+         * Vários itens saíram de uma vez; indices (crescentes) são as posições de antes da remoção.
+         * O padrão repassa a removed de trás para frente; telas grandes remontam de uma vez.
+         */
+        default void removedAll(int[] indices, List<JSONObject> items) {
+            for (int i = indices.length - 1; i >= 0; i--) removed(indices[i], items.get(i));
+        }
+
+        /** Vários itens voltaram de uma vez; indices (crescentes) são as posições já na lista nova. */
+        default void addedAll(int[] indices, List<JSONObject> items) {
+            for (int i = 0; i < indices.length; i++) added(indices[i], items.get(i));
+        }
+    }
+
+    /** Desfaz uma alteração. */
+    @FunctionalInterface
+    public interface Undo {
+        Undo NONE = () -> { };
+
+        void undo();
+
+        /** Desfaz esta e depois other (para alterações feitas na ordem other, esta). */
+        default Undo andThen(Undo other) {
+            return () -> {
+                undo();
+                other.undo();
+            };
+        }
+    }
+
+    /** Desfaz um removeAll, inteiro (undo) ou só para alguns ids. */
+    public interface Removal extends Undo {
+        /** Recoloca os itens de ids que ainda estão fora, cada um na posição que tinha antes. */
+        void restore(Collection<String> ids);
+    }
+
+    private final List<JSONObject> items = new ArrayList<>();
+    private final Map<String, JSONObject> byId = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Os ouvintes atuais saem; usado quando a tela ligada à lista é remontada. */
+    public void clearListeners() {
+        listeners.clear();
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public JSONObject get(int index) {
+        return items.get(index);
+    }
+
+    public JSONObject find(String id) {
+        return byId.get(id);
+    }
+
+    public int indexOf(String id) {
+        JSONObject item = byId.get(id);
+        return item == null ? -1 : indexOfItem(item);
+    }
+
+    public List<JSONObject> items() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /** Troca o conteúdo inteiro (primeira página ou catálogo novo). */
+    public void replaceAll(JSONArray array) {
+        items.clear();
+        byId.clear();
+        appendQuietly(array);
+        for (Listener listener : listeners) listener.reset();
+    }
+
+    /**
+     * Acrescenta uma página recebida do servidor, sem avisar os ouvintes: a tela que pediu a
+     * página é quem a mostra, de uma vez.
+     */
+    public void appendAll(JSONArray array) {
+        appendQuietly(array);
+    }
+
+    public Undo add(JSONObject item) {
+        items.add(item);
+        index(item);
+        int index = items.size() - 1;
+        fireAdded(index, item);
+        return () -> {
+            int current = indexOfItem(item);
+            if (current >= 0) removeAt(current);
+        };
+    }
+
+    /** Troca o item de mesmo id por item; sem um item com esse id, não faz nada. */
+    public Undo replace(JSONObject item) {
+        String id = item.optString("id");
+        JSONObject previous = byId.get(id);
+        if (previous == null) return Undo.NONE;
+        setAt(indexOfItem(previous), item);
+        return () -> {
+            int current = indexOfItem(item);
+            if (current >= 0) setAt(current, previous);
+        };
+    }
+
+    public Undo remove(String id) {
+        JSONObject item = byId.get(id);
+        if (item == null) return Undo.NONE;
+        int index = indexOfItem(item);
+        removeAt(index);
+        return () -> {
+            if (byId.containsKey(id)) return;
+            int at = Math.min(index, items.size());
+            items.add(at, item);
+            index(item);
+            fireAdded(at, item);
+        };
+    }
+
+    /**
+     * Remove os itens de ids numa passada só pela lista (O(n), não O(n) por item) e avisa os
+     * ouvintes uma vez, em removedAll. Ids desconhecidos são ignorados.
+     */
+    public Removal removeAll(Collection<String> ids) {
+        Set<String> wanted = new HashSet<>(ids);
+        List<JSONObject> kept = new ArrayList<>(items.size());
+        List<JSONObject> removed = new ArrayList<>();
+        int[] positions = new int[wanted.size()];
+        for (int i = 0; i < items.size(); i++) {
+            JSONObject item = items.get(i);
+            if (item.has("id") && wanted.contains(item.optString("id")) && byId.get(item.optString("id")) == item) {
+                positions[removed.size()] = i;
+                removed.add(item);
+                byId.remove(item.optString("id"));
+            } else {
+                kept.add(item);
+            }
+        }
+        if (removed.isEmpty()) return new BulkRemoval(new int[0], removed);
+        items.clear();
+        items.addAll(kept);
+        int[] indices = Arrays.copyOf(positions, removed.size());
+        for (Listener listener : listeners) listener.removedAll(indices, removed);
+        return new BulkRemoval(indices, removed);
+    }
+
+    private final class BulkRemoval implements Removal {
+        // Posições originais, crescentes, e os itens removidos delas
+        private final int[] positions;
+        private final List<JSONObject> removed;
+
+        BulkRemoval(int[] positions, List<JSONObject> removed) {
+            this.positions = positions;
+            this.removed = removed;
+        }
+
+        @Override
+        public void undo() {
+            restore(null);
+        }
+
+        /**
+         * Na ordem das posições originais: cada item volta à sua posição menos a quantidade de
+         * removidos antes dele que continuam fora. Tudo numa passada de merge, em O(n).
+         */
+        @Override
+        public void restore(Collection<String> ids) {
+            Set<String> wanted = ids == null ? null : new HashSet<>(ids);
+            List<JSONObject> back = new ArrayList<>();
+            int[] targets = new int[removed.size()];
+            int stillOut = 0;
+            for (int i = 0; i < removed.size(); i++) {
+                JSONObject item = removed.get(i);
+                String id = item.optString("id");
+                if (byId.containsKey(id)) continue; // já voltou (ou outro item com o id entrou)
+                if (wanted != null && !wanted.contains(id)) {
+                    stillOut++;
+                    continue;
+                }
+                // Estritamente crescente: entre dois recolocados há no mínimo os que ficaram fora
+                targets[back.size()] = Math.min(positions[i] - stillOut, items.size() + back.size());
+                back.add(item);
+            }
+            if (back.isEmpty()) return;
+            int[] indices = Arrays.copyOf(targets, back.size());
+            List<JSONObject> merged = new ArrayList<>(items.size() + back.size());
+            int from = 0;
+            for (int k = 0; k < back.size(); k++) {
+                while (merged.size() < indices[k] && from < items.size()) merged.add(items.get(from++));
+                indices[k] = merged.size();
+                merged.add(back.get(k));
+                index(back.get(k));
+            }
+            while (from < items.size()) merged.add(items.get(from++));
+            items.clear();
+            items.addAll(merged);
+            for (Listener listener : listeners) listener.addedAll(indices, back);
+        }
+    }
+
+    private void setAt(int index, JSONObject item) {
+        JSONObject previous = items.set(index, item);
+        byId.remove(previous.optString("id"));
+        index(item);
+        for (Listener listener : listeners) listener.changed(index, previous, item);
+    }
+
+    private void removeAt(int index) {
+        JSONObject item = items.remove(index);
+        byId.remove(item.optString("id"));
+        for (Listener listener : listeners) listener.removed(index, item);
+    }
+
+    private void appendQuietly(JSONArray array) {
+        for (int i = 0; array != null && i < array.length(); i++) {
+            JSONObject item = array.optJSONObject(i);
+            if (item == null) continue;
+            items.add(item);
+            index(item);
+        }
+    }
+
+    private void index(JSONObject item) {
+        if (item.has("id")) byId.put(item.optString("id"), item);
+    }
+
+    private void fireAdded(int index, JSONObject item) {
+        for (Listener listener : listeners) listener.added(index, item);
+    }
+
+    // Por identidade: dois itens podem ser iguais em conteúdo
+    private int indexOfItem(JSONObject item) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == item) return i;
+        }
+        return -1;
+    }
+}
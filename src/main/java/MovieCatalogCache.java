@@ -0,0 +1,296 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Cache do catálogo de filmes (LISTAR_FILMES) entre o DashboardPanel e o NetworkService.
+ * A resposta fica válida por um TTL configurável; mutações confirmadas pelo servidor
+ * atualizam a cópia local (edição/exclusão de filme) ou a invalidam (criação, reviews).
+ *
+ * Cada catálogo completo recebido também é gravado em disco (CatalogSnapshot). Na primeira
+ * listagem de uma sessão, as páginas saem dessa cópia, sem esperar o servidor, enquanto o
+ * catálogo atual é buscado em segundo plano e entregue ao reconcileListener. A cópia é aberta
+ * e conferida fora da EDT, quando a primeira página é pedida.
+ */
+public class MovieCatalogCache implements NetworkService.MutationListener {
+
+    public static final long DEFAULT_TTL_MILLIS = Long.getLong("voteflix.cache.ttl", 60_000L);
+
+    private final NetworkService networkService;
+    private final long ttlMillis;
+
+    // Resposta em cache; nunca é alterada depois de publicada (as alterações geram uma cópia)
+    private JSONObject cached;
+    private long loadedAt;
+    private long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Gravação e conferência da cópia em disco, fora da thread leitora e da EDT
+    private static final ExecutorService SNAPSHOT_IO = Executors.newVirtualThreadPerTaskExecutor();
+    private static final boolean SNAPSHOT_ENABLED = Boolean.parseBoolean(System.getProperty("voteflix.snapshot", "true"));
+
+    // Próxima listagem é a primeira da sessão: pode vir da cópia em disco
+    private boolean coldStart;
+    // CRC32 da última cópia gravada ou lida (-1 se desconhecido), para não regravar o mesmo catálogo
+    private volatile long snapshotChecksum = -1;
+    private volatile Consumer<JSONArray> reconcileListener = movies -> { };
+
+    public MovieCatalogCache(NetworkService networkService) {
+        this(networkService, DEFAULT_TTL_MILLIS);
+    }
+
+    public MovieCatalogCache(NetworkService networkService, long ttlMillis) {
+        this.networkService = networkService;
+        this.ttlMillis = ttlMillis;
+        networkService.addMutationListener(this);
+    }
+
+    /**
+     * Devolve o catálogo em cache se ainda estiver válido; caso contrário busca no servidor.
+     * O objeto devolvido deve ser tratado como somente leitura.
+     */
+    public JSONObject listAllMovies() throws IOException {
+        long requestVersion;
+        synchronized (this) {
+            if (cached != null && System.currentTimeMillis() - loadedAt < ttlMillis) {
+                hits.increment();
+                return cached;
+            }
+            requestVersion = version;
+        }
+        misses.increment();
+
+        JSONObject response = networkService.listAllMovies();
+        if ("200".equals(response.optString("status"))) {
+            synchronized (this) {
+                // Uma mutação durante a busca torna a resposta possivelmente desatualizada
+                if (version == requestVersion) {
+                    cached = response;
+                    loadedAt = System.currentTimeMillis();
+                }
+            }
+            saveSnapshotAsync(response.optJSONArray("filmes"));
+        }
+        return response;
+    }
+
+    /**
+     * Versão paginada de listAllMovies: com cache válido devolve uma única página com tudo;
+     * caso contrário busca as páginas no servidor e, quando a última chega, guarda o catálogo completo.
+     * Na primeira chamada da sessão, se houver cópia em disco, as páginas vêm dela e o catálogo
+     * do servidor chega depois pelo reconcileListener.
+     */
+    public PageIterator moviePages(int pageSize) {
+        long requestVersion;
+        boolean firstOfSession;
+        synchronized (this) {
+            if (cached != null && System.currentTimeMillis() - loadedAt < ttlMillis) {
+                hits.increment();
+                return PageIterator.of(cached, "filmes");
+            }
+            requestVersion = version;
+            firstOfSession = coldStart;
+            coldStart = false;
+        }
+        misses.increment();
+
+        // Abrir a cópia mapeia o arquivo e confere o CRC de ponta a ponta: nunca na EDT, que só
+        // monta o iterador. As páginas saem da cópia, se ela abrir, ou do servidor
+        CompletableFuture<CatalogSnapshot> snapshot = firstOfSession
+                ? CompletableFuture.supplyAsync(() -> openSnapshot(requestVersion), SNAPSHOT_IO)
+                : CompletableFuture.completedFuture(null);
+        PageIterator.PageFetcher serverPages = serverPages(pageSize, requestVersion);
+        return new PageIterator(cursor -> snapshot.thenCompose(copy -> copy == null
+                ? serverPages.fetch(cursor)
+                : snapshotPage(copy, cursor, pageSize)), "filmes");
+    }
+
+    // Páginas do servidor; quando a última chega, o catálogo completo vai para o cache e o disco
+    private PageIterator.PageFetcher serverPages(int pageSize, long requestVersion) {
+        JSONArray accumulated = new JSONArray();
+        return cursor -> networkService.listMoviesPageAsync(pageSize, cursor).thenApply(response -> {
+            if (!"200".equals(response.optString("status"))) return response;
+            JSONArray page = response.optJSONArray("filmes");
+            synchronized (accumulated) {
+                for (int i = 0; page != null && i < page.length(); i++) accumulated.put(page.get(i));
+            }
+            if (response.optString(PageIterator.NEXT_CURSOR_FIELD, "").isEmpty()) {
+                synchronized (this) {
+                    if (version == requestVersion) {
+                        cached = new JSONObject().put("status", "200").put("filmes", accumulated);
+                        loadedAt = System.currentTimeMillis();
+                    }
+                }
+                saveSnapshotAsync(accumulated);
+            }
+            return response;
+        });
+    }
+
+    public synchronized void invalidate() {
+        cached = null;
+        version++;
+    }
+
+    /** Início de uma sessão (login): descarta o cache e libera a próxima listagem a usar a cópia em disco. */
+    public synchronized void startSession() {
+        invalidate();
+        coldStart = SNAPSHOT_ENABLED;
+    }
+
+    /**
+     * Recebe o catálogo do servidor que substitui o exibido a partir da cópia em disco.
+     * Chamado numa thread virtual, fora da EDT.
+     */
+    public void setReconcileListener(Consumer<JSONArray> listener) {
+        this.reconcileListener = listener != null ? listener : movies -> { };
+    }
+
+    /**
+     * Abre a cópia em disco e, se ela servir, pede o catálogo atual ao servidor para substituí-la.
+     * Roda em SNAPSHOT_IO; null quando não há cópia válida e as páginas devem vir do servidor.
+     */
+    private CatalogSnapshot openSnapshot(long requestVersion) {
+        String address = networkService.getServerAddress();
+        if (address == null) return null;
+        CatalogSnapshot snapshot = CatalogSnapshot.openLatest(address);
+        if (snapshot == null || snapshot.size() == 0) return null;
+        snapshotChecksum = snapshot.checksum();
+        networkService.listAllMoviesAsync()
+                .thenAcceptAsync(response -> reconcile(response, requestVersion), SNAPSHOT_IO)
+                .exceptionally(e -> {
+                    // Sem servidor a tela continua com a cópia; o erro aparece na próxima ação
+                    WireLogger.warn("MovieCatalogCache", "Catálogo não atualizado a partir do servidor: " + e.getMessage());
+                    return null;
+                });
+        return snapshot;
+    }
+
+    // Página decodificada da cópia mapeada; o cursor é o índice do primeiro filme da página
+    private static CompletableFuture<JSONObject> snapshotPage(CatalogSnapshot snapshot, String cursor, int pageSize) {
+        return CompletableFuture.supplyAsync(() -> {
+            int from = cursor == null ? 0 : Integer.parseInt(cursor);
+            int to = Math.min(snapshot.size(), from + pageSize);
+            JSONObject page = new JSONObject().put("status", "200").put("filmes", snapshot.read(from, to));
+            if (to < snapshot.size()) page.put(PageIterator.NEXT_CURSOR_FIELD, Integer.toString(to));
+            return page;
+        }, SNAPSHOT_IO);
+    }
+
+    private void reconcile(JSONObject response, long requestVersion) {
+        if (!"200".equals(response.optString("status"))) return;
+        JSONArray movies = response.optJSONArray("filmes");
+        if (movies == null) return;
+        synchronized (this) {
+            // Uma mutação no meio do caminho já recarregou a tela com dados mais novos
+            if (version != requestVersion) return;
+            cached = response;
+            loadedAt = System.currentTimeMillis();
+        }
+        saveSnapshot(movies);
+        reconcileListener.accept(movies);
+    }
+
+    private void saveSnapshotAsync(JSONArray movies) {
+        if (SNAPSHOT_ENABLED && movies != null) SNAPSHOT_IO.execute(() -> saveSnapshot(movies));
+    }
+
+    private void saveSnapshot(JSONArray movies) {
+        String address = networkService.getServerAddress();
+        if (!SNAPSHOT_ENABLED || address == null) return;
+        try {
+            CatalogSnapshot.Encoded encoded = CatalogSnapshot.encode(movies);
+            if (encoded.checksum() == snapshotChecksum) return; // catálogo igual ao que já está em disco
+            CatalogSnapshot.write(address, encoded);
+            snapshotChecksum = encoded.checksum();
+        } catch (IOException | RuntimeException e) {
+            WireLogger.warn("MovieCatalogCache", "Falha ao gravar a cópia local do catálogo: " + e.getMessage());
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public void onMutation(String operacao, JSONObject request, JSONObject response) {
+        switch (operacao) {
+            case "EDITAR_FILME" -> patchMovie(request.getJSONObject("filme"));
+            case "EXCLUIR_FILME" -> removeMovie(request.optString("id"));
+            case "CRIAR_FILME" -> {
+                JSONObject created = response.optJSONObject("filme");
+                if (created != null && created.has("id")) addMovie(created);
+                else invalidate();
+            }
+            // Reviews e exclusão de usuários mudam as notas calculadas pelo servidor
+            case "CRIAR_REVIEW", "EDITAR_REVIEW", "EXCLUIR_REVIEW", "ADMIN_EXCLUIR_USUARIO" -> invalidate();
+            default -> { }
+        }
+    }
+
+    private synchronized void patchMovie(JSONObject changes) {
+        version++;
+        if (cached == null) return;
+        String id = changes.optString("id");
+        JSONArray movies = cached.optJSONArray("filmes");
+        JSONArray patched = new JSONArray();
+        boolean found = false;
+        for (int i = 0; movies != null && i < movies.length(); i++) {
+            JSONObject movie = movies.getJSONObject(i);
+            if (id.equals(movie.optString("id"))) {
+                JSONObject merged = new JSONObject(movie.toMap());
+                for (String key : changes.keySet()) merged.put(key, changes.get(key));
+                patched.put(merged);
+                found = true;
+            } else {
+                patched.put(movie);
+            }
+        }
+        if (found) publish(patched);
+        else cached = null;
+    }
+
+    private synchronized void removeMovie(String id) {
+        version++;
+        if (cached == null) return;
+        JSONArray movies = cached.optJSONArray("filmes");
+        JSONArray remaining = new JSONArray();
+        for (int i = 0; movies != null && i < movies.length(); i++) {
+            JSONObject movie = movies.getJSONObject(i);
+            if (!id.equals(movie.optString("id"))) remaining.put(movie);
+        }
+        publish(remaining);
+    }
+
+    private synchronized void addMovie(JSONObject movie) {
+        version++;
+        if (cached == null) return;
+        JSONArray movies = cached.optJSONArray("filmes");
+        JSONArray extended = new JSONArray();
+        for (int i = 0; movies != null && i < movies.length(); i++) extended.put(movies.get(i));
+        extended.put(movie);
+        publish(extended);
+    }
+
+    // Troca a resposta em cache por uma cópia com a nova lista, sem renovar o TTL
+    private void publish(JSONArray movies) {
+        JSONObject copy = new JSONObject();
+        for (String key : cached.keySet()) {
+            if (!"filmes".equals(key)) copy.put(key, cached.get(key));
+        }
+        copy.put("filmes", movies);
+        cached = copy;
+    }
+}
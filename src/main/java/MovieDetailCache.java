@@ -0,0 +1,270 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache das respostas de BUSCAR_FILME_ID (filme e reviews), por id de filme. O limite é em
+ * bytes estimados, não em quantidade: um filme com milhares de reviews ocupa o espaço de
+ * muitos filmes sem nenhuma, e sai primeiro pela ordem LRU quando o limite estoura.
+ *
+ * O prefetch aquece o cache para os cartões visíveis na grade e o cartão sob o mouse, com
+ * no máximo PREFETCH_CONCURRENCY buscas em voo; o que ainda não começou é descartado quando
+ * a área visível muda. Mutações confirmadas removem os filmes afetados.
+ */
+public class MovieDetailCache implements NetworkService.MutationListener {
+
+    public static final long DEFAULT_MAX_BYTES = Long.getLong("voteflix.details.cache.bytes", 8L * 1024 * 1024);
+    public static final int PREFETCH_CONCURRENCY = Integer.getInteger("voteflix.prefetch.concurrency", 4);
+    // Fila de prefetch: os pedidos mais antigos caem quando ela enche
+    private static final int PREFETCH_QUEUE_LIMIT = 64;
+
+    private record Entry(JSONObject response, long bytes, long loadedAt) {}
+
+    private final NetworkService networkService;
+    private final long maxBytes;
+    private final long ttlMillis;
+
+    // Protegidos pelo lock da instância; entries em ordem de acesso (o primeiro é o LRU)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<JSONObject>> loading = new HashMap<>();
+    private final Deque<String> prefetchQueue = new ArrayDeque<>();
+    private long totalBytes;
+    private long version;
+    private int prefetchesInFlight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefetches = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile BiConsumer<String, JSONObject> loadListener = (movieId, response) -> { };
+
+    public MovieDetailCache(NetworkService networkService) {
+        this(networkService, DEFAULT_MAX_BYTES, MovieCatalogCache.DEFAULT_TTL_MILLIS);
+    }
+
+    public MovieDetailCache(NetworkService networkService, long maxBytes, long ttlMillis) {
+        this.networkService = networkService;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        networkService.addMutationListener(this);
+    }
+
+    /** A resposta em cache, se ainda válida; não busca nada. Deve ser tratada como somente leitura. */
+    public synchronized JSONObject getIfPresent(String movieId) {
+        Entry entry = entries.get(movieId);
+        if (entry == null) return null;
+        if (System.currentTimeMillis() - entry.loadedAt() >= ttlMillis) {
+            drop(movieId);
+            return null;
+        }
+        hits.increment();
+        return entry.response();
+    }
+
+    /**
+     * Resposta de BUSCAR_FILME_ID para o filme: do cache, da busca já em andamento (um prefetch,
+     * por exemplo) ou de uma busca nova.
+     */
+    public CompletableFuture<JSONObject> getAsync(String movieId) {
+        JSONObject cached = getIfPresent(movieId);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        misses.increment();
+        synchronized (this) {
+            prefetchQueue.remove(movieId); // quem abriu o filme não espera a fila
+        }
+        return load(movieId);
+    }
+
+    public JSONObject get(String movieId) throws IOException {
+        return NetworkService.await(getAsync(movieId));
+    }
+
+    /**
+     * Troca os filmes visíveis a aquecer. Os pedidos anteriores que ainda não saíram são
+     * descartados: depois de uma rolagem rápida só interessa o que está na tela agora.
+     */
+    public void prefetchVisible(Collection<String> movieIds) {
+        synchronized (this) {
+            prefetchQueue.clear();
+            for (String id : movieIds) {
+                if (prefetchQueue.size() == PREFETCH_QUEUE_LIMIT) break;
+                if (!entries.containsKey(id) && !loading.containsKey(id)) prefetchQueue.addLast(id);
+            }
+        }
+        drainPrefetch();
+    }
+
+    /** Aquece um filme antes dos demais (cartão sob o mouse, provável próximo clique). */
+    public void prefetchFirst(String movieId) {
+        synchronized (this) {
+            if (entries.containsKey(movieId) || loading.containsKey(movieId)) return;
+            prefetchQueue.remove(movieId);
+            prefetchQueue.addFirst(movieId);
+            if (prefetchQueue.size() > PREFETCH_QUEUE_LIMIT) prefetchQueue.pollLast();
+        }
+        drainPrefetch();
+    }
+
+    /**
+     * Recebe cada resposta guardada no cache (buscas e prefetch), já descartadas as que uma
+     * mutação deixou desatualizadas. É chamado com o lock do cache: não deve voltar a ele.
+     */
+    public void setLoadListener(BiConsumer<String, JSONObject> listener) {
+        this.loadListener = listener;
+    }
+
+    public synchronized void invalidate() {
+        entries.clear();
+        prefetchQueue.clear();
+        totalBytes = 0;
+        version++;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPrefetches() {
+        return prefetches.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized long getBytes() {
+        return totalBytes;
+    }
+
+    private void drainPrefetch() {
+        while (true) {
+            String id;
+            synchronized (this) {
+                if (prefetchesInFlight >= PREFETCH_CONCURRENCY || prefetchQueue.isEmpty()) return;
+                id = prefetchQueue.pollFirst();
+                if (entries.containsKey(id) || loading.containsKey(id)) continue;
+                prefetchesInFlight++;
+            }
+            prefetches.increment();
+            load(id).whenComplete((response, error) -> {
+                synchronized (this) {
+                    prefetchesInFlight--;
+                }
+                drainPrefetch();
+            });
+        }
+    }
+
+    // Uma busca por filme em voo; quem chega depois recebe o mesmo futuro
+    private CompletableFuture<JSONObject> load(String movieId) {
+        CompletableFuture<JSONObject> future;
+        long requestVersion;
+        synchronized (this) {
+            future = loading.get(movieId);
+            if (future != null) return future;
+            future = new CompletableFuture<>();
+            loading.put(movieId, future);
+            requestVersion = version;
+        }
+        CompletableFuture<JSONObject> result = future;
+        networkService.getMovieByIdAsync(movieId).whenComplete((response, error) -> {
+            synchronized (this) {
+                loading.remove(movieId);
+                // Uma mutação durante a busca pode ter deixado a resposta desatualizada
+                if (error == null && version == requestVersion && "200".equals(response.optString("status"))) {
+                    store(movieId, response);
+                    loadListener.accept(movieId, response);
+                }
+            }
+            if (error != null) result.completeExceptionally(error);
+            else result.complete(response);
+        });
+        return result;
+    }
+
+    private void store(String movieId, JSONObject response) {
+        long bytes = estimateBytes(response);
+        if (bytes > maxBytes) return; // maior que o cache inteiro: não expulsa todo o resto por ele
+        drop(movieId);
+        entries.put(movieId, new Entry(response, bytes, System.currentTimeMillis()));
+        totalBytes += bytes;
+        Iterator<Map.Entry<String, Entry>> lru = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && lru.hasNext()) {
+            totalBytes -= lru.next().getValue().bytes();
+            lru.remove();
+            evictions.increment();
+        }
+    }
+
+    private void drop(String movieId) {
+        Entry removed = entries.remove(movieId);
+        if (removed != null) totalBytes -= removed.bytes();
+    }
+
+    @Override
+    public void onMutation(String operacao, JSONObject request, JSONObject response) {
+        switch (operacao) {
+            case "EDITAR_FILME" -> invalidateMovie(request.getJSONObject("filme").optString("id"));
+            case "EXCLUIR_FILME" -> invalidateMovie(request.optString("id"));
+            case "CRIAR_REVIEW" -> invalidateMovie(request.getJSONObject("review").optString("id_filme"));
+            case "EDITAR_REVIEW" -> invalidateReview(request.getJSONObject("review").optString("id"));
+            case "EXCLUIR_REVIEW" -> invalidateReview(request.optString("id"));
+            // As reviews do usuário somem de todos os filmes
+            case "ADMIN_EXCLUIR_USUARIO" -> invalidate();
+            default -> { }
+        }
+    }
+
+    private synchronized void invalidateMovie(String movieId) {
+        version++;
+        drop(movieId);
+    }
+
+    // A requisição só traz o id da review: procura os filmes em cache que a contêm
+    private synchronized void invalidateReview(String reviewId) {
+        version++;
+        entries.entrySet().removeIf(entry -> {
+            JSONArray reviews = entry.getValue().response().optJSONArray("reviews");
+            for (int i = 0; reviews != null && i < reviews.length(); i++) {
+                JSONObject review = reviews.optJSONObject(i);
+                if (review != null && reviewId.equals(review.optString("id"))) {
+                    totalBytes -= entry.getValue().bytes();
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    // Tamanho aproximado da resposta em JSON, sem serializá-la
+    static long estimateBytes(Object value) {
+        if (value instanceof JSONObject object) {
+            long bytes = 2;
+            for (String key : object.keySet()) bytes += key.length() + 4 + estimateBytes(object.opt(key));
+            return bytes;
+        }
+        if (value instanceof JSONArray array) {
+            long bytes = 2;
+            for (int i = 0; i < array.length(); i++) bytes += 1 + estimateBytes(array.opt(i));
+            return bytes;
+        }
+        if (value instanceof String s) return s.length() + 2L;
+        return 8;
+    }
+}
@@ -0,0 +1,388 @@
+import org.json.JSONObject;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Grade de filmes virtualizada: só existem componentes para as linhas visíveis no viewport
+ * (mais uma margem de OVERSCAN_ROWS). Ao rolar, os cartões que saem da área visível
+ * são reaproveitados para os que entram, como os renderers de JList/JTable.
+ */
+public class MovieGridView extends JComponent implements Scrollable {
+
+    public static final int COLUMNS = 3;
+    public static final int CELL_HEIGHT = 150;
+    public static final int GAP = 15;
+    private static final int OVERSCAN_ROWS = 2;
+
+    private static final Font INFO_FONT = new Font("Segoe UI", Font.PLAIN, 12);
+    private static final Color BORDER_COLOR = new Color(60, 60, 60);
+
+    /**
+     * Ações disparadas pelos botões de um cartão.
+     */
+    public interface CardActions {
+        void onView(JSONObject movie);
+        void onEdit(JSONObject movie);
+        void onDelete(JSONObject movie);
+
+        /** Os filmes com cartão visível mudaram (rolagem, redimensionamento ou nova lista). */
+        default void onVisible(List<JSONObject> movies) { }
+
+        /** O mouse entrou no cartão do filme. */
+        default void onHover(JSONObject movie) { }
+    }
+
+    private final boolean admin;
+    private final CardActions actions;
+    private List<JSONObject> movies = new ArrayList<>();
+    // Notas montadas no cliente (RatingStats); sem elas, o cartão mostra a "nota" do servidor
+    private Function<String, RatingStats.Summary> ratingSource = id -> null;
+
+    // Cartões em uso, por índice do filme, e cartões livres para reaproveitar
+    private final Map<Integer, MovieCell> activeCells = new HashMap<>();
+    private final Deque<MovieCell> recycledCells = new ArrayDeque<>();
+
+    // Faixa visível (sem a margem) já informada a actions.onVisible
+    private int shownFirst = -1;
+    private int shownLast = -1;
+
+    private JViewport viewport;
+    private final javax.swing.event.ChangeListener viewportListener = e -> layoutVisibleCells();
+
+    public MovieGridView(boolean admin, CardActions actions) {
+        this.admin = admin;
+        this.actions = actions;
+        setLayout(null);
+        setOpaque(true);
+        setBackground(StyleTheme.BG_COLOR);
+    }
+
+    public void setMovies(List<JSONObject> movies) {
+        this.movies = new ArrayList<>(movies);
+        for (MovieCell cell : activeCells.values()) recycle(cell);
+        activeCells.clear();
+        shownFirst = shownLast = -1;
+        revalidate();
+        layoutVisibleCells();
+        repaint();
+    }
+
+    public void appendMovies(List<JSONObject> more) {
+        movies.addAll(more);
+        revalidate();
+        layoutVisibleCells();
+    }
+
+    /** Troca o filme de mesmo id; só o cartão dele é redesenhado, e só se estiver visível. */
+    public void replaceMovie(JSONObject movie) {
+        int index = indexOf(movie.optString("id"));
+        if (index < 0) return;
+        movies.set(index, movie);
+        MovieCell cell = activeCells.get(index);
+        if (cell != null) {
+            cell.bind(movie);
+            cell.revalidate();
+            cell.repaint();
+        }
+    }
+
+    public void setRatingSource(Function<String, RatingStats.Summary> ratingSource) {
+        this.ratingSource = ratingSource;
+        for (MovieCell cell : activeCells.values()) cell.bindRating();
+    }
+
+    /** Redesenha a nota do filme, se o cartão dele estiver visível; com null, de todos os visíveis. */
+    public void refreshRating(String id) {
+        // Só os cartões ativos (algumas dezenas), não a lista inteira
+        for (MovieCell cell : activeCells.values()) {
+            if (id == null || (cell.movie != null && id.equals(cell.movie.optString("id")))) cell.bindRating();
+        }
+    }
+
+    /** Remove o filme; os cartões seguintes mudam de posição sem novo bind. */
+    public void removeMovie(String id) {
+        int index = indexOf(id);
+        if (index < 0) return;
+        movies.remove(index);
+        MovieCell removed = activeCells.remove(index);
+        if (removed != null) recycle(removed);
+        shiftCells(index + 1, -1);
+        revalidate();
+        layoutVisibleCells();
+        repaint();
+    }
+
+    /** Insere o filme na posição index (por exemplo, ao desfazer uma exclusão). */
+    public void insertMovie(int index, JSONObject movie) {
+        int at = Math.max(0, Math.min(index, movies.size()));
+        movies.add(at, movie);
+        shiftCells(at, 1);
+        revalidate();
+        layoutVisibleCells();
+        repaint();
+    }
+
+    // Renumera os cartões ativos a partir de from, acompanhando a lista
+    private void shiftCells(int from, int delta) {
+        Map<Integer, MovieCell> shifted = new HashMap<>();
+        activeCells.entrySet().removeIf(entry -> {
+            if (entry.getKey() < from) return false;
+            shifted.put(entry.getKey() + delta, entry.getValue());
+            return true;
+        });
+        activeCells.putAll(shifted);
+        shownFirst = shownLast = -1;
+    }
+
+    private int indexOf(String id) {
+        for (int i = 0; i < movies.size(); i++) {
+            if (id.equals(movies.get(i).optString("id"))) return i;
+        }
+        return -1;
+    }
+
+    public int getMovieCount() {
+        return movies.size();
+    }
+
+    public JSONObject getMovie(int index) {
+        return movies.get(index);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport vp) {
+            viewport = vp;
+            viewport.addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+            viewport = null;
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public void doLayout() {
+        // Mudou o tamanho: os cartões visíveis são reposicionados, sem novo bind
+        layoutVisibleCells();
+    }
+
+    private int rowHeight() {
+        return CELL_HEIGHT + GAP;
+    }
+
+    private int rowCount() {
+        return (movies.size() + COLUMNS - 1) / COLUMNS;
+    }
+
+    /**
+     * Posiciona cartões apenas para os índices dentro do retângulo visível.
+     */
+    private void layoutVisibleCells() {
+        Rectangle visible = getVisibleRect();
+        if (visible.height == 0 || movies.isEmpty()) {
+            for (MovieCell cell : activeCells.values()) recycle(cell);
+            activeCells.clear();
+            return;
+        }
+
+        int firstRow = Math.max(0, visible.y / rowHeight() - OVERSCAN_ROWS);
+        int lastRow = Math.min(rowCount() - 1, (visible.y + visible.height) / rowHeight() + OVERSCAN_ROWS);
+        int first = firstRow * COLUMNS;
+        int last = Math.min(movies.size() - 1, (lastRow + 1) * COLUMNS - 1);
+
+        activeCells.entrySet().removeIf(entry -> {
+            int index = entry.getKey();
+            if (index >= first && index <= last) return false;
+            recycle(entry.getValue());
+            return true;
+        });
+
+        int cellWidth = Math.max(1, (getWidth() - GAP * (COLUMNS - 1)) / COLUMNS);
+        for (int index = first; index <= last; index++) {
+            MovieCell cell = activeCells.get(index);
+            if (cell == null) {
+                cell = obtainCell();
+                cell.bind(movies.get(index));
+                activeCells.put(index, cell);
+            }
+            int row = index / COLUMNS;
+            int col = index % COLUMNS;
+            cell.setBounds(col * (cellWidth + GAP), row * rowHeight(), cellWidth, CELL_HEIGHT);
+            cell.validate();
+        }
+        notifyVisible(visible);
+    }
+
+    private void notifyVisible(Rectangle visible) {
+        int first = Math.min(movies.size() - 1, visible.y / rowHeight() * COLUMNS);
+        int last = Math.min(movies.size() - 1, ((visible.y + visible.height) / rowHeight() + 1) * COLUMNS - 1);
+        if (first == shownFirst && last == shownLast) return;
+        shownFirst = first;
+        shownLast = last;
+        actions.onVisible(List.copyOf(movies.subList(first, last + 1)));
+    }
+
+    private MovieCell obtainCell() {
+        MovieCell cell = recycledCells.pollFirst();
+        if (cell == null) {
+            cell = new MovieCell();
+            add(cell);
+        }
+        cell.setVisible(true);
+        return cell;
+    }
+
+    private void recycle(MovieCell cell) {
+        cell.setVisible(false);
+        cell.bind(null);
+        recycledCells.addLast(cell);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int rows = rowCount();
+        int height = rows == 0 ? 0 : rows * rowHeight() - GAP;
+        return new Dimension(COLUMNS * 200 + GAP * (COLUMNS - 1), height);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        Rectangle clip = g.getClipBounds();
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+    }
+
+    // --- Scrollable ---
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 16;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Cartão de um filme. É criado poucas vezes e recebe outro filme via bind() ao ser reaproveitado.
+     */
+    private final class MovieCell extends JPanel {
+        private final JLabel title = new JLabel();
+        private final JLabel info = new JLabel();
+        private final JLabel rating = new JLabel();
+        private JSONObject movie;
+
+        MovieCell() {
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+            setBackground(StyleTheme.PANEL_COLOR);
+            setBorder(BorderFactory.createLineBorder(BORDER_COLOR));
+
+            title.setFont(StyleTheme.FONT_BOLD);
+            title.setForeground(StyleTheme.ACCENT_COLOR);
+            title.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            info.setFont(INFO_FONT);
+            info.setForeground(Color.GRAY);
+            info.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            rating.setForeground(Color.YELLOW);
+            rating.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+            btnPanel.setBackground(StyleTheme.PANEL_COLOR);
+
+            JButton viewBtn = new JButton("Ver");
+            viewBtn.setBackground(StyleTheme.INPUT_BG);
+            viewBtn.setForeground(Color.WHITE);
+            viewBtn.addActionListener(e -> { if (movie != null) actions.onView(movie); });
+            btnPanel.add(viewBtn);
+
+            if (admin) {
+                JButton editBtn = new JButton("✎");
+                editBtn.setToolTipText("Editar Filme");
+                editBtn.addActionListener(e -> { if (movie != null) actions.onEdit(movie); });
+
+                JButton delBtn = new JButton("✖");
+                delBtn.setForeground(Color.RED);
+                delBtn.setToolTipText("Excluir Filme");
+                delBtn.addActionListener(e -> { if (movie != null) actions.onDelete(movie); });
+                btnPanel.add(editBtn);
+                btnPanel.add(delBtn);
+            }
+
+            add(Box.createVerticalStrut(10));
+            add(title);
+            add(info);
+            add(rating);
+            add(Box.createVerticalGlue());
+            add(btnPanel);
+
+            MouseAdapter hover = new MouseAdapter() {
+                @Override public void mouseEntered(MouseEvent e) {
+                    if (movie != null) actions.onHover(movie);
+                }
+            };
+            addMouseListener(hover);
+            viewBtn.addMouseListener(hover);
+        }
+
+        void bind(JSONObject movie) {
+            this.movie = movie;
+            if (movie == null) return;
+            title.setText(movie.optString("titulo"));
+            info.setText(movie.optString("ano") + " | " + movie.optString("diretor"));
+            bindRating();
+        }
+
+        void bindRating() {
+            if (movie == null) return;
+            RatingStats.Summary summary = ratingSource.apply(movie.optString("id"));
+            if (summary == null) {
+                rating.setText("★ " + movie.optString("nota", "-"));
+                rating.setToolTipText(null);
+                return;
+            }
+            rating.setText(summary.shortText());
+            StringBuilder tip = new StringBuilder("<html>");
+            for (int score = RatingStats.MAX_SCORE; score >= 0; score--) {
+                tip.append(score).append(" ★: ").append(summary.countOf(score)).append("<br>");
+            }
+            rating.setToolTipText(tip.append(String.format(Locale.ROOT, "desvio padrão %.2f</html>",
+                    summary.standardDeviation())).toString());
+        }
+    }
+}
@@ -0,0 +1,369 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido do catálogo para a busca instantânea da tela de filmes, sem chamadas ao servidor.
+ * Indexa título, diretor, sinopse e gênero; os termos são normalizados sem acento e em minúsculas
+ * ("Ação" acha "acao") e cada palavra da busca casa com qualquer termo que comece por ela.
+ * Todas as palavras precisam casar (E); o resultado vem na ordem do catálogo.
+ *
+ * Cada filme recebe um número interno (doc) na ordem em que entra. As listas de docs por termo
+ * ficam ordenadas; as muito frequentes ganham também um BitSet, para que prefixos curtos
+ * ("a", "d") unam centenas de milhares de ocorrências com OR de palavras de 64 bits.
+ * Criação, edição e exclusão de filmes chegam pelo MutationListener e atualizam só os termos afetados.
+ *
+ * Os gêneros têm, cada um, um BitSet com os docs do gênero. Filtros E/OU entre gêneros e as
+ * contagens por gênero (facetas) saem de AND/OR e cardinality desses mapas de bits, sem
+ * percorrer os filmes.
+ */
+public class MovieSearchIndex implements NetworkService.MutationListener {
+
+    static final String[] FIELDS = {"titulo", "diretor", "sinopse", "genero"};
+
+    // Lista com pelo menos tantos docs também é mantida como BitSet
+    private static final int DENSE_THRESHOLD = 512;
+
+    // Letras latinas acentuadas (U+00C0 a U+024F) já dobradas para minúscula sem acento
+    private static final char FOLD_FIRST = 'À';
+    private static final char[] FOLD = new char['ɐ' - FOLD_FIRST];
+
+    static {
+        for (int i = 0; i < FOLD.length; i++) {
+            String decomposed = Normalizer.normalize(String.valueOf((char) (FOLD_FIRST + i)), Normalizer.Form.NFD);
+            char base = Character.toLowerCase(decomposed.charAt(0));
+            FOLD[i] = Character.isLetterOrDigit(base) ? base : 0;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final List<JSONObject> docs = new ArrayList<>();
+    private final List<String[]> docTerms = new ArrayList<>();
+    private final Map<String, Integer> docById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private int liveCount;
+
+    // Gêneros na ordem em que foram conhecidos; a chave é o nome sem acento e em minúsculas
+    private final List<String> genreNames = new ArrayList<>();
+    private final Map<String, Integer> genreIds = new HashMap<>();
+    private final List<BitSet> genreDocs = new ArrayList<>();
+
+    /** Resultado de query: filmes na ordem do catálogo e contagem por gênero, na ordem de genres(). */
+    public record Result(List<JSONObject> movies, Map<String, Integer> genreCounts) {}
+
+    public MovieSearchIndex() {
+    }
+
+    /** Indexa e passa a acompanhar as mutações confirmadas pelo networkService. */
+    public MovieSearchIndex(NetworkService networkService) {
+        networkService.addMutationListener(this);
+    }
+
+    /** Descarta tudo e indexa movies, na ordem dada. */
+    public synchronized void replaceAll(JSONArray movies) {
+        terms.clear();
+        docs.clear();
+        docTerms.clear();
+        docById.clear();
+        live.clear();
+        liveCount = 0;
+        genreDocs.forEach(BitSet::clear);
+        addAll(movies);
+    }
+
+    /** Registra gêneros antes de qualquer filme, para fixar a ordem em que aparecem. */
+    public synchronized void registerGenres(String... names) {
+        for (String name : names) genreId(name);
+    }
+
+    /** Gêneros conhecidos, na ordem de registro (os vindos do servidor entram ao aparecer). */
+    public synchronized List<String> genres() {
+        return new ArrayList<>(genreNames);
+    }
+
+    /** Acrescenta filmes (uma página recém-chegada, por exemplo); um id já indexado é atualizado. */
+    public synchronized void addAll(JSONArray movies) {
+        for (int i = 0; i < movies.length(); i++) {
+            JSONObject movie = movies.optJSONObject(i);
+            if (movie != null) put(movie);
+        }
+    }
+
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /**
+     * Filmes que casam com todas as palavras de query, como prefixo de algum termo.
+     * Sem nenhuma palavra, devolve o catálogo indexado inteiro.
+     */
+    public synchronized List<JSONObject> search(String query) {
+        return toMovies(match(query));
+    }
+
+    /**
+     * Como search, restrito aos gêneros pedidos: com matchAll, o filme precisa ter todos;
+     * sem, basta um. Nenhum gênero não filtra. As contagens por gênero dizem quantos filmes
+     * restariam ao marcar cada gênero: no modo E, dentro do resultado atual; no modo OU,
+     * entre os que casam com o texto.
+     */
+    public synchronized Result query(String query, Collection<String> genres, boolean matchAll) {
+        BitSet textMatches = match(query);
+        BitSet result = textMatches;
+        if (!genres.isEmpty()) {
+            BitSet filter = matchAll ? (BitSet) textMatches.clone() : new BitSet();
+            for (String genre : genres) {
+                Integer id = genreIds.get(genreKey(genre));
+                BitSet docsOfGenre = id != null ? genreDocs.get(id) : new BitSet();
+                if (matchAll) filter.and(docsOfGenre);
+                else filter.or(docsOfGenre);
+            }
+            if (!matchAll) filter.and(textMatches);
+            result = filter;
+        }
+
+        BitSet facetBase = matchAll ? result : textMatches;
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        BitSet scratch = new BitSet();
+        for (int id = 0; id < genreNames.size(); id++) {
+            scratch.clear();
+            scratch.or(facetBase);
+            scratch.and(genreDocs.get(id));
+            counts.put(genreNames.get(id), scratch.cardinality());
+        }
+        return new Result(toMovies(result), counts);
+    }
+
+    // Docs vivos que casam com todas as palavras de query
+    private BitSet match(String query) {
+        String[] words = tokenize(query).toArray(new String[0]);
+        if (words.length == 0) return (BitSet) live.clone();
+        // As palavras mais longas tendem a ser mais seletivas e esvaziam o resultado mais cedo
+        Arrays.sort(words, (a, b) -> b.length() - a.length());
+
+        BitSet result = null;
+        for (String word : words) {
+            BitSet matches = new BitSet(docs.size());
+            for (Postings postings : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                postings.addTo(matches);
+            }
+            if (result == null) result = matches;
+            else result.and(matches);
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    private List<JSONObject> toMovies(BitSet selected) {
+        List<JSONObject> found = new ArrayList<>(selected.cardinality());
+        for (int doc = selected.nextSetBit(0); doc >= 0; doc = selected.nextSetBit(doc + 1)) {
+            found.add(docs.get(doc));
+        }
+        return found;
+    }
+
+    @Override
+    public void onMutation(String operacao, JSONObject request, JSONObject response) {
+        switch (operacao) {
+            case "CRIAR_FILME" -> {
+                JSONObject created = response.optJSONObject("filme");
+                if (created != null && created.has("id")) add(created);
+            }
+            case "EDITAR_FILME" -> patch(request.getJSONObject("filme"));
+            case "EXCLUIR_FILME" -> remove(request.optString("id"));
+            default -> { }
+        }
+    }
+
+    private synchronized void add(JSONObject movie) {
+        put(movie);
+    }
+
+    private synchronized void patch(JSONObject changes) {
+        Integer doc = docById.get(changes.optString("id"));
+        if (doc == null) return;
+        JSONObject merged = new JSONObject(docs.get(doc).toMap());
+        for (String key : changes.keySet()) merged.put(key, changes.get(key));
+        put(merged);
+    }
+
+    private synchronized void remove(String id) {
+        Integer doc = docById.remove(id);
+        if (doc == null) return;
+        for (String term : docTerms.get(doc)) unlink(term, doc);
+        for (BitSet docsOfGenre : genreDocs) docsOfGenre.clear(doc);
+        docs.set(doc, null);
+        docTerms.set(doc, null);
+        live.clear(doc);
+        liveCount--;
+    }
+
+    // Indexa o filme; se o id já existe, mantém o doc (e a posição no catálogo) e troca só os termos que mudaram
+    private void put(JSONObject movie) {
+        String id = movie.optString("id");
+        Set<String> newTerms = termsOf(movie);
+        Integer existing = docById.get(id);
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            for (String term : docTerms.get(doc)) {
+                if (!newTerms.contains(term)) unlink(term, doc);
+            }
+        } else {
+            doc = docs.size();
+            docs.add(null);
+            docTerms.add(null);
+            docById.put(id, doc);
+            live.set(doc);
+            liveCount++;
+        }
+
+        for (BitSet docsOfGenre : genreDocs) docsOfGenre.clear(doc);
+        for (String genre : genresOf(movie)) genreDocs.get(genreId(genre)).set(doc);
+
+        String[] stored = new String[newTerms.size()];
+        int n = 0;
+        for (String term : newTerms) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+            } else {
+                term = terms.ceilingKey(term); // reaproveita a String do dicionário
+            }
+            postings.add(doc);
+            stored[n++] = term;
+        }
+        docs.set(doc, movie);
+        docTerms.set(doc, stored);
+    }
+
+    private Set<String> termsOf(JSONObject movie) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String field : FIELDS) {
+            Object value = movie.opt(field);
+            if (value instanceof JSONArray array) {
+                for (int i = 0; i < array.length(); i++) result.addAll(tokenize(array.optString(i)));
+            } else if (value != null) {
+                result.addAll(tokenize(value.toString()));
+            }
+        }
+        return result;
+    }
+
+    // "genero" vem como array; numa edição pode vir também como texto separado por vírgulas
+    private static List<String> genresOf(JSONObject movie) {
+        List<String> result = new ArrayList<>();
+        Object value = movie.opt("genero");
+        if (value instanceof JSONArray array) {
+            for (int i = 0; i < array.length(); i++) result.add(array.optString(i));
+        } else if (value != null) {
+            result.addAll(Arrays.asList(value.toString().split(",")));
+        }
+        result.removeIf(genre -> genreKey(genre).isEmpty());
+        return result;
+    }
+
+    private int genreId(String name) {
+        String key = genreKey(name);
+        Integer id = genreIds.get(key);
+        if (id == null) {
+            id = genreNames.size();
+            genreIds.put(key, id);
+            genreNames.add(name.trim());
+            genreDocs.add(new BitSet());
+        }
+        return id;
+    }
+
+    // "Ficção  Científica" e "ficcao cientifica" são o mesmo gênero
+    static String genreKey(String name) {
+        return String.join(" ", tokenize(name));
+    }
+
+    private void unlink(String term, int doc) {
+        Postings postings = terms.get(term);
+        if (postings == null) return;
+        postings.remove(doc);
+        if (postings.size == 0) terms.remove(term);
+    }
+
+    /** Termos de text: sequências de letras e dígitos, em minúsculas e sem acento. */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = fold(text.charAt(i));
+            if (c != 0) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) tokens.add(token.toString());
+        return tokens;
+    }
+
+    // Minúscula sem acento, ou 0 para separadores
+    private static char fold(char c) {
+        if (c < 128) {
+            if (c >= 'A' && c <= 'Z') return (char) (c + 32);
+            return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : 0;
+        }
+        if (c >= FOLD_FIRST && c - FOLD_FIRST < FOLD.length) return FOLD[c - FOLD_FIRST];
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+    }
+
+    /** Docs de um termo, em ordem crescente; acima de DENSE_THRESHOLD também em BitSet. */
+    private static final class Postings {
+        private int[] ids = new int[2];
+        private int size;
+        private BitSet bits;
+
+        void add(int doc) {
+            int at = size == 0 || ids[size - 1] < doc ? size : Arrays.binarySearch(ids, 0, size, doc);
+            if (at < 0) at = -at - 1;
+            else if (at < size) return; // já está
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = doc;
+            size++;
+            if (bits != null) {
+                bits.set(doc);
+            } else if (size >= DENSE_THRESHOLD) {
+                bits = new BitSet();
+                for (int i = 0; i < size; i++) bits.set(ids[i]);
+            }
+        }
+
+        void remove(int doc) {
+            int at = Arrays.binarySearch(ids, 0, size, doc);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            if (bits != null) bits.clear(doc);
+        }
+
+        void addTo(BitSet target) {
+            if (bits != null) {
+                target.or(bits);
+            } else {
+                for (int i = 0; i < size; i++) target.set(ids[i]);
+            }
+        }
+    }
+}
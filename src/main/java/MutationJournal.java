@@ -0,0 +1,420 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Diário em disco das mutações de uma sessão (usuário + servidor), para o cliente continuar
+ * funcionando sem conexão. Cada mutação é gravada antes de sair (write-ahead) e enviada em
+ * ordem, uma por vez, por uma única thread. Sem conexão, quem enviou recebe na hora um 202
+ * ("guardada") e a fila espera a reconexão para seguir de onde parou; na próxima sessão do
+ * mesmo usuário, o que sobrou no arquivo é reenviado.
+ *
+ * Cada entrada leva uma chave de idempotência (RequestEncoder.CHAVE_IDEMPOTENCIA): se a conexão
+ * cair depois de o servidor aplicar a mutação mas antes da resposta, o reenvio com a mesma
+ * chave devolve a resposta original em vez de aplicar de novo (em servidores que a reconhecem;
+ * os que recusam o campo passam a recebê-las sem ele, ver NetworkService.sendJournaled).
+ *
+ * Só falhas de E/S contam como falta de conexão e seguram a fila; qualquer outro erro no envio
+ * encerra a entrada como recusada (status 500), para quem enviou ou para o ConflictListener.
+ *
+ * O arquivo só cresce: uma linha JSON por entrada e outra quando ela termina. As gravações
+ * de várias threads são juntadas num único write + fsync. Quando nada fica pendente, o
+ * arquivo é zerado.
+ */
+public final class MutationJournal {
+
+    /** Status devolvido a quem enviou uma mutação que ficou guardada para depois. */
+    public static final String QUEUED_STATUS = "202";
+
+    // Espera entre reenvios seguidos sem conexão: o pool pode dizer que reconectou e cair de novo
+    private static final long RETRY_BASE_MILLIS = 200;
+    private static final long RETRY_MAX_MILLIS = 5_000;
+
+    /**
+     * Recebe o resultado das mutações enviadas depois do 202, quando o servidor as recusa:
+     * 409/404 (o recurso mudou enquanto o cliente estava sem conexão) ou outro erro.
+     */
+    @FunctionalInterface
+    public interface ConflictListener {
+        void onRejected(Operation operation, JSONObject request, JSONObject response);
+    }
+
+    /** Envia uma entrada com a chave de idempotência; falha com IOException sem conexão. */
+    @FunctionalInterface
+    interface Sender {
+        CompletableFuture<JSONObject> send(Operation operation, String bodyFragment, String dedupKey);
+    }
+
+    private static final class Entry {
+        final long seq;
+        final String key;
+        final Operation operation;
+        final String body;
+        // Quem enviou; completado com a resposta, ou com o 202 se a conexão faltar antes dela
+        final CompletableFuture<JSONObject> caller = new CompletableFuture<>();
+        // Entrada já no disco: só então pode sair para o servidor
+        CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+
+        Entry(long seq, String key, Operation operation, String body) {
+            this.seq = seq;
+            this.key = key;
+            this.operation = operation;
+            this.body = body;
+        }
+    }
+
+    private record Write(byte[] line, CompletableFuture<Void> durable) {}
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Sender sender;
+    private final NetworkService networkService;
+    private volatile ConflictListener conflictListener = (operation, request, response) -> { };
+
+    // Protegidos pelo lock da instância
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private long nextSeq = 1;
+    private boolean draining;
+    private boolean offline;
+    private boolean closed;
+
+    // Gravação agrupada: a thread escritora junta o que estiver na fila num write + fsync
+    private final LinkedBlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private MutationJournal(Path file, NetworkService networkService, Sender sender) throws IOException {
+        this.file = file;
+        this.networkService = networkService;
+        this.sender = sender;
+        load();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (pending.isEmpty()) channel.truncate(0);
+        writer = Thread.ofVirtual().name("voteflix-journal").start(this::writeLoop);
+    }
+
+    /**
+     * Abre o diário do usuário no servidor (em CatalogSnapshot.directory()) e começa a reenviar
+     * o que tiver ficado de sessões anteriores.
+     */
+    static MutationJournal open(String serverAddress, String usuario, NetworkService networkService, Sender sender)
+            throws IOException {
+        Path dir = CatalogSnapshot.directory();
+        Files.createDirectories(dir);
+        String name = ("pendentes-" + serverAddress + "-" + usuario).replaceAll("[^A-Za-z0-9.-]", "-") + ".log";
+        MutationJournal journal = new MutationJournal(dir.resolve(name), networkService, sender);
+        journal.drain();
+        return journal;
+    }
+
+    public void setConflictListener(ConflictListener listener) {
+        this.conflictListener = listener != null ? listener : (operation, request, response) -> { };
+    }
+
+    /** Mutações ainda não confirmadas pelo servidor. */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Grava a mutação e a coloca na fila de envio. O futuro traz a resposta do servidor, ou um
+     * 202 se não houver conexão (ou se ela cair antes da resposta).
+     */
+    CompletableFuture<JSONObject> submit(Operation operation, String bodyFragment) {
+        Entry entry;
+        boolean queuedOffline;
+        // No lock: a entrada entra na fila de envio e na de gravação na mesma ordem
+        synchronized (this) {
+            if (closed) return CompletableFuture.failedFuture(new IOException("A sessão foi encerrada."));
+            entry = new Entry(nextSeq++, UUID.randomUUID().toString(), operation, bodyFragment);
+            entry.durable = append(new JSONObject()
+                    .put("seq", entry.seq)
+                    .put("chave", entry.key)
+                    .put("operacao", operation.name())
+                    .put("corpo", bodyFragment));
+            pending.addLast(entry);
+            queuedOffline = offline;
+        }
+        entry.durable.whenComplete((ignored, error) -> {
+            if (error != null) {
+                // Sem a gravação não há garantia de reenvio: a mutação segue só pela rede
+                WireLogger.warn("MutationJournal", "Falha ao gravar o diário de mutações: " + error.getMessage());
+            }
+            if (queuedOffline) entry.caller.complete(queued());
+            drain();
+        });
+        return entry.caller;
+    }
+
+    /** Para de enviar; o que estiver pendente fica no arquivo para a próxima sessão. */
+    public void close() {
+        List<Entry> waiting;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            waiting = new ArrayList<>(pending);
+        }
+        for (Entry entry : waiting) entry.caller.complete(queued());
+        writes.add(new Write(null, null));
+        try {
+            writer.join();
+            channel.close();
+        } catch (IOException | InterruptedException e) {
+            WireLogger.warn("MutationJournal", "Falha ao fechar o diário de mutações: " + e.getMessage());
+        }
+    }
+
+    // --- envio ---
+
+    private void drain() {
+        synchronized (this) {
+            if (draining || closed || pending.isEmpty()) return;
+            draining = true;
+        }
+        Thread.ofVirtual().name("voteflix-journal-replay").start(this::drainLoop);
+    }
+
+    // Uma entrada por vez, na ordem de gravação: uma review editada offline não chega antes de ser criada
+    private void drainLoop() {
+        int failures = 0;
+        while (true) {
+            Entry entry;
+            CompletableFuture<Void> durable;
+            synchronized (this) {
+                entry = pending.peekFirst();
+                if (entry == null || closed) {
+                    draining = false;
+                    return;
+                }
+                durable = entry.durable;
+            }
+            durable.exceptionally(e -> null).join();
+            JSONObject response;
+            try {
+                response = sender.send(entry.operation, entry.body, entry.key).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!(cause instanceof IOException || cause instanceof TimeoutException)) {
+                    finish(entry, failed(cause));
+                    continue;
+                }
+                if (!waitForConnection(++failures)) {
+                    stopDraining();
+                    return;
+                }
+                continue;
+            } catch (RuntimeException e) {
+                finish(entry, failed(e));
+                continue;
+            } catch (InterruptedException e) {
+                stopDraining();
+                return;
+            }
+            failures = 0;
+            finish(entry, response);
+        }
+    }
+
+    private synchronized void stopDraining() {
+        draining = false;
+    }
+
+    /**
+     * Sem conexão: libera quem está esperando com o 202, aguarda a reconexão do pool e, a cada
+     * falha seguida, espera um pouco mais antes de reenviar.
+     */
+    private boolean waitForConnection(int failures) {
+        List<Entry> waiting;
+        synchronized (this) {
+            offline = true;
+            waiting = new ArrayList<>(pending);
+        }
+        for (Entry entry : waiting) entry.caller.complete(queued());
+        while (true) {
+            try {
+                NetworkService.await(networkService.whenConnected());
+                Thread.sleep(backoff(failures));
+                break;
+            } catch (IOException e) {
+                // Uma tentativa de reconexão falhou; o pool já agendou a próxima
+                try {
+                    Thread.sleep(backoff(++failures));
+                } catch (InterruptedException ie) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                return false;
+            }
+            synchronized (this) {
+                if (closed) return false; // sessão encerrada: o que falta fica no arquivo para a próxima
+            }
+        }
+        synchronized (this) {
+            offline = false;
+            return !closed;
+        }
+    }
+
+    private static long backoff(int failures) {
+        return Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(failures - 1, 5));
+    }
+
+    private void finish(Entry entry, JSONObject response) {
+        boolean empty;
+        synchronized (this) {
+            pending.remove(entry);
+            empty = pending.isEmpty();
+        }
+        append(new JSONObject().put("seq", entry.seq).put("status", response.optString("status")))
+                .thenRun(() -> {
+                    if (empty) truncateIfIdle();
+                });
+        // Quem ainda espera recebe a resposta normalmente; quem já recebeu o 202 só fica sabendo de recusas
+        String status = response.optString("status");
+        if (!entry.caller.complete(response) && !status.startsWith("2") && !(isDeletion(entry.operation) && "404".equals(status))) {
+            conflictListener.onRejected(entry.operation, toJson(entry), response);
+        }
+    }
+
+    // Excluir o que já não existe chegou ao mesmo resultado (o lote pode ter sido aplicado antes da queda)
+    private static boolean isDeletion(Operation operation) {
+        return operation == Operation.EXCLUIR_FILME || operation == Operation.EXCLUIR_REVIEW
+                || operation == Operation.ADMIN_EXCLUIR_USUARIO;
+    }
+
+    private static JSONObject toJson(Entry entry) {
+        try {
+            return new JSONObject("{\"operacao\":\"" + entry.operation.name() + "\"" + entry.body + "}");
+        } catch (JSONException e) {
+            return new JSONObject().put("operacao", entry.operation.name());
+        }
+    }
+
+    private static JSONObject failed(Throwable cause) {
+        return new JSONObject()
+                .put("status", "500")
+                .put("mensagem", "Falha ao enviar a alteração: " + cause);
+    }
+
+    private static JSONObject queued() {
+        return new JSONObject()
+                .put("status", QUEUED_STATUS)
+                .put("mensagem", StatusCodeHandler.getMessage(QUEUED_STATUS));
+    }
+
+    // --- arquivo ---
+
+    private CompletableFuture<Void> append(JSONObject record) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        writes.add(new Write((record + "\n").getBytes(StandardCharsets.UTF_8), durable));
+        return durable;
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(writes.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            writes.drainTo(batch);
+            boolean stop = false;
+            int size = 0;
+            for (Write w : batch) {
+                if (w.line() == null) stop = true;
+                else size += w.line().length;
+            }
+            ByteBuffer data = ByteBuffer.allocate(size);
+            for (Write w : batch) {
+                if (w.line() != null) data.put(w.line());
+            }
+            data.flip();
+            IOException failure = null;
+            try {
+                while (data.hasRemaining()) channel.write(data);
+                channel.force(false); // um fsync para o lote inteiro
+            } catch (IOException e) {
+                failure = e;
+            }
+            for (Write w : batch) {
+                if (w.durable() == null) continue;
+                if (failure == null) w.durable().complete(null);
+                else w.durable().completeExceptionally(failure);
+            }
+            batch.clear();
+            if (stop) return;
+        }
+    }
+
+    private void truncateIfIdle() {
+        synchronized (this) {
+            if (!pending.isEmpty() || closed) return;
+            try {
+                // Nenhuma entrada pendente nem gravação na fila: o histórico já não serve para nada
+                if (writes.isEmpty()) channel.truncate(0);
+            } catch (IOException e) {
+                WireLogger.warn("MutationJournal", "Falha ao limpar o diário de mutações: " + e.getMessage());
+            }
+        }
+    }
+
+    // Lê as entradas sem linha de conclusão; uma última linha cortada (queda no meio da gravação) é ignorada
+    private void load() throws IOException {
+        if (!Files.exists(file)) return;
+        Map<Long, Entry> open = new HashMap<>();
+        List<Entry> order = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            JSONObject record;
+            try {
+                record = new JSONObject(line);
+            } catch (JSONException e) {
+                continue;
+            }
+            long seq = record.optLong("seq");
+            nextSeq = Math.max(nextSeq, seq + 1);
+            if (record.has("status")) {
+                open.remove(seq);
+                continue;
+            }
+            Operation operation;
+            try {
+                operation = Operation.valueOf(record.optString("operacao"));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (!operation.isJournaled()) continue; // de versões que guardavam mais operações
+            Entry entry = new Entry(seq, record.optString("chave"), operation, record.optString("corpo"));
+            open.put(seq, entry);
+            order.add(entry);
+        }
+        for (Entry entry : order) {
+            if (open.containsKey(entry.seq)) {
+                entry.caller.complete(queued()); // ninguém desta sessão espera por ela
+                pending.addLast(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de rede do cliente: por operação, histogramas de latência total (envio até a resposta
+ * decodificada) e de decodificação (primeiro byte até o fim do parse), bytes enviados e recebidos
+ * e contagem de falhas; respostas por código de status, por operação e no total. Tempos de renderização das
+ * telas são registrados à parte, para separar lentidão do servidor da do próprio cliente. Os
+ * keep-alives do pool também ficam à parte (keepAliveLatency): não são pedidos do usuário.
+ * Todas as gravações são livres de locks.
+ */
+public final class NetworkMetrics {
+
+    /** Contadores de uma operação. */
+    public static final class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram decode = new LatencyHistogram();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> statuses = new ConcurrentSkipListMap<>();
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public LatencyHistogram decode() {
+            return decode;
+        }
+
+        public long bytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long bytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        /** Requisições que terminaram sem resposta (queda de conexão, erro de escrita). */
+        public long failures() {
+            return failures.sum();
+        }
+
+        /** Respostas desta operação por código de status. */
+        public Map<String, Long> statusCounts() {
+            Map<String, Long> snapshot = new TreeMap<>();
+            statuses.forEach((code, count) -> snapshot.put(code, count.sum()));
+            return snapshot;
+        }
+
+        private void reset() {
+            statuses.clear();
+            latency.reset();
+            decode.reset();
+            bytesSent.reset();
+            bytesReceived.reset();
+            failures.reset();
+        }
+    }
+
+    private final Map<Operation, OperationStats> byOperation = new EnumMap<>(Operation.class);
+    private final ConcurrentMap<String, LongAdder> byStatus = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> renderTimes = new ConcurrentHashMap<>();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder keepAliveTimeouts = new LongAdder();
+    private final LatencyHistogram keepAliveLatency = new LatencyHistogram();
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder compressedPlainBytes = new LongAdder();
+    private final LongAdder compressedWireBytes = new LongAdder();
+
+    public NetworkMetrics() {
+        // Preenchidos de antemão: depois da construção os mapas só são lidos
+        for (Operation op : Operation.values()) {
+            byOperation.put(op, new OperationStats());
+        }
+        for (String code : StatusCodeHandler.getKnownCodes()) {
+            byStatus.put(code, new LongAdder());
+        }
+    }
+
+    public void recordSent(Operation operation, long bytes) {
+        byOperation.get(operation).bytesSent.add(bytes);
+    }
+
+    public void recordResponse(Operation operation, String status, long bytes, long latencyNanos, long decodeNanos) {
+        OperationStats stats = byOperation.get(operation);
+        stats.bytesReceived.add(bytes);
+        stats.latency.record(latencyNanos);
+        stats.decode.record(decodeNanos);
+        String code = status == null || status.isEmpty() ? "?" : status;
+        stats.statuses.computeIfAbsent(code, k -> new LongAdder()).increment();
+        byStatus.computeIfAbsent(code, k -> new LongAdder()).increment();
+    }
+
+    public void recordFailure(Operation operation) {
+        byOperation.get(operation).failures.increment();
+    }
+
+    /** Conexão reaberta depois de uma queda. */
+    public void recordReconnect() {
+        reconnects.increment();
+    }
+
+    /** Requisição idempotente reenviada depois de uma falha de conexão. */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /** Leitura que pegou carona numa requisição idêntica já em voo, sem ir ao servidor. */
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    /** Keep-alive respondido, com o tempo de ida e volta. */
+    public void recordKeepAlive(long latencyNanos) {
+        keepAliveLatency.record(latencyNanos);
+    }
+
+    /** Conexão fechada por não responder ao keep-alive. */
+    public void recordKeepAliveTimeout() {
+        keepAliveTimeouts.increment();
+    }
+
+    /** Mensagem enviada ou recebida como quadro comprimido: tamanho original e tamanho no fio. */
+    public void recordCompression(long plainBytes, long wireBytes) {
+        compressedFrames.increment();
+        compressedPlainBytes.add(plainBytes);
+        compressedWireBytes.add(wireBytes);
+    }
+
+    public long getReconnects() {
+        return reconnects.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getKeepAliveTimeouts() {
+        return keepAliveTimeouts.sum();
+    }
+
+    /** Keep-alives respondidos e seus tempos; fora dos histogramas por operação. */
+    public LatencyHistogram keepAliveLatency() {
+        return keepAliveLatency;
+    }
+
+    public long getCompressedFrames() {
+        return compressedFrames.sum();
+    }
+
+    public long getCompressedPlainBytes() {
+        return compressedPlainBytes.sum();
+    }
+
+    public long getCompressedWireBytes() {
+        return compressedWireBytes.sum();
+    }
+
+    /** Registra quanto tempo uma tela levou para montar os componentes a partir dos dados recebidos. */
+    public void recordRender(String view, long nanos) {
+        renderTimes.computeIfAbsent(view, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public OperationStats stats(Operation operation) {
+        return byOperation.get(operation);
+    }
+
+    /** Respostas por código de status, em ordem de código. */
+    public Map<String, Long> statusCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        byStatus.forEach((code, count) -> snapshot.put(code, count.sum()));
+        return snapshot;
+    }
+
+    public Map<String, LatencyHistogram> renderTimes() {
+        return Collections.unmodifiableMap(new TreeMap<>(renderTimes));
+    }
+
+    public void reset() {
+        byOperation.values().forEach(OperationStats::reset);
+        byStatus.values().forEach(LongAdder::reset);
+        renderTimes.values().forEach(LatencyHistogram::reset);
+        reconnects.reset();
+        retries.reset();
+        coalesced.reset();
+        keepAliveTimeouts.reset();
+        keepAliveLatency.reset();
+        compressedFrames.reset();
+        compressedPlainBytes.reset();
+        compressedWireBytes.reset();
+    }
+}
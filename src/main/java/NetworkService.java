@@ -1,108 +1,551 @@
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.json.JSONArray;
+import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Classe responsável pela comunicação com o servidor.
  * ATUALIZADO: Inclui métodos para gerenciamento de Reviews e busca detalhada.
+ * Cada operação tem uma versão bloqueante e uma assíncrona (sufixo "Async") que devolve um
+ * CompletableFuture; as assíncronas podem ser disparadas em paralelo sobre a mesma conexão.
+ * Os campos de cada operação são escritos direto pelo RequestEncoder da conexão, sem JSONObject intermediário.
+ * Se a conexão cair, o pool reconecta e refaz o login sozinho; as operações idempotentes que
+ * estavam em voo são reenviadas assim que houver conexão, sem o usuário perceber.
+ * Com o diário offline ligado (setOfflineJournal ou -Dvoteflix.offline.journal=true), as mutações
+ * feitas sem conexão passam pelo MutationJournal: são guardadas, respondem 202 e saem em ordem depois.
  */
 public class NetworkService {
 
-    private Socket clientSocket;
-    private PrintWriter out;
-    private BufferedReader in;
-    private String token;
+    /**
+     * Recebe as mutações confirmadas pelo servidor (status 2xx), para que caches e modelos locais se atualizem.
+     */
+    @FunctionalInterface
+    public interface MutationListener {
+        void onMutation(String operacao, JSONObject request, JSONObject response);
+    }
+
+    /** Uma operação dentro de um lote; o token vai só no envelope. */
+    public record BatchItem(Operation operation, RequestEncoder.Body body) {
+        public static BatchItem deleteReview(String idReview) {
+            return new BatchItem(Operation.EXCLUIR_REVIEW, enc -> enc.string(RequestEncoder.ID, idReview));
+        }
+
+        public static BatchItem deleteUser(String id) {
+            return new BatchItem(Operation.ADMIN_EXCLUIR_USUARIO, enc -> enc.string(RequestEncoder.ID, id));
+        }
+    }
+
+    private static final int BATCH_LIMIT = Integer.getInteger("voteflix.batch.limit", 500);
+    private static final int RETRY_ATTEMPTS = Integer.getInteger("voteflix.retry.attempts", 4);
+    private static final long RETRY_TIMEOUT_MILLIS = Long.getLong("voteflix.retry.timeout.ms", 30_000);
+    // Os reenvios podem abrir conexão: não rodam na thread leitora que detectou a falha
+    private static final Executor RETRY_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile ConnectionPool pool;
+    private volatile String serverAddress;
+    // Desligado na primeira vez que o servidor não reconhecer o LOTE; daí em diante os itens vão em pipeline
+    private volatile boolean batchSupported = true;
+    // Idem para a chave de idempotência do diário: desligada se o servidor recusar o campo
+    private volatile boolean dedupSupported = true;
+    // Listagens cujos campos de paginação (limite, cursor) o servidor recusou: vão inteiras
+    private final Set<Operation> unpaged = ConcurrentHashMap.newKeySet();
+    private volatile String token;
+    private final List<MutationListener> mutationListeners = new CopyOnWriteArrayList<>();
+    // Leituras em voo por chave (token + requisição codificada); ver coalesce
+    private final ConcurrentHashMap<String, CompletableFuture<JSONObject>> inFlightReads = new ConcurrentHashMap<>();
+    private final NetworkMetrics metrics;
+    private volatile boolean offlineJournal = Boolean.getBoolean("voteflix.offline.journal");
+    // Aberto no login (um por usuário e servidor) e fechado no logout
+    private volatile MutationJournal journal;
+    private volatile MutationJournal.ConflictListener journalListener;
+
+    public NetworkService() {
+        this(new NetworkMetrics());
+    }
+
+    /**
+     * Usa um registro de métricas compartilhado; o gerador de carga agrega assim todas as sessões.
+     */
+    public NetworkService(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public void connect(String ip, int port) throws IOException {
-        clientSocket = new Socket(ip, port);
-        out = new PrintWriter(clientSocket.getOutputStream(), true, StandardCharsets.UTF_8);
-        in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream(), StandardCharsets.UTF_8));
+        connect(ip, port, ConnectionPool.DEFAULT_SIZE);
     }
 
-    private JSONObject sendRequest(JSONObject request) throws IOException {
-        if (out == null || in == null || clientSocket.isClosed()) {
-            throw new IOException("A conexão não está ativa.");
-        }
+    /**
+     * Conecta usando um pool de até poolSize conexões; ações concorrentes da UI
+     * são distribuídas entre elas em vez de disputarem um único socket.
+     */
+    public void connect(String ip, int port, int poolSize) throws IOException {
+        connect(ip, port, poolSize, ServerConnection.Transport.fromProperty());
+    }
+
+    /** Como connect(ip, port, poolSize), escolhendo a forma de E/S das conexões. */
+    public void connect(String ip, int port, int poolSize, ServerConnection.Transport transport) throws IOException {
+        connect(ip, port, poolSize, transport, DeflateFrames.thresholdFromProperty());
+    }
+
+    /**
+     * Como connect(ip, port, poolSize, transport), pedindo ao servidor que mensagens a partir de
+     * compressionThreshold bytes circulem comprimidas (DeflateFrames.DISABLED para não pedir).
+     */
+    public void connect(String ip, int port, int poolSize, ServerConnection.Transport transport,
+                        int compressionThreshold) throws IOException {
+        pool = new ConnectionPool(ip, port, poolSize, transport, compressionThreshold, metrics);
+        serverAddress = ip + ":" + port;
+    }
+
+    /** "ip:porta" da última conexão, ou null antes de conectar. */
+    public String getServerAddress() {
+        return serverAddress;
+    }
+
+    /** Métricas acumuladas desde o início da aplicação (sobrevivem a reconexões). */
+    public NetworkMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Liga o diário de mutações offline para as próximas sessões; vale a partir do próximo login.
+     * Desligado por padrão. Mesmo ligado, com conexão e nada pendente as mutações vão direto ao
+     * servidor, em paralelo como as demais; o diário só as serializa enquanto falta conexão ou
+     * enquanto houver entradas guardadas na frente. O gerador de carga não o usa: quer medir as
+     * falhas, não escondê-las.
+     */
+    public void setOfflineJournal(boolean enabled) {
+        this.offlineJournal = enabled;
+    }
 
-        String requestString = request.toString();
-        System.out.println("[CLIENTE->SERVIDOR] Enviando: " + requestString);
-        out.println(requestString);
+    /** Recebe as mutações guardadas offline que o servidor recusou ao serem reenviadas. */
+    public void setJournalListener(MutationJournal.ConflictListener listener) {
+        this.journalListener = listener;
+        MutationJournal j = journal;
+        if (j != null) j.setConflictListener(listener);
+    }
 
-        String responseStr = in.readLine();
-        if (responseStr == null) {
-            throw new IOException("O servidor encerrou a conexão inesperadamente.");
+    /** Mutações guardadas no diário que o servidor ainda não confirmou. */
+    public int getPendingMutations() {
+        MutationJournal j = journal;
+        return j != null ? j.pendingCount() : 0;
+    }
+
+    /**
+     * O diário, se a mutação deve passar por ele agora: sem conexão, ou com entradas ainda na fila
+     * (uma mutação direta as ultrapassaria). null quando ela pode ir direto ao servidor.
+     */
+    private MutationJournal activeJournal() {
+        MutationJournal j = journal;
+        if (j == null) return null;
+        ConnectionPool p = pool;
+        return j.pendingCount() > 0 || p == null || !p.isConnected() ? j : null;
+    }
+
+    /** Completa quando o pool tiver uma conexão ativa; falha se a conexão tiver sido encerrada. */
+    CompletableFuture<Void> whenConnected() {
+        ConnectionPool p = pool;
+        if (p == null) return CompletableFuture.failedFuture(new IOException("A conexão não está ativa."));
+        return p.whenConnected();
+    }
+
+    private CompletableFuture<JSONObject> sendRequestAsync(Operation operation, RequestEncoder.Body body) {
+        return sendRequestAsync(operation, body, null);
+    }
+
+    /**
+     * Envia a requisição sem bloquear; várias podem estar em voo na mesma conexão.
+     */
+    private CompletableFuture<JSONObject> sendRequestAsync(Operation operation, RequestEncoder.Body body,
+                                                           JsonStreamDecoder.ElementSink sink) {
+        MutationJournal j = sink == null && operation.isJournaled() ? activeJournal() : null;
+        if (j != null) {
+            inFlightReads.clear();
+            return j.submit(operation, RequestEncoder.bodyFragment(operation, body));
+        }
+        ConnectionPool p = pool;
+        if (p == null || !p.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("A conexão não está ativa."));
+        }
+        String requestToken = operation.isAuthenticated() ? this.token : null;
+        if (operation.isMutation()) {
+            // Leituras já em voo podem não refletir a mutação: as próximas vão ao servidor
+            inFlightReads.clear();
+        } else if (sink == null && operation.isCoalescable()) {
+            return coalesce(requestToken + "\n" + RequestEncoder.requestKey(operation, body),
+                    () -> withRetry(p, operation, null, () -> p.send(operation, requestToken, body, null)));
         }
-        System.out.println("[SERVIDOR->CLIENTE] Resposta: " + responseStr);
+        DeliveryTrackingSink tracked = sink != null && operation.isIdempotent() ? new DeliveryTrackingSink(sink) : null;
+        JsonStreamDecoder.ElementSink effectiveSink = tracked != null ? tracked : sink;
+        CompletableFuture<JSONObject> result = withRetry(p, operation, tracked,
+                () -> p.send(operation, requestToken, body, effectiveSink));
+        if (!operation.isMutation() || mutationListeners.isEmpty()) {
+            return result;
+        }
+
+        // Só quem escuta mutações paga pela reconstrução da requisição em JSONObject
+        JSONObject payload = RequestEncoder.toJson(operation, body);
+        return result.thenApply(response -> {
+            notifyMutation(operation, payload, response);
+            return response;
+        });
+    }
 
+    /**
+     * Single-flight: enquanto uma leitura está em voo, as idênticas recebem a mesma resposta em vez
+     * de irem ao servidor (cliques duplos, troca rápida de abas, prefetch e clique no mesmo filme).
+     * A resposta é compartilhada e deve ser tratada como somente leitura. Leituras com ElementSink
+     * não entram, porque cada chamador quer os elementos entregues a ele.
+     */
+    private CompletableFuture<JSONObject> coalesce(String key, Supplier<CompletableFuture<JSONObject>> send) {
+        CompletableFuture<JSONObject> shared = new CompletableFuture<>();
+        CompletableFuture<JSONObject> existing = inFlightReads.putIfAbsent(key, shared);
+        if (existing != null) {
+            metrics.recordCoalesced();
+            // Cópia: quem cancelar ou completar o seu futuro não afeta os demais
+            return existing.copy();
+        }
+        CompletableFuture<JSONObject> result;
         try {
-            return new JSONObject(responseStr);
-        } catch (JSONException e) {
-            return new JSONObject()
+            result = send.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((response, error) -> {
+            // Sai do mapa antes de completar: quem chegar depois faz uma leitura nova
+            inFlightReads.remove(key, shared);
+            if (error != null) shared.completeExceptionally(error);
+            else shared.complete(response);
+        });
+        return shared.copy();
+    }
+
+    /**
+     * Envia uma entrada do diário com a sua chave de idempotência. Sem reenvio automático: quem
+     * decide quando tentar de novo é o diário, sempre na ordem das entradas.
+     * Se o servidor recusar a requisição com a chave e aceitar a mesma sem ela, a chave deixa de
+     * ser enviada (como o LOTE em sendEnvelope).
+     */
+    private CompletableFuture<JSONObject> sendJournaled(Operation operation, String bodyFragment, String dedupKey) {
+        ConnectionPool p = pool;
+        if (p == null || !p.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("A conexão não está ativa."));
+        }
+        inFlightReads.clear();
+        String requestToken = token;
+        RequestEncoder.Body plain = enc -> enc.raw(bodyFragment);
+        CompletableFuture<JSONObject> result;
+        if (!dedupSupported) {
+            result = p.send(operation, requestToken, plain, null);
+        } else {
+            result = p.send(operation, requestToken, enc -> enc
+                    .raw(bodyFragment)
+                    .string(RequestEncoder.CHAVE_IDEMPOTENCIA, dedupKey), null).thenCompose(response -> {
+                if (!isFieldRejection(response.optString("status"))) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                // Recusada: pode ser o corpo ou o campo desconhecido; sem a chave se sabe qual
+                return p.send(operation, requestToken, plain, null).thenApply(retried -> {
+                    if (retried.optString("status").startsWith("2")) {
+                        dedupSupported = false;
+                        WireLogger.notice(operation.name(), response.optString("status"),
+                                "servidor recusou chave_idempotencia; o diário segue sem ela");
+                    }
+                    return retried;
+                });
+            });
+        }
+        if (mutationListeners.isEmpty()) {
+            return result;
+        }
+        return result.thenApply(response -> {
+            notifyMutation(operation, RequestEncoder.toJson(operation, enc -> enc.raw(bodyFragment)), response);
+            return response;
+        });
+    }
+
+    private static boolean isFieldRejection(String status) {
+        return "400".equals(status) || "405".equals(status) || "422".equals(status);
+    }
+
+    private void notifyMutation(Operation operation, JSONObject payload, JSONObject response) {
+        if (!response.optString("status").startsWith("2")) return;
+        for (MutationListener listener : mutationListeners) {
+            listener.onMutation(operation.name(), payload, response);
+        }
+    }
+
+    // --- LOTES ---
+
+    public BatchResult sendBatch(List<BatchItem> items) throws IOException {
+        return await(sendBatchAsync(items));
+    }
+
+    /**
+     * Envia os itens em envelopes LOTE de até voteflix.batch.limit itens, todos em pipeline:
+     * milhares de exclusões custam uma ida e volta, não uma por item. Se o servidor não
+     * reconhecer o envelope, os itens são enviados um a um (também em pipeline). Com o diário
+     * em uso (sem conexão ou com entradas na fila), os itens entram nele um a um, atrás do que
+     * já estiver guardado, em vez de um envelope que passaria na frente.
+     * Os ouvintes de mutação recebem cada item concluído, como se tivesse sido enviado sozinho.
+     */
+    public CompletableFuture<BatchResult> sendBatchAsync(List<BatchItem> items) {
+        List<CompletableFuture<List<JSONObject>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += BATCH_LIMIT) {
+            List<BatchItem> chunk = List.copyOf(items.subList(from, Math.min(items.size(), from + BATCH_LIMIT)));
+            if (activeJournal() != null) {
+                chunks.add(sendPipelined(chunk));
+                continue;
+            }
+            CompletableFuture<List<JSONObject>> sent = batchSupported ? sendEnvelope(chunk) : sendPipelined(chunk);
+            chunks.add(journal != null ? sent.exceptionallyCompose(e -> journalChunk(chunk, e)) : sent);
+        }
+        return joinAll(chunks).thenApply(results -> {
+            List<JSONObject> responses = new ArrayList<>(items.size());
+            for (List<JSONObject> chunk : results) responses.addAll(chunk);
+            return new BatchResult(responses);
+        });
+    }
+
+    private CompletableFuture<List<JSONObject>> sendEnvelope(List<BatchItem> chunk) {
+        ConnectionPool p = pool;
+        if (p == null || !p.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("A conexão não está ativa."));
+        }
+        RequestEncoder.Body envelope = enc -> {
+            enc.beginArray(RequestEncoder.ITENS);
+            for (BatchItem item : chunk) {
+                enc.beginItem(item.operation());
+                item.body().writeTo(enc);
+                enc.endItem();
+            }
+            enc.endArray();
+        };
+        return p.send(Operation.LOTE, token, envelope, null).thenCompose(response -> {
+            JSONArray results = response.optJSONArray("resultados");
+            if (results == null) {
+                String status = response.optString("status");
+                if ("401".equals(status) || "403".equals(status)) {
+                    // Recusa do envelope inteiro: vale para cada item
+                    return CompletableFuture.completedFuture(Collections.nCopies(chunk.size(), response));
+                }
+                WireLogger.notice(Operation.LOTE.name(), status, "servidor sem suporte a LOTE; enviando os itens um a um");
+                batchSupported = false;
+                return sendPipelined(chunk);
+            }
+            List<JSONObject> responses = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                JSONObject r = results.optJSONObject(i);
+                if (r == null) r = new JSONObject().put("status", "500").put("mensagem", "Item sem resposta no lote.");
+                responses.add(r);
+                BatchItem item = chunk.get(i);
+                if (!mutationListeners.isEmpty() && item.operation().isMutation()) {
+                    notifyMutation(item.operation(), RequestEncoder.toJson(item.operation(), item.body()), r);
+                }
+            }
+            return CompletableFuture.completedFuture(responses);
+        });
+    }
+
+    /**
+     * O envelope falhou por falta de conexão: os itens vão para o diário um a um e saem depois.
+     * O servidor pode ter aplicado parte do lote antes da queda; as exclusões repetidas voltam 404,
+     * o que o diário não trata como conflito.
+     */
+    private CompletableFuture<List<JSONObject>> journalChunk(List<BatchItem> chunk, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        MutationJournal j = journal;
+        if (!(cause instanceof IOException) || j == null) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        List<CompletableFuture<JSONObject>> futures = new ArrayList<>(chunk.size());
+        for (BatchItem item : chunk) {
+            futures.add(item.operation().isJournaled()
+                    ? j.submit(item.operation(), RequestEncoder.bodyFragment(item.operation(), item.body()))
+                    : CompletableFuture.failedFuture(cause));
+        }
+        return joinAll(futures);
+    }
+
+    private CompletableFuture<List<JSONObject>> sendPipelined(List<BatchItem> chunk) {
+        List<CompletableFuture<JSONObject>> futures = new ArrayList<>(chunk.size());
+        for (BatchItem item : chunk) {
+            futures.add(sendRequestAsync(item.operation(), item.body()).exceptionally(e -> new JSONObject()
                     .put("status", "500")
-                    .put("mensagem", "Resposta inválida (não-JSON) do servidor: " + responseStr);
+                    .put("mensagem", "Falha de comunicação: " + (e.getCause() != null ? e.getCause() : e).getMessage())));
+        }
+        return joinAll(futures);
+    }
+
+    /** Completa com os resultados na ordem dos futuros, depois que todos completarem. */
+    private static <T> CompletableFuture<List<T>> joinAll(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Reenvia a operação idempotente que falhou por queda de conexão, assim que o pool voltar a
+     * ter uma conexão ativa. Com um ElementSink, só reenvia se nenhum elemento tiver sido entregue.
+     */
+    private CompletableFuture<JSONObject> withRetry(ConnectionPool p, Operation operation, DeliveryTrackingSink tracked,
+                                                    Supplier<CompletableFuture<JSONObject>> attempt) {
+        CompletableFuture<JSONObject> first = attempt.get();
+        if (!operation.isIdempotent()) {
+            return first;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RETRY_TIMEOUT_MILLIS);
+        return retryOnFailure(first, p, tracked, attempt, 1, deadline);
+    }
+
+    private CompletableFuture<JSONObject> retryOnFailure(CompletableFuture<JSONObject> current, ConnectionPool p,
+                                                         DeliveryTrackingSink tracked,
+                                                         Supplier<CompletableFuture<JSONObject>> attempt,
+                                                         int attempts, long deadline) {
+        return current.handle((response, error) -> {
+            if (error == null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                cause = new IOException("O servidor não voltou a responder a tempo.", cause);
+            }
+            long remaining = deadline - System.nanoTime();
+            if (!(cause instanceof IOException) || attempts >= RETRY_ATTEMPTS || remaining <= 0
+                    || pool != p || !p.isOpen() || (tracked != null && tracked.delivered)) {
+                return CompletableFuture.<JSONObject>failedFuture(cause);
+            }
+            CompletableFuture<JSONObject> next = p.whenConnected()
+                    .orTimeout(remaining, TimeUnit.NANOSECONDS)
+                    .thenComposeAsync(ignored -> {
+                        metrics.recordRetry();
+                        return attempt.get();
+                    }, RETRY_EXECUTOR);
+            return retryOnFailure(next, p, tracked, attempt, attempts + 1, deadline);
+        }).thenCompose(f -> f);
+    }
+
+    public void addMutationListener(MutationListener listener) {
+        mutationListeners.add(listener);
+    }
+
+    public void removeMutationListener(MutationListener listener) {
+        mutationListeners.remove(listener);
+    }
+
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Requisição interrompida.");
         }
     }
 
     // --- MÉTODOS DE CONTA E USUÁRIO ---
 
     public JSONObject registerUser(String nome, String password) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "CRIAR_USUARIO");
-        JSONObject userData = new JSONObject();
-        userData.put("nome", nome);
-        userData.put("senha", password);
-        request.put("usuario", userData);
-        return sendRequest(request);
+        return await(registerUserAsync(nome, password));
+    }
+
+    public CompletableFuture<JSONObject> registerUserAsync(String nome, String password) {
+        return sendRequestAsync(Operation.CRIAR_USUARIO, enc -> enc
+                .beginObject(RequestEncoder.USUARIO)
+                .string(RequestEncoder.NOME, nome)
+                .string(RequestEncoder.SENHA, password)
+                .endObject());
     }
 
     public JSONObject loginUser(String login, String password) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "LOGIN");
-        request.put("usuario", login);
-        request.put("senha", password);
-        JSONObject response = sendRequest(request);
-        if (response.has("token")) {
-            this.token = response.getString("token");
+        return await(loginUserAsync(login, password));
+    }
+
+    public CompletableFuture<JSONObject> loginUserAsync(String login, String password) {
+        ConnectionPool p = pool;
+        if (p == null || !p.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("A conexão não está ativa."));
         }
-        return response;
+        return withRetry(p, Operation.LOGIN, null, () -> p.login(login, password)).thenApply(response -> {
+            if (response.has("token")) {
+                this.token = response.getString("token");
+                if (offlineJournal) openJournal(login);
+            }
+            return response;
+        });
+    }
+
+    // O que tiver ficado de uma sessão anterior do usuário começa a sair já
+    private void openJournal(String login) {
+        closeJournal();
+        try {
+            MutationJournal j = MutationJournal.open(serverAddress, login, this, this::sendJournaled);
+            j.setConflictListener(journalListener);
+            journal = j;
+        } catch (IOException e) {
+            WireLogger.warn("NetworkService", "Diário de mutações indisponível; as alterações irão direto ao servidor: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        MutationJournal j = journal;
+        journal = null;
+        if (j != null) j.close();
     }
 
     public JSONObject viewProfile() throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "LISTAR_PROPRIO_USUARIO");
-        request.put("token", this.token);
-        return sendRequest(request);
+        return await(viewProfileAsync());
+    }
+
+    public CompletableFuture<JSONObject> viewProfileAsync() {
+        return sendRequestAsync(Operation.LISTAR_PROPRIO_USUARIO, RequestEncoder.EMPTY);
     }
 
     public JSONObject updateUserPassword(String newPassword) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "EDITAR_PROPRIO_USUARIO");
-        request.put("token", this.token);
-        JSONObject userData = new JSONObject();
-        userData.put("senha", newPassword);
-        request.put("usuario", userData);
-        return sendRequest(request);
+        return await(updateUserPasswordAsync(newPassword));
+    }
+
+    public CompletableFuture<JSONObject> updateUserPasswordAsync(String newPassword) {
+        return sendRequestAsync(Operation.EDITAR_PROPRIO_USUARIO, enc -> enc
+                .beginObject(RequestEncoder.USUARIO)
+                .string(RequestEncoder.SENHA, newPassword)
+                .endObject()).thenApply(response -> {
+            // O login automático das reconexões passa a usar a senha nova
+            ConnectionPool p = pool;
+            if (p != null && response.optString("status").startsWith("2")) p.onPasswordChanged(newPassword);
+            return response;
+        });
     }
 
     public JSONObject deleteUser() throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "EXCLUIR_PROPRIO_USUARIO");
-        request.put("token", this.token);
-        return sendRequest(request);
+        return await(deleteUserAsync());
+    }
+
+    public CompletableFuture<JSONObject> deleteUserAsync() {
+        return sendRequestAsync(Operation.EXCLUIR_PROPRIO_USUARIO, RequestEncoder.EMPTY);
     }
 
     public JSONObject logoutUser() throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "LOGOUT");
-        request.put("token", this.token);
-        JSONObject response = sendRequest(request);
+        closeJournal();
+        JSONObject response = await(sendRequestAsync(Operation.LOGOUT, RequestEncoder.EMPTY));
         this.token = null;
         closeConnection();
         return response;
@@ -111,62 +554,90 @@ public class NetworkService {
     // --- MÉTODOS DE FILMES ---
 
     public JSONObject listAllMovies() throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "LISTAR_FILMES");
-        request.put("token", this.token);
-        return sendRequest(request);
+        return await(listAllMoviesAsync());
+    }
+
+    public CompletableFuture<JSONObject> listAllMoviesAsync() {
+        return sendRequestAsync(Operation.LISTAR_FILMES, RequestEncoder.EMPTY);
+    }
+
+    /**
+     * Lista o catálogo entregando cada filme a onMovie assim que é decodificado, sem montar o array
+     * inteiro. O futuro devolve só o envelope (status, mensagem).
+     * onMovie é chamado na thread leitora da conexão.
+     */
+    public CompletableFuture<JSONObject> streamAllMoviesAsync(Consumer<JSONObject> onMovie) {
+        return sendRequestAsync(Operation.LISTAR_FILMES, RequestEncoder.EMPTY, arraySink("filmes", onMovie));
+    }
+
+    /**
+     * Busca um filme entregando suas reviews uma a uma a onReview; o futuro traz o envelope e o "filme".
+     */
+    public CompletableFuture<JSONObject> streamMovieByIdAsync(String idFilme, Consumer<JSONObject> onReview) {
+        return sendRequestAsync(Operation.BUSCAR_FILME_ID, enc -> enc.string(RequestEncoder.ID_FILME, idFilme),
+                arraySink("reviews", onReview));
+    }
+
+    /**
+     * Busca uma página do catálogo. cursor é opaco: null para a primeira página,
+     * depois o "proximo_cursor" devolvido pelo servidor.
+     */
+    public CompletableFuture<JSONObject> listMoviesPageAsync(int pageSize, String cursor) {
+        return sendPaged(Operation.LISTAR_FILMES, pageSize, cursor);
+    }
+
+    public PageIterator moviePages(int pageSize) {
+        return new PageIterator(cursor -> listMoviesPageAsync(pageSize, cursor), "filmes");
     }
 
     /**
      * [cite_start]Busca filme por ID para ver detalhes e reviews[cite: 14].
      */
     public JSONObject getMovieById(String idFilme) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "BUSCAR_FILME_ID");
-        request.put("id_filme", idFilme);
-        request.put("token", this.token);
-        return sendRequest(request);
+        return await(getMovieByIdAsync(idFilme));
     }
 
-    public JSONObject createMovie(String titulo, String diretor, String ano, String generos, String sinopse) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "CRIAR_FILME");
-        request.put("token", this.token);
+    public CompletableFuture<JSONObject> getMovieByIdAsync(String idFilme) {
+        return sendRequestAsync(Operation.BUSCAR_FILME_ID, enc -> enc.string(RequestEncoder.ID_FILME, idFilme));
+    }
 
-        JSONObject filmeData = new JSONObject();
-        filmeData.put("titulo", titulo);
-        filmeData.put("diretor", diretor);
-        filmeData.put("ano", ano);
-        filmeData.put("genero", new JSONArray(generos.split(",")));
-        filmeData.put("sinopse", sinopse);
+    public JSONObject createMovie(String titulo, String diretor, String ano, String generos, String sinopse) throws IOException {
+        return await(createMovieAsync(titulo, diretor, ano, generos, sinopse));
+    }
 
-        request.put("filme", filmeData);
-        return sendRequest(request);
+    public CompletableFuture<JSONObject> createMovieAsync(String titulo, String diretor, String ano, String generos, String sinopse) {
+        return sendRequestAsync(Operation.CRIAR_FILME, enc -> enc
+                .beginObject(RequestEncoder.FILME)
+                .string(RequestEncoder.TITULO, titulo)
+                .string(RequestEncoder.DIRETOR, diretor)
+                .string(RequestEncoder.ANO, ano)
+                .csvArray(RequestEncoder.GENERO, generos)
+                .string(RequestEncoder.SINOPSE, sinopse)
+                .endObject());
     }
 
     public JSONObject updateMovie(String id, String titulo, String diretor, String ano, String generos, String sinopse) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "EDITAR_FILME");
-        request.put("token", this.token);
-
-        JSONObject filmeData = new JSONObject();
-        filmeData.put("id", id);
-        filmeData.put("titulo", titulo);
-        filmeData.put("diretor", diretor);
-        filmeData.put("ano", ano);
-        filmeData.put("genero", new JSONArray(generos.split(",")));
-        filmeData.put("sinopse", sinopse);
+        return await(updateMovieAsync(id, titulo, diretor, ano, generos, sinopse));
+    }
 
-        request.put("filme", filmeData);
-        return sendRequest(request);
+    public CompletableFuture<JSONObject> updateMovieAsync(String id, String titulo, String diretor, String ano, String generos, String sinopse) {
+        return sendRequestAsync(Operation.EDITAR_FILME, enc -> enc
+                .beginObject(RequestEncoder.FILME)
+                .string(RequestEncoder.ID, id)
+                .string(RequestEncoder.TITULO, titulo)
+                .string(RequestEncoder.DIRETOR, diretor)
+                .string(RequestEncoder.ANO, ano)
+                .csvArray(RequestEncoder.GENERO, generos)
+                .string(RequestEncoder.SINOPSE, sinopse)
+                .endObject());
     }
 
     public JSONObject deleteMovie(String id) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "EXCLUIR_FILME");
-        request.put("token", this.token);
-        request.put("id", id);
-        return sendRequest(request);
+        return await(deleteMovieAsync(id));
+    }
+
+    public CompletableFuture<JSONObject> deleteMovieAsync(String id) {
+        return sendRequestAsync(Operation.EXCLUIR_FILME, enc -> enc.string(RequestEncoder.ID, id));
     }
 
     // --- MÉTODOS DE REVIEWS (Novos) ---
@@ -175,91 +646,170 @@ public class NetworkService {
      * [cite_start]Cria uma nova review para um filme[cite: 5].
      */
     public JSONObject createReview(String idFilme, String titulo, String descricao, String nota) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "CRIAR_REVIEW");
-        request.put("token", this.token);
-
-        JSONObject reviewData = new JSONObject();
-        reviewData.put("id_filme", idFilme);
-        reviewData.put("titulo", titulo);
-        reviewData.put("descricao", descricao);
-        reviewData.put("nota", nota);
+        return await(createReviewAsync(idFilme, titulo, descricao, nota));
+    }
 
-        request.put("review", reviewData);
-        return sendRequest(request);
+    public CompletableFuture<JSONObject> createReviewAsync(String idFilme, String titulo, String descricao, String nota) {
+        return sendRequestAsync(Operation.CRIAR_REVIEW, enc -> enc
+                .beginObject(RequestEncoder.REVIEW)
+                .string(RequestEncoder.ID_FILME, idFilme)
+                .string(RequestEncoder.TITULO, titulo)
+                .string(RequestEncoder.DESCRICAO, descricao)
+                .string(RequestEncoder.NOTA, nota)
+                .endObject());
     }
 
     /**
      * [cite_start]Edita uma review existente[cite: 23].
      */
     public JSONObject updateReview(String idReview, String titulo, String descricao, String nota) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "EDITAR_REVIEW");
-        request.put("token", this.token);
-
-        JSONObject reviewData = new JSONObject();
-        reviewData.put("id", idReview);
-        reviewData.put("titulo", titulo);
-        reviewData.put("descricao", descricao);
-        reviewData.put("nota", nota);
+        return await(updateReviewAsync(idReview, titulo, descricao, nota));
+    }
 
-        request.put("review", reviewData);
-        return sendRequest(request);
+    public CompletableFuture<JSONObject> updateReviewAsync(String idReview, String titulo, String descricao, String nota) {
+        return sendRequestAsync(Operation.EDITAR_REVIEW, enc -> enc
+                .beginObject(RequestEncoder.REVIEW)
+                .string(RequestEncoder.ID, idReview)
+                .string(RequestEncoder.TITULO, titulo)
+                .string(RequestEncoder.DESCRICAO, descricao)
+                .string(RequestEncoder.NOTA, nota)
+                .endObject());
     }
 
     /**
      * [cite_start]Exclui uma review (Própria ou por Admin)[cite: 29].
      */
     public JSONObject deleteReview(String idReview) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "EXCLUIR_REVIEW");
-        request.put("token", this.token);
-        request.put("id", idReview);
-        return sendRequest(request);
+        return await(deleteReviewAsync(idReview));
+    }
+
+    public CompletableFuture<JSONObject> deleteReviewAsync(String idReview) {
+        return sendRequestAsync(Operation.EXCLUIR_REVIEW, enc -> enc.string(RequestEncoder.ID, idReview));
     }
 
     public JSONObject listMyReviews() throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "LISTAR_REVIEWS_USUARIO");
-        request.put("token", this.token);
-        return sendRequest(request);
+        return await(listMyReviewsAsync());
+    }
+
+    public CompletableFuture<JSONObject> listMyReviewsAsync() {
+        return sendRequestAsync(Operation.LISTAR_REVIEWS_USUARIO, RequestEncoder.EMPTY);
+    }
+
+    public CompletableFuture<JSONObject> listMyReviewsPageAsync(int pageSize, String cursor) {
+        return sendPaged(Operation.LISTAR_REVIEWS_USUARIO, pageSize, cursor);
+    }
+
+    public PageIterator myReviewPages(int pageSize) {
+        return new PageIterator(cursor -> listMyReviewsPageAsync(pageSize, cursor), "reviews");
     }
 
     // --- MÉTODOS DE ADMINISTRAÇÃO DE USUÁRIOS ---
 
     public JSONObject listAllUsers() throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "LISTAR_USUARIOS");
-        request.put("token", this.token);
-        return sendRequest(request);
+        return await(listAllUsersAsync());
+    }
+
+    public CompletableFuture<JSONObject> listAllUsersAsync() {
+        return sendRequestAsync(Operation.LISTAR_USUARIOS, RequestEncoder.EMPTY);
+    }
+
+    public CompletableFuture<JSONObject> listUsersPageAsync(int pageSize, String cursor) {
+        return sendPaged(Operation.LISTAR_USUARIOS, pageSize, cursor);
+    }
+
+    public PageIterator userPages(int pageSize) {
+        return new PageIterator(cursor -> listUsersPageAsync(pageSize, cursor), "usuarios");
     }
 
     public JSONObject deleteOtherUser(String id) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "ADMIN_EXCLUIR_USUARIO");
-        request.put("token", this.token);
-        request.put("id", id);
-        return sendRequest(request);
+        return await(deleteOtherUserAsync(id));
     }
 
-    public JSONObject updateOtherUserPassword(String id, String newPassword) throws IOException {
-        JSONObject request = new JSONObject();
-        request.put("operacao", "ADMIN_EDITAR_USUARIO");
-        request.put("token", this.token);
-        request.put("id", id);
+    public CompletableFuture<JSONObject> deleteOtherUserAsync(String id) {
+        return sendRequestAsync(Operation.ADMIN_EXCLUIR_USUARIO, enc -> enc.string(RequestEncoder.ID, id));
+    }
 
-        JSONObject userData = new JSONObject();
-        userData.put("senha", newPassword);
-        request.put("usuario", userData);
+    public JSONObject updateOtherUserPassword(String id, String newPassword) throws IOException {
+        return await(updateOtherUserPasswordAsync(id, newPassword));
+    }
 
-        return sendRequest(request);
+    public CompletableFuture<JSONObject> updateOtherUserPasswordAsync(String id, String newPassword) {
+        return sendRequestAsync(Operation.ADMIN_EDITAR_USUARIO, enc -> enc
+                .string(RequestEncoder.ID, id)
+                .beginObject(RequestEncoder.USUARIO)
+                .string(RequestEncoder.SENHA, newPassword)
+                .endObject());
     }
 
     public void closeConnection() throws IOException {
-        if (in != null) in.close();
-        if (out != null) out.close();
-        if (clientSocket != null && !clientSocket.isClosed()) {
-            clientSocket.close();
+        closeJournal();
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private static JsonStreamDecoder.ElementSink arraySink(String field, Consumer<JSONObject> consumer) {
+        return new JsonStreamDecoder.ElementSink() {
+            @Override public boolean wants(String name) {
+                return field.equals(name);
+            }
+            @Override public void accept(String name, Object element) {
+                if (element instanceof JSONObject obj) consumer.accept(obj);
+            }
+        };
+    }
+
+    /** Anota se o sink já recebeu algum elemento; depois disso a requisição não pode ser repetida. */
+    private static final class DeliveryTrackingSink implements JsonStreamDecoder.ElementSink {
+        private final JsonStreamDecoder.ElementSink target;
+        volatile boolean delivered;
+
+        DeliveryTrackingSink(JsonStreamDecoder.ElementSink target) {
+            this.target = target;
         }
+
+        @Override public boolean wants(String field) {
+            return target.wants(field);
+        }
+
+        @Override public void accept(String field, Object element) {
+            delivered = true;
+            target.accept(field, element);
+        }
+    }
+
+    /**
+     * Pede uma página da listagem. Um servidor que ignora limite e cursor devolve tudo sem
+     * "proximo_cursor", o que o PageIterator já trata como página única. Se ele recusar os
+     * campos e aceitar a listagem sem eles, a operação passa a ir sempre inteira (como o LOTE
+     * em sendEnvelope). Um cursor só existe se o servidor paginou: esse segue paginado.
+     */
+    private CompletableFuture<JSONObject> sendPaged(Operation operation, int pageSize, String cursor) {
+        if (cursor == null && unpaged.contains(operation)) {
+            return sendRequestAsync(operation, RequestEncoder.EMPTY);
+        }
+        CompletableFuture<JSONObject> paged = sendRequestAsync(operation, paging(pageSize, cursor));
+        if (cursor != null) return paged;
+        return paged.thenCompose(response -> {
+            if (!isFieldRejection(response.optString("status"))) {
+                return CompletableFuture.completedFuture(response);
+            }
+            return sendRequestAsync(operation, RequestEncoder.EMPTY).thenApply(whole -> {
+                if (whole.optString("status").startsWith("2") && unpaged.add(operation)) {
+                    WireLogger.notice(operation.name(), response.optString("status"),
+                            "servidor recusou limite/cursor; listando sem paginação");
+                }
+                return whole;
+            });
+        });
+    }
+
+    static RequestEncoder.Body paging(int pageSize, String cursor) {
+        return enc -> {
+            enc.number(RequestEncoder.LIMITE, pageSize);
+            if (cursor != null) {
+                enc.string(RequestEncoder.CURSOR, cursor);
+            }
+        };
     }
-}
\ No newline at end of file
+}
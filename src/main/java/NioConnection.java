@@ -0,0 +1,220 @@
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Transporte não bloqueante: um SocketChannel atendido pela thread única do NioEventLoop.
+ * Quem envia escreve direto no canal através de um ByteBuffer direto; o que não couber no
+ * buffer do socket vai para uma fila de saída que o seletor esvazia quando o canal permite.
+ * A thread de E/S só separa as linhas recebidas; a decodificação roda fora dela, em threads
+ * virtuais encadeadas, para que respostas grandes não atrasem as outras conexões.
+ * Como a linha só é decodificada depois de chegar inteira, os arrays pedidos por um
+ * ElementSink são entregues elemento a elemento, mas só após o fim da linha.
+ * Quadros comprimidos (DeflateFrames) são separados pelo tamanho do cabeçalho e descomprimidos
+ * também fora da thread de E/S, na mesma cadeia.
+ */
+public class NioConnection extends ServerConnection {
+
+    private static final int OUT_BUFFER_SIZE = 16 * 1024;
+    private static final int FRAME_INITIAL_SIZE = 8 * 1024;
+    private static final int FRAME_RETAIN_LIMIT = 1024 * 1024;
+    private static final ExecutorService DECODERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SocketChannel channel;
+    private final NioEventLoop loop;
+    volatile SelectionKey key;
+
+    // Escrita: protegidos pelo lock de pending
+    private final ByteBuffer outBuffer = ByteBuffer.allocateDirect(OUT_BUFFER_SIZE);
+    private final Deque<ByteBuffer> backlog = new ArrayDeque<>();
+
+    // Leitura: usados só pela thread de E/S
+    private byte[] frame = new byte[FRAME_INITIAL_SIZE];
+    private int frameLength;
+    private long frameStartNanos;
+    // Bytes que faltam do quadro comprimido em curso (-1 fora de um quadro)
+    private int binaryRemaining = -1;
+    private boolean binaryHeader;
+    private CompletableFuture<Void> decodeTail = CompletableFuture.completedFuture(null);
+
+    // Usado só dentro da cadeia de decodificação, uma linha por vez
+    private final JsonStreamDecoder decoder = new JsonStreamDecoder();
+
+    public NioConnection(String ip, int port, int compressionThreshold, NetworkMetrics metrics) throws IOException {
+        super(metrics, compressionThreshold);
+        CONNECTION_COUNTER.incrementAndGet();
+        channel = SocketChannel.open(new InetSocketAddress(ip, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+        channel.configureBlocking(false);
+        loop = NioEventLoop.get();
+        loop.register(channel, this);
+    }
+
+    @Override
+    protected void write(RequestEncoder encoded) throws IOException {
+        int length = encoded.length();
+        if (!backlog.isEmpty()) {
+            // Ainda há bytes anteriores na fila: escrever agora inverteria a ordem no fio
+            backlog.addLast(ByteBuffer.wrap(encoded.toByteArray(0)));
+            return;
+        }
+        int offset = 0;
+        while (offset < length) {
+            outBuffer.clear();
+            offset += encoded.copyTo(offset, outBuffer);
+            outBuffer.flip();
+            channel.write(outBuffer);
+            if (outBuffer.hasRemaining()) {
+                // Buffer do socket cheio: o restante segue pela thread de E/S
+                byte[] rest = new byte[outBuffer.remaining()];
+                outBuffer.get(rest);
+                backlog.addLast(ByteBuffer.wrap(rest));
+                if (offset < length) backlog.addLast(ByteBuffer.wrap(encoded.toByteArray(offset)));
+                loop.requestWrite(this);
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected void writeFrame(byte[] frame, int length) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(frame, 0, length);
+        boolean idle = backlog.isEmpty();
+        if (idle) channel.write(data);
+        if (data.hasRemaining()) {
+            // Cópia: o array do quadro é reaproveitado na próxima requisição
+            byte[] rest = new byte[data.remaining()];
+            data.get(rest);
+            backlog.addLast(ByteBuffer.wrap(rest));
+            if (idle) loop.requestWrite(this);
+        }
+    }
+
+    /** Thread de E/S: o canal aceita escrita; esvazia a fila de saída. */
+    void onWritable() throws IOException {
+        synchronized (pending) {
+            while (!backlog.isEmpty()) {
+                ByteBuffer head = backlog.peekFirst();
+                outBuffer.clear();
+                int chunk = Math.min(head.remaining(), outBuffer.remaining());
+                outBuffer.put(outBuffer.position(), head, head.position(), chunk);
+                outBuffer.limit(chunk);
+                int written = channel.write(outBuffer);
+                head.position(head.position() + written);
+                if (head.hasRemaining()) return; // continua na próxima vez que o canal aceitar escrita
+                backlog.pollFirst();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /** Thread de E/S: separa as linhas completas e as encaminha para decodificação. */
+    void onReadable(ByteBuffer readBuffer) throws IOException {
+        readBuffer.clear();
+        int n = channel.read(readBuffer);
+        if (n < 0) {
+            onFailure(new IOException("O servidor encerrou a conexão inesperadamente."));
+            return;
+        }
+        long now = System.nanoTime();
+        int i = 0;
+        while (i < n) {
+            if (binaryRemaining < 0 && frameLength == 0 && frames != null && readBuffer.get(i) == DeflateFrames.MARKER) {
+                binaryRemaining = DeflateFrames.HEADER_SIZE;
+                binaryHeader = true;
+            }
+            if (binaryRemaining >= 0) {
+                int count = Math.min(binaryRemaining, n - i);
+                appendToFrame(readBuffer, i, count, now);
+                i += count;
+                binaryRemaining -= count;
+                if (binaryRemaining == 0 && binaryHeader) {
+                    binaryHeader = false;
+                    binaryRemaining = DeflateFrames.payloadLength(frame, 0);
+                }
+                if (binaryRemaining == 0) {
+                    binaryRemaining = -1;
+                    completeFrame(true);
+                }
+                continue;
+            }
+            int end = i;
+            while (end < n && readBuffer.get(end) != '\n') end++;
+            appendToFrame(readBuffer, i, end - i, now);
+            if (end < n) completeFrame(false);
+            i = end + 1;
+        }
+    }
+
+    private void appendToFrame(ByteBuffer source, int from, int count, long now) {
+        if (count <= 0) return;
+        if (frameLength == 0) frameStartNanos = now;
+        if (frameLength + count > frame.length) {
+            frame = Arrays.copyOf(frame, Math.max(frameLength + count, frame.length * 2));
+        }
+        source.get(from, frame, frameLength, count);
+        frameLength += count;
+    }
+
+    private void completeFrame(boolean compressed) {
+        if (frameLength == 0) return;
+        byte[] data = Arrays.copyOf(frame, frameLength);
+        long firstByteNanos = frameStartNanos;
+        frameLength = 0;
+        if (frame.length > FRAME_RETAIN_LIMIT) frame = new byte[FRAME_INITIAL_SIZE];
+        // Encadeado: as linhas de uma conexão são decodificadas e entregues na ordem de chegada
+        decodeTail = decodeTail.thenRunAsync(() -> decode(data, compressed, firstByteNanos), DECODERS);
+    }
+
+    private void decode(byte[] data, boolean compressed, long firstByteNanos) {
+        try {
+            JSONObject response;
+            try {
+                if (compressed) {
+                    frames.inflate(data, DeflateFrames.HEADER_SIZE, data.length - DeflateFrames.HEADER_SIZE);
+                    metrics.recordCompression(frames.inflatedLength() + 1L, data.length);
+                    decoder.reset(frames.inflated(), 0, frames.inflatedLength());
+                } else {
+                    decoder.reset(data, 0, data.length);
+                }
+                response = decoder.next(headSink);
+            } catch (JsonStreamDecoder.JsonFormatException e) {
+                response = invalidResponse(e);
+            }
+            // Uma linha conta também o '\n', que não ficou em data; um quadro já está inteiro
+            if (response != null) dispatch(response, compressed ? data.length : data.length + 1L, firstByteNanos);
+        } catch (IOException | RuntimeException e) {
+            // Uma falha aqui não pode interromper a cadeia das próximas linhas
+            onFailure(e instanceof IOException io ? io : new IOException("Falha ao processar resposta.", e));
+        }
+    }
+
+    void onFailure(IOException cause) {
+        fail(cause);
+    }
+
+    @Override
+    protected boolean isChannelOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    protected void closeChannel() {
+        try {
+            channel.close(); // também cancela a chave no seletor
+        } catch (IOException ignored) {
+        }
+    }
+}
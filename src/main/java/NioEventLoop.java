@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Thread de E/S única do transporte NIO: um Selector atende a leitura e a escrita pendente
+ * de todas as NioConnection do processo. Registros e mudanças de interesse pedidos por
+ * outras threads entram numa fila de tarefas executada pela própria thread do seletor.
+ * Um erro numa conexão derruba só ela; se o próprio seletor falhar, todas as conexões
+ * registradas falham (o pool reconecta) e a thread segue com um seletor novo.
+ */
+final class NioEventLoop {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static NioEventLoop instance;
+
+    // Trocado só pela thread do seletor, quando o anterior falha
+    private volatile Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // Buffer de leitura compartilhado: só a thread do seletor o usa
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private NioEventLoop() throws IOException {
+        selector = Selector.open();
+        Thread thread = new Thread(this::loop, "voteflix-nio");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static synchronized NioEventLoop get() throws IOException {
+        if (instance == null) instance = new NioEventLoop();
+        return instance;
+    }
+
+    void register(SocketChannel channel, NioConnection connection) {
+        execute(() -> {
+            try {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException | RuntimeException e) {
+                connection.onFailure(e instanceof IOException io ? io : new IOException("Falha ao registrar a conexão.", e));
+            }
+        });
+    }
+
+    /** Passa a observar a escrita da conexão até ela esvaziar a fila de saída. */
+    void requestWrite(NioConnection connection) {
+        execute(() -> {
+            SelectionKey key = connection.key;
+            if (key != null && key.isValid()) key.interestOpsOr(SelectionKey.OP_WRITE);
+        });
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void loop() {
+        while (true) {
+            try {
+                selector.select();
+            } catch (IOException | RuntimeException e) {
+                if (!replaceSelector(e)) return;
+                continue;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (CancelledKeyException ignored) {
+                    // Mudança de interesse numa conexão que acabou de fechar
+                } catch (RuntimeException e) {
+                    // Cada tarefa é de uma conexão só: as demais não podem ficar sem E/S
+                    WireLogger.warn("NioEventLoop", "Tarefa do transporte NIO falhou: " + e);
+                }
+            }
+
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                NioConnection connection = (NioConnection) key.attachment();
+                try {
+                    if (key.isReadable()) connection.onReadable(readBuffer);
+                    if (key.isValid() && key.isWritable()) connection.onWritable();
+                } catch (CancelledKeyException ignored) {
+                    // Conexão fechada por outra thread entre o select e o processamento
+                } catch (IOException e) {
+                    connection.onFailure(e);
+                } catch (RuntimeException e) {
+                    connection.onFailure(new IOException("Falha ao processar resposta.", e));
+                }
+            }
+        }
+    }
+
+    /** Falha todas as conexões do seletor quebrado e abre outro; as reconexões se registram nele. */
+    private boolean replaceSelector(Exception cause) {
+        Selector broken = selector;
+        List<SelectionKey> keys;
+        try {
+            keys = List.copyOf(broken.keys());
+        } catch (RuntimeException e) {
+            keys = List.of(); // seletor já fechado
+        }
+        for (SelectionKey key : keys) {
+            if (!(key.attachment() instanceof NioConnection connection)) continue;
+            try {
+                connection.onFailure(new IOException("Falha no seletor do transporte NIO.", cause));
+            } catch (RuntimeException ignored) {
+            }
+        }
+        try {
+            broken.close();
+        } catch (IOException ignored) {
+        }
+        while (true) {
+            try {
+                selector = Selector.open();
+                return true;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return false;
+                }
+            }
+        }
+    }
+}
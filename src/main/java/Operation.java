@@ -0,0 +1,86 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Operações do protocolo VoteFlix. Cada uma guarda o início já codificado da requisição
+ * ({"operacao":"...") para que o RequestEncoder não precise montá-lo a cada envio.
+ */
+public enum Operation {
+    CRIAR_USUARIO(true, false),
+    LOGIN(false, false),
+    LISTAR_PROPRIO_USUARIO(false, true),
+    EDITAR_PROPRIO_USUARIO(true, true),
+    EXCLUIR_PROPRIO_USUARIO(true, true),
+    LOGOUT(false, true),
+    LISTAR_FILMES(false, true),
+    BUSCAR_FILME_ID(false, true),
+    CRIAR_FILME(true, true),
+    EDITAR_FILME(true, true),
+    EXCLUIR_FILME(true, true),
+    CRIAR_REVIEW(true, true),
+    EDITAR_REVIEW(true, true),
+    EXCLUIR_REVIEW(true, true),
+    LISTAR_REVIEWS_USUARIO(false, true),
+    LISTAR_USUARIOS(false, true),
+    ADMIN_EXCLUIR_USUARIO(true, true),
+    ADMIN_EDITAR_USUARIO(true, true),
+    // Envelope com várias operações ("itens") e uma resposta por item ("resultados")
+    LOTE(true, true),
+    // Pede ao servidor quadros comprimidos nesta conexão (ver DeflateFrames)
+    NEGOCIAR_COMPRESSAO(false, false);
+
+    private final boolean mutation;
+    private final boolean authenticated;
+    final byte[] prefix;
+
+    Operation(boolean mutation, boolean authenticated) {
+        this.mutation = mutation;
+        this.authenticated = authenticated;
+        this.prefix = ("{\"operacao\":\"" + name() + "\"").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Se a operação altera dados no servidor. */
+    public boolean isMutation() {
+        return mutation;
+    }
+
+    /**
+     * Se repetir a requisição depois de uma queda de conexão não muda o resultado: as leituras,
+     * o LOGIN e as edições (que gravam os mesmos valores). Criações e exclusões não entram:
+     * repetidas, duplicariam o recurso ou responderiam 404 a uma exclusão que deu certo.
+     */
+    public boolean isIdempotent() {
+        return switch (this) {
+            case LOGIN, EDITAR_PROPRIO_USUARIO, EDITAR_FILME, EDITAR_REVIEW, ADMIN_EDITAR_USUARIO -> true;
+            default -> !mutation;
+        };
+    }
+
+    /**
+     * Se requisições idênticas em voo ao mesmo tempo podem dividir uma só ida ao servidor:
+     * apenas as leituras. LOGIN, LOGOUT e a negociação mudam o estado da sessão ou da conexão.
+     */
+    public boolean isCoalescable() {
+        return switch (this) {
+            case LISTAR_PROPRIO_USUARIO, LISTAR_FILMES, BUSCAR_FILME_ID, LISTAR_REVIEWS_USUARIO, LISTAR_USUARIOS -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Se a mutação passa pelo diário offline (MutationJournal): as de filmes, reviews e usuários
+     * feitas no painel. As da própria conta ficam de fora, pois mudam a sessão (senha, exclusão),
+     * e a troca de senha de outro usuário também, para a senha nunca ir em texto puro para o disco.
+     */
+    public boolean isJournaled() {
+        return switch (this) {
+            case CRIAR_FILME, EDITAR_FILME, EXCLUIR_FILME, CRIAR_REVIEW, EDITAR_REVIEW, EXCLUIR_REVIEW,
+                 ADMIN_EXCLUIR_USUARIO -> true;
+            default -> false;
+        };
+    }
+
+    /** Se a requisição leva o token da sessão. */
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+}
@@ -0,0 +1,124 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Percorre uma listagem paginada (LISTAR_FILMES, LISTAR_USUARIOS, LISTAR_REVIEWS_USUARIO) página a página.
+ * Nada é pedido na construção: a primeira página sai no primeiro next(), que quem está na EDT
+ * deve chamar em segundo plano. Daí em diante, a próxima página é pedida assim que a atual é
+ * entregue, para que já esteja a caminho quando for consumida. Uma página que falha continua
+ * pendente: o next() seguinte pede a mesma de novo.
+ * Se o servidor ignorar a paginação (sem "proximo_cursor" na resposta), a listagem inteira vem como uma única página.
+ */
+public class PageIterator implements Iterator<JSONArray> {
+
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("voteflix.page.size", 200);
+    public static final String NEXT_CURSOR_FIELD = "proximo_cursor";
+
+    /**
+     * Busca a página que começa no cursor informado (null para a primeira).
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+        CompletableFuture<JSONObject> fetch(String cursor);
+    }
+
+    private final PageFetcher fetcher;
+    private final String arrayField;
+    // Cursor da próxima página (null para a primeira) e o pedido dela, se já saiu
+    private String cursor;
+    private CompletableFuture<JSONObject> nextPage;
+    private boolean done;
+
+    public PageIterator(PageFetcher fetcher, String arrayField) {
+        this.fetcher = fetcher;
+        this.arrayField = arrayField;
+    }
+
+    /**
+     * Iterador de uma única página já disponível em memória (por exemplo, vinda de um cache).
+     */
+    public static PageIterator of(JSONObject response, String arrayField) {
+        return new PageIterator(cursor -> CompletableFuture.completedFuture(response), arrayField);
+    }
+
+    /** Não faz E/S: pode ser chamado da EDT. */
+    @Override
+    public synchronized boolean hasNext() {
+        return !done;
+    }
+
+    /**
+     * Bloqueia até a próxima página chegar.
+     *
+     * @throws UncheckedIOException se a conexão falhar ou o servidor responder com erro; a
+     *         página continua pendente e é pedida de novo na próxima chamada.
+     */
+    @Override
+    public synchronized JSONArray next() {
+        if (done) {
+            throw new NoSuchElementException();
+        }
+        if (nextPage == null) nextPage = fetcher.fetch(cursor);
+        JSONObject response;
+        try {
+            response = nextPage.join();
+        } catch (CompletionException e) {
+            nextPage = null;
+            Throwable cause = e.getCause();
+            throw new UncheckedIOException(cause instanceof IOException io ? io : new IOException(cause));
+        }
+
+        String status = response.optString("status");
+        if (!status.startsWith("2")) {
+            nextPage = null;
+            String message = StatusCodeHandler.getMessage(status);
+            if (response.has("mensagem")) message += "\nDetalhe: " + response.optString("mensagem");
+            throw new UncheckedIOException(new IOException(message));
+        }
+
+        cursor = response.optString(NEXT_CURSOR_FIELD, null);
+        done = cursor == null || cursor.isEmpty();
+        nextPage = done ? null : fetcher.fetch(cursor);
+
+        JSONArray items = response.optJSONArray(arrayField);
+        return items != null ? items : new JSONArray();
+    }
+
+    /**
+     * Os itens de todas as páginas como um Stream; as páginas são buscadas conforme o consumo avança.
+     */
+    public Stream<JSONObject> stream() {
+        Iterator<JSONObject> items = new Iterator<>() {
+            private JSONArray page = new JSONArray();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index >= page.length()) {
+                    if (!PageIterator.this.hasNext()) return false;
+                    page = PageIterator.this.next();
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public JSONObject next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.getJSONObject(index++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,278 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Estatísticas das notas de cada filme (quantidade, soma, histograma de 0 a 5, média e
+ * variância), montadas a partir das reviews de BUSCAR_FILME_ID e LISTAR_REVIEWS_USUARIO e
+ * mantidas pelas mutações confirmadas: criar, editar ou excluir uma review custa O(1), sem
+ * buscar o filme de novo nem percorrer a lista de reviews.
+ *
+ * Como as notas são inteiras, soma e soma dos quadrados são exatas e a média e a variância
+ * saem delas sem erro acumulado, mesmo depois de muitas remoções.
+ */
+public class RatingStats implements NetworkService.MutationListener {
+
+    public static final int MAX_SCORE = 5;
+    private static final String BARS = "▁▂▃▄▅▆▇█";
+    // Resultado das alterações que não mexem em nenhum filme (null: todos podem ter mudado)
+    private static final String UNCHANGED = "";
+
+    /** Retrato imutável das notas de um filme. */
+    public record Summary(int count, long sum, long sumOfSquares, int[] histogram) {
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /** Variância populacional das notas. */
+        public double variance() {
+            if (count == 0) return 0;
+            double mean = mean();
+            return Math.max(0, (double) sumOfSquares / count - mean * mean);
+        }
+
+        public double standardDeviation() {
+            return Math.sqrt(variance());
+        }
+
+        /** Quantas reviews deram a nota score. */
+        public int countOf(int score) {
+            return histogram[score];
+        }
+
+        /** "★ 4.2 (12) ▁▂▃▅█▆": média, quantidade e a distribuição das notas 0 a 5. */
+        public String shortText() {
+            if (count == 0) return "★ - (0)";
+            int max = 0;
+            for (int n : histogram) max = Math.max(max, n);
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "★ %.1f (%d) ", mean(), count));
+            for (int n : histogram) {
+                sb.append(n == 0 ? ' ' : BARS.charAt((int) ((long) (BARS.length() - 1) * n / max)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class Stats {
+        int count;
+        long sum;
+        long sumOfSquares;
+        final int[] histogram = new int[MAX_SCORE + 1];
+        // Reviews contadas aqui cujo id o cliente conhece
+        final Set<String> reviewIds = new HashSet<>();
+        // Reviews criadas nesta sessão cuja resposta não trouxe o id
+        int unindexed;
+
+        void add(int nota) {
+            count++;
+            sum += nota;
+            sumOfSquares += (long) nota * nota;
+            histogram[nota]++;
+        }
+
+        void remove(int nota) {
+            count--;
+            sum -= nota;
+            sumOfSquares -= (long) nota * nota;
+            histogram[nota]--;
+        }
+
+        Summary summary() {
+            return new Summary(count, sum, sumOfSquares, histogram.clone());
+        }
+    }
+
+    private record Indexed(String movieId, int nota) {}
+
+    // Protegidos pelo lock da instância
+    private final Map<String, Stats> byMovie = new HashMap<>();
+    private final Map<String, Indexed> byReview = new HashMap<>();
+
+    // Recebem o id do filme alterado, ou null quando todos podem ter mudado
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public RatingStats(NetworkService networkService) {
+        networkService.addMutationListener(this);
+    }
+
+    /** Os ouvintes são chamados na thread que aplicou a alteração (em geral, a de rede). */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /** As notas do filme, ou null se as reviews dele ainda não foram carregadas. */
+    public synchronized Summary get(String movieId) {
+        Stats stats = byMovie.get(movieId);
+        return stats == null ? null : stats.summary();
+    }
+
+    /** Monta as notas do filme a partir de uma resposta de BUSCAR_FILME_ID, trocando as anteriores. */
+    public void onMovieLoaded(String movieId, JSONObject response) {
+        JSONArray reviews = response.optJSONArray("reviews");
+        if (reviews == null) return;
+        synchronized (this) {
+            forget(movieId);
+            Stats stats = new Stats();
+            for (int i = 0; i < reviews.length(); i++) {
+                JSONObject review = reviews.optJSONObject(i);
+                int nota = review == null ? -1 : parseNota(review.optString("nota"));
+                if (nota < 0) continue;
+                stats.add(nota);
+                String id = review.optString("id");
+                if (!id.isEmpty()) {
+                    stats.reviewIds.add(id);
+                    byReview.put(id, new Indexed(movieId, nota));
+                }
+            }
+            byMovie.put(movieId, stats);
+        }
+        fire(movieId);
+    }
+
+    /**
+     * Confere as reviews do usuário com as notas já montadas: uma review que o cliente criou
+     * sem saber o id ganha o seu, e uma nota que mudou em outra sessão é corrigida. Filmes
+     * ainda não carregados não ganham notas parciais.
+     */
+    public void onUserReviews(JSONArray reviews) {
+        Set<String> changed = new HashSet<>();
+        synchronized (this) {
+            for (int i = 0; reviews != null && i < reviews.length(); i++) {
+                JSONObject review = reviews.optJSONObject(i);
+                if (review == null) continue;
+                String id = review.optString("id");
+                String movieId = review.optString("id_filme");
+                int nota = parseNota(review.optString("nota"));
+                Stats stats = byMovie.get(movieId);
+                if (id.isEmpty() || nota < 0 || stats == null) continue;
+                Indexed known = byReview.get(id);
+                if (known != null) {
+                    if (known.nota() == nota) continue;
+                    stats.remove(known.nota());
+                } else if (stats.unindexed > 0) {
+                    stats.unindexed--; // a criada nesta sessão: já contada, falta só o id
+                    stats.reviewIds.add(id);
+                    byReview.put(id, new Indexed(movieId, nota));
+                    continue;
+                }
+                stats.add(nota);
+                stats.reviewIds.add(id);
+                byReview.put(id, new Indexed(movieId, nota));
+                changed.add(movieId);
+            }
+        }
+        changed.forEach(this::fire);
+    }
+
+    public synchronized void invalidate() {
+        byMovie.clear();
+        byReview.clear();
+    }
+
+    @Override
+    public void onMutation(String operacao, JSONObject request, JSONObject response) {
+        String changed;
+        synchronized (this) {
+            changed = switch (operacao) {
+                case "CRIAR_REVIEW" -> created(request.getJSONObject("review"), response.optJSONObject("review"));
+                case "EDITAR_REVIEW" -> edited(request.getJSONObject("review"));
+                case "EXCLUIR_REVIEW" -> deleted(request.optString("id"));
+                case "EXCLUIR_FILME" -> {
+                    forget(request.optString("id"));
+                    yield request.optString("id");
+                }
+                case "ADMIN_EXCLUIR_USUARIO" -> {
+                    // A requisição não diz quais reviews eram do usuário: tudo é remontado na próxima carga
+                    invalidate();
+                    yield null;
+                }
+                default -> UNCHANGED;
+            };
+        }
+        if (!UNCHANGED.equals(changed)) fire(changed);
+    }
+
+    private String created(JSONObject review, JSONObject returned) {
+        String movieId = review.optString("id_filme");
+        int nota = parseNota(review.optString("nota"));
+        Stats stats = byMovie.get(movieId);
+        if (stats == null || nota < 0) return UNCHANGED;
+        stats.add(nota);
+        String id = returned != null ? returned.optString("id") : "";
+        if (id.isEmpty()) {
+            stats.unindexed++;
+        } else {
+            stats.reviewIds.add(id);
+            byReview.put(id, new Indexed(movieId, nota));
+        }
+        return movieId;
+    }
+
+    private String edited(JSONObject review) {
+        String id = review.optString("id");
+        int nota = parseNota(review.optString("nota"));
+        Indexed known = byReview.get(id);
+        if (known == null) return dropUnindexed();
+        Stats stats = byMovie.get(known.movieId());
+        if (nota < 0 || nota == known.nota()) return UNCHANGED;
+        stats.remove(known.nota());
+        stats.add(nota);
+        byReview.put(id, new Indexed(known.movieId(), nota));
+        return known.movieId();
+    }
+
+    private String deleted(String id) {
+        Indexed known = byReview.remove(id);
+        if (known == null) return dropUnindexed();
+        Stats stats = byMovie.get(known.movieId());
+        stats.remove(known.nota());
+        stats.reviewIds.remove(id);
+        return known.movieId();
+    }
+
+    /**
+     * Uma review de id desconhecido mudou: só pode ser uma das criadas sem id, em algum filme
+     * com reviews assim. Esses filmes saem e são remontados na próxima carga.
+     */
+    private String dropUnindexed() {
+        boolean dropped = false;
+        Iterator<Map.Entry<String, Stats>> it = byMovie.entrySet().iterator();
+        while (it.hasNext()) {
+            Stats stats = it.next().getValue();
+            if (stats.unindexed == 0) continue;
+            byReview.keySet().removeAll(stats.reviewIds);
+            it.remove();
+            dropped = true;
+        }
+        return dropped ? null : UNCHANGED;
+    }
+
+    private void forget(String movieId) {
+        Stats previous = byMovie.remove(movieId);
+        if (previous != null) byReview.keySet().removeAll(previous.reviewIds);
+    }
+
+    private void fire(String movieId) {
+        for (Consumer<String> listener : listeners) listener.accept(movieId);
+    }
+
+    // Nota de 0 a 5; o formulário aceita texto livre, então "4.0" vira 4 e o resto é ignorado
+    static int parseNota(String text) {
+        try {
+            long nota = Math.round(Double.parseDouble(text.trim()));
+            return nota >= 0 && nota <= MAX_SCORE ? (int) nota : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -1,4 +1,3 @@
-import org.json.JSONObject;
 import javax.swing.*;
 import java.awt.*;
 
@@ -40,40 +39,27 @@ public class RegisterPanel extends JPanel {
                 return; // Interrompe a execução
             }
 
-            new SwingWorker<JSONObject, Void>() {
-                @Override
-                protected JSONObject doInBackground() throws Exception {
-                    return networkService.registerUser(login, password);
-                }
-                @Override
-                protected void done() {
-                    try {
-                        JSONObject response = get();
-                        String status = response.getString("status");
-
-                        if (status.equals("201")) {// 201 Created
-                            // Usa a mensagem de sucesso do nosso Handler
-                            JOptionPane.showMessageDialog(RegisterPanel.this,
-                                    StatusCodeHandler.getMessage(status)); // MUDANÇA AQUI
-                            cardLayout.show(mainPanel, "LOGIN");
-                        } else {
-                            // ALTERAÇÃO: Usa o StatusCodeHandler para obter a mensagem de erro
-                            String errorMessage = StatusCodeHandler.getMessage(status);
+            UiTasks.submit(() -> networkService.registerUser(login, password), response -> {
+                String status = response.getString("status");
 
-                            // Opcional: Se o servidor enviar um detalhe extra, podemos adicionar
-                            if (response.has("mensagem")) {
-                                errorMessage += "\nDetalhe: " + response.getString("mensagem");
-                            }
+                if (status.equals("201")) {// 201 Created
+                    // Usa a mensagem de sucesso do nosso Handler
+                    JOptionPane.showMessageDialog(RegisterPanel.this,
+                            StatusCodeHandler.getMessage(status)); // MUDANÇA AQUI
+                    cardLayout.show(mainPanel, "LOGIN");
+                } else {
+                    // ALTERAÇÃO: Usa o StatusCodeHandler para obter a mensagem de erro
+                    String errorMessage = StatusCodeHandler.getMessage(status);
 
-                            JOptionPane.showMessageDialog(RegisterPanel.this,
-                                    errorMessage, "Erro de Cadastro", JOptionPane.ERROR_MESSAGE);
-                        }
-                    } catch (Exception ex) {
-                        JOptionPane.showMessageDialog(RegisterPanel.this,
-                                "Erro de comunicação: " + ex.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+                    // Opcional: Se o servidor enviar um detalhe extra, podemos adicionar
+                    if (response.has("mensagem")) {
+                        errorMessage += "\nDetalhe: " + response.getString("mensagem");
                     }
+
+                    JOptionPane.showMessageDialog(RegisterPanel.this,
+                            errorMessage, "Erro de Cadastro", JOptionPane.ERROR_MESSAGE);
                 }
-            }.execute();
+            }, UiTasks.reportTo(RegisterPanel.this));
         });
 
         backToLoginButton.addActionListener(e -> cardLayout.show(mainPanel, "LOGIN"));
@@ -0,0 +1,379 @@
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codifica requisições direto num buffer de bytes reutilizável, sem montar árvores de JSONObject.
+ * O início de cada operação e os nomes dos campos são fragmentos pré-codificados; só os valores
+ * informados pelo usuário são escapados e convertidos para UTF-8 a cada envio.
+ * Não é thread-safe: cada conexão tem o seu.
+ */
+public final class RequestEncoder {
+
+    /**
+     * Escreve os campos específicos de uma operação (tudo além de operacao, token e id de correlação).
+     */
+    @FunctionalInterface
+    public interface Body {
+        void writeTo(RequestEncoder enc);
+    }
+
+    public static final Body EMPTY = enc -> { };
+
+    // Fragmentos de chave: ,"nome":
+    public static final byte[] ID = key("id");
+    public static final byte[] ID_FILME = key("id_filme");
+    public static final byte[] ID_REQUISICAO = key(ServerConnection.CORRELATION_FIELD);
+    public static final byte[] TOKEN = key("token");
+    public static final byte[] USUARIO = key("usuario");
+    public static final byte[] NOME = key("nome");
+    public static final byte[] SENHA = key("senha");
+    public static final byte[] FILME = key("filme");
+    public static final byte[] REVIEW = key("review");
+    public static final byte[] TITULO = key("titulo");
+    public static final byte[] DIRETOR = key("diretor");
+    public static final byte[] ANO = key("ano");
+    public static final byte[] GENERO = key("genero");
+    public static final byte[] SINOPSE = key("sinopse");
+    public static final byte[] DESCRICAO = key("descricao");
+    public static final byte[] NOTA = key("nota");
+    public static final byte[] LIMITE = key("limite");
+    public static final byte[] CURSOR = key("cursor");
+    public static final byte[] ITENS = key("itens");
+    public static final byte[] ALGORITMO = key("algoritmo");
+    public static final byte[] CHAVE_IDEMPOTENCIA = key("chave_idempotencia");
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<RequestEncoder> SCRATCH = ThreadLocal.withInitial(RequestEncoder::new);
+
+    private byte[] buf = new byte[512];
+    private int len;
+    // Primeiro campo de um objeto aninhado: a chave é escrita sem a vírgula inicial
+    private boolean afterOpen;
+    // Array aberto ainda sem elementos: o próximo item vem sem vírgula
+    private boolean arrayEmpty;
+
+    // Fragmento ,"token":"..." do último token usado; só é recodificado quando o token muda
+    private String cachedToken;
+    private byte[] cachedTokenFragment;
+
+    public static byte[] key(String name) {
+        return (",\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public RequestEncoder begin(Operation operation) {
+        len = 0;
+        afterOpen = false;
+        write(operation.prefix, 0, operation.prefix.length);
+        return this;
+    }
+
+    public RequestEncoder token(String token) {
+        if (token == null) return this;
+        if (!token.equals(cachedToken)) {
+            int start = len;
+            string(TOKEN, token);
+            cachedTokenFragment = Arrays.copyOfRange(buf, start, len);
+            cachedToken = token;
+            return this;
+        }
+        write(cachedTokenFragment, 0, cachedTokenFragment.length);
+        return this;
+    }
+
+    public RequestEncoder string(byte[] key, String value) {
+        writeKey(key);
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeQuoted(value, 0, value.length());
+        }
+        return this;
+    }
+
+    /** Escreve o número entre aspas, como o servidor espera para ids ("42"). */
+    public RequestEncoder numericString(byte[] key, long value) {
+        writeKey(key);
+        ensure(22);
+        buf[len++] = '"';
+        writeLong(value);
+        buf[len++] = '"';
+        return this;
+    }
+
+    public RequestEncoder number(byte[] key, long value) {
+        writeKey(key);
+        ensure(20);
+        writeLong(value);
+        return this;
+    }
+
+    /** Escreve "a,b,c" como o array ["a","b","c"] sem criar as substrings. */
+    public RequestEncoder csvArray(byte[] key, String csv) {
+        writeKey(key);
+        ensure(1);
+        buf[len++] = '[';
+        int start = 0;
+        boolean first = true;
+        for (int i = 0; i <= csv.length(); i++) {
+            if (i == csv.length() || csv.charAt(i) == ',') {
+                if (i > start || i < csv.length()) {
+                    if (!first) buf[len++] = ',';
+                    writeQuoted(csv, start, i);
+                    ensure(1);
+                    first = false;
+                }
+                start = i + 1;
+            }
+        }
+        ensure(1);
+        buf[len++] = ']';
+        return this;
+    }
+
+    /** Escreve um trecho já codificado (um corpo guardado por bodyFragment). */
+    public RequestEncoder raw(String fragment) {
+        byte[] bytes = fragment.getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    public RequestEncoder beginObject(byte[] key) {
+        writeKey(key);
+        ensure(1);
+        buf[len++] = '{';
+        afterOpen = true;
+        return this;
+    }
+
+    public RequestEncoder endObject() {
+        ensure(1);
+        buf[len++] = '}';
+        afterOpen = false;
+        return this;
+    }
+
+    /** Abre um array de objetos; cada elemento é aberto com beginItem e fechado com endItem. */
+    public RequestEncoder beginArray(byte[] key) {
+        writeKey(key);
+        ensure(1);
+        buf[len++] = '[';
+        arrayEmpty = true;
+        return this;
+    }
+
+    /** Abre um elemento do array já com o campo "operacao" (itens de um LOTE). */
+    public RequestEncoder beginItem(Operation operation) {
+        if (!arrayEmpty) {
+            ensure(1);
+            buf[len++] = ',';
+        }
+        arrayEmpty = false;
+        write(operation.prefix, 0, operation.prefix.length);
+        afterOpen = false;
+        return this;
+    }
+
+    public RequestEncoder endItem() {
+        return endObject();
+    }
+
+    public RequestEncoder endArray() {
+        ensure(1);
+        buf[len++] = ']';
+        return this;
+    }
+
+    /** Fecha a requisição e acrescenta o delimitador de linha do protocolo. */
+    public RequestEncoder end() {
+        ensure(2);
+        buf[len++] = '}';
+        buf[len++] = '\n';
+        return this;
+    }
+
+    public int length() {
+        return len;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    /** Copia para target o quanto couber a partir de offset; devolve o número de bytes copiados. */
+    public int copyTo(int offset, ByteBuffer target) {
+        int count = Math.min(len - offset, target.remaining());
+        target.put(buf, offset, count);
+        return count;
+    }
+
+    /** Comprime a requisição (sem o '\n' final) num quadro de frames; devolve o tamanho do quadro. */
+    public int compressTo(DeflateFrames frames) {
+        int end = len > 0 && buf[len - 1] == '\n' ? len - 1 : len;
+        return frames.compress(buf, 0, end);
+    }
+
+    /** Cópia dos bytes a partir de offset. */
+    public byte[] toByteArray(int offset) {
+        return Arrays.copyOfRange(buf, offset, len);
+    }
+
+    /** Conteúdo atual como texto (sem o '\n' final); usado apenas para log e diagnóstico. */
+    @Override
+    public String toString() {
+        int end = len > 0 && buf[len - 1] == '\n' ? len - 1 : len;
+        return new String(buf, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /** Como toString(), limitado aos primeiros maxBytes bytes. */
+    public String toString(int maxBytes) {
+        int end = len > 0 && buf[len - 1] == '\n' ? len - 1 : len;
+        return new String(buf, 0, Math.min(end, maxBytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A requisição codificada como texto (sem token nem id de correlação): duas chamadas com a
+     * mesma operação e os mesmos parâmetros dão a mesma chave.
+     */
+    public static String requestKey(Operation operation, Body body) {
+        RequestEncoder enc = SCRATCH.get();
+        enc.begin(operation);
+        body.writeTo(enc);
+        return new String(enc.buf, 0, enc.len, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Os campos da requisição (o que vem depois de "operacao") como texto, para guardar e reenviar com raw. */
+    public static String bodyFragment(Operation operation, Body body) {
+        RequestEncoder enc = SCRATCH.get();
+        enc.begin(operation);
+        int start = enc.len;
+        body.writeTo(enc);
+        return new String(enc.buf, start, enc.len - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reconstrói a requisição como JSONObject (sem token nem id de correlação), para os ouvintes de mutação.
+     */
+    public static JSONObject toJson(Operation operation, Body body) {
+        RequestEncoder enc = SCRATCH.get();
+        enc.begin(operation);
+        body.writeTo(enc);
+        enc.end();
+        try {
+            return new JsonStreamDecoder(new ByteArrayInputStream(enc.buf, 0, enc.len), Math.max(16, enc.len)).next(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- escrita de baixo nível ---
+
+    private void writeKey(byte[] key) {
+        if (afterOpen) {
+            write(key, 1, key.length - 1);
+            afterOpen = false;
+        } else {
+            write(key, 0, key.length);
+        }
+    }
+
+    private void write(byte[] bytes, int from, int count) {
+        ensure(count);
+        System.arraycopy(bytes, from, buf, len, count);
+        len += count;
+    }
+
+    private void writeAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) buf[len++] = (byte) s.charAt(i);
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buf[len++] = '-';
+            value = -value;
+        }
+        int start = len;
+        do {
+            buf[len++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // Os dígitos saíram do menos para o mais significativo
+        for (int i = start, j = len - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    private void writeQuoted(String s, int from, int to) {
+        // Pior caso: 6 bytes por char (\\u00XX) mais as aspas
+        ensure((to - from) * 6 + 2);
+        byte[] b = buf;
+        int n = len;
+        b[n++] = '"';
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    b[n++] = '\\';
+                    b[n++] = (byte) c;
+                } else if (c >= 0x20) {
+                    b[n++] = (byte) c;
+                } else {
+                    b[n++] = '\\';
+                    switch (c) {
+                        case '\n' -> b[n++] = 'n';
+                        case '\r' -> b[n++] = 'r';
+                        case '\t' -> b[n++] = 't';
+                        case '\b' -> b[n++] = 'b';
+                        case '\f' -> b[n++] = 'f';
+                        default -> {
+                            b[n++] = 'u';
+                            b[n++] = '0';
+                            b[n++] = '0';
+                            b[n++] = HEX[c >> 4];
+                            b[n++] = HEX[c & 0xF];
+                        }
+                    }
+                }
+            } else if (c < 0x800) {
+                b[n++] = (byte) (0xC0 | (c >> 6));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[n++] = (byte) (0xF0 | (cp >> 18));
+                b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[n++] = '?'; // surrogate isolado não tem representação em UTF-8
+            } else {
+                b[n++] = (byte) (0xE0 | (c >> 12));
+                b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        b[n++] = '"';
+        len = n;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            byte[] bigger = new byte[Math.max(len + extra, buf.length * 2)];
+            System.arraycopy(buf, 0, bigger, 0, len);
+            buf = bigger;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uma conexão com o servidor que aceita várias requisições em voo (pipelining).
+ * Cada requisição recebe um id de correlação ("id_requisicao") e cada resposta é entregue
+ * ao futuro que a aguarda; se o servidor não ecoar o id, as respostas são casadas pela ordem
+ * de envio (o protocolo é sequencial por conexão) e a conexão deixa de enviá-lo. Uma requisição
+ * recusada por um servidor que não ecoa o id (400, 405 ou 422, como faz um servidor estrito com
+ * campos desconhecidos) é reenviada sem ele. As requisições são codificadas num buffer
+ * reutilizável (RequestEncoder); latência, bytes e status vão para o NetworkMetrics informado.
+ *
+ * A E/S fica nas subclasses, escolhidas pelo Transport: SocketConnection (socket bloqueante
+ * com uma thread leitora por conexão) ou NioConnection (SocketChannel num seletor único
+ * compartilhado por todas as conexões).
+ *
+ * Com um limite de compressão, a conexão negocia com o servidor, logo ao abrir, a troca de
+ * mensagens grandes como quadros comprimidos (DeflateFrames). Se o servidor não aceitar,
+ * tudo segue em linhas comuns.
+ */
+public abstract class ServerConnection implements Closeable {
+
+    public static final String CORRELATION_FIELD = "id_requisicao";
+
+    /** Forma de E/S da conexão. */
+    public enum Transport {
+        BLOCKING("Bloqueante (Socket)"),
+        NIO("Não bloqueante (NIO)");
+
+        private final String label;
+
+        Transport(String label) {
+            this.label = label;
+        }
+
+        /** Transporte padrão, definido pela propriedade voteflix.transport (BLOCKING ou NIO). */
+        public static Transport fromProperty() {
+            return valueOf(System.getProperty("voteflix.transport", BLOCKING.name()).toUpperCase());
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    protected static final AtomicLong CONNECTION_COUNTER = new AtomicLong();
+    private static final long NEGOTIATION_TIMEOUT_MILLIS = 5000;
+
+    protected final NetworkMetrics metrics;
+    // Null sem compressão; compress só sob o lock de pending, inflate só na leitura
+    protected final DeflateFrames frames;
+    private final int compressionThreshold;
+    private volatile boolean compressRequests;
+    // Desligado na primeira resposta sem o id ecoado: o servidor casa pela ordem de qualquer forma
+    private volatile boolean correlationIds = true;
+    private final RequestEncoder encoder = new RequestEncoder();
+
+    // Requisições aguardando resposta, na ordem em que foram escritas; também é o lock de escrita
+    protected final Deque<PendingRequest> pending = new ArrayDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile IOException failure;
+    private volatile Runnable closeListener;
+    private volatile long lastReceiveNanos = System.nanoTime();
+
+    /** @param compressionThreshold menor mensagem a comprimir, ou DeflateFrames.DISABLED. */
+    protected ServerConnection(NetworkMetrics metrics, int compressionThreshold) {
+        this.metrics = metrics;
+        this.compressionThreshold = compressionThreshold;
+        this.frames = compressionThreshold >= 0 ? new DeflateFrames() : null;
+    }
+
+    /** Abre a conexão e, se compressionThreshold não for DISABLED, negocia a compressão antes de devolvê-la. */
+    public static ServerConnection open(Transport transport, String ip, int port, int compressionThreshold,
+                                        NetworkMetrics metrics) throws IOException {
+        ServerConnection connection = switch (transport) {
+            case BLOCKING -> new SocketConnection(ip, port, compressionThreshold, metrics);
+            case NIO -> new NioConnection(ip, port, compressionThreshold, metrics);
+        };
+        if (connection.frames != null) connection.negotiateCompression();
+        return connection;
+    }
+
+    private void negotiateCompression() throws IOException {
+        JSONObject response;
+        try {
+            response = send(Operation.NEGOCIAR_COMPRESSAO, null, enc -> enc
+                    .string(RequestEncoder.ALGORITMO, DeflateFrames.ALGORITHM)
+                    .number(RequestEncoder.LIMITE, compressionThreshold), null)
+                    .get(NEGOTIATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            close();
+            throw new IOException("O servidor não respondeu à negociação de compressão; conecte sem compressão.");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Falha na negociação de compressão.", e.getCause());
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new IOException("Negociação de compressão interrompida.", e);
+        }
+        // Um servidor sem suporte responde com erro à operação desconhecida: segue sem compressão
+        compressRequests = "200".equals(response.optString("status"))
+                && DeflateFrames.ALGORITHM.equals(response.optString("algoritmo"));
+    }
+
+    /** Se esta conexão envia e recebe quadros comprimidos. */
+    public boolean isCompressed() {
+        return compressRequests;
+    }
+
+    /**
+     * Envia a requisição sem esperar pelas anteriores. O futuro é completado quando a resposta chega.
+     *
+     * @param token token a incluir na requisição, ou null.
+     * @param sink  se não for null, recebe elemento a elemento os arrays de topo que aceitar,
+     *              em vez de eles virem no JSONObject da resposta.
+     */
+    public CompletableFuture<JSONObject> send(Operation operation, String token, RequestEncoder.Body body,
+                                              JsonStreamDecoder.ElementSink sink) {
+        return send(operation, token, body, sink, false);
+    }
+
+    /**
+     * Envia um keep-alive: vai pelo fio como qualquer requisição, mas fica fora das métricas por
+     * operação e do log de tráfego, e é contado à parte (NetworkMetrics.recordKeepAlive).
+     */
+    public CompletableFuture<JSONObject> sendProbe(Operation operation, String token) {
+        return send(operation, token, RequestEncoder.EMPTY, null, true);
+    }
+
+    private CompletableFuture<JSONObject> send(Operation operation, String token, RequestEncoder.Body body,
+                                               JsonStreamDecoder.ElementSink sink, boolean probe) {
+        CompletableFuture<JSONObject> future = new CompletableFuture<>();
+
+        // Codificar, registrar e escrever sob o mesmo lock garante que a fila reflita a ordem no fio
+        synchronized (pending) {
+            if (failure != null || !isOpen()) {
+                future.completeExceptionally(failure != null ? failure : new IOException("A conexão não está ativa."));
+                return future;
+            }
+            long id = sequence.incrementAndGet();
+            boolean correlated = correlationIds;
+            encoder.begin(operation);
+            if (correlated) encoder.numericString(RequestEncoder.ID_REQUISICAO, id);
+            encoder.token(token);
+            body.writeTo(encoder);
+            encoder.end();
+
+            int frameLength = compressRequests && encoder.length() > compressionThreshold ? encoder.compressTo(frames) : 0;
+            int wireLength = frameLength > 0 ? frameLength : encoder.length();
+            if (frameLength > 0) metrics.recordCompression(encoder.length(), frameLength);
+
+            boolean logged = !probe && WireLogger.isEnabled(WireLogger.Level.INFO) && WireLogger.sample();
+            pending.addLast(new PendingRequest(id, correlated, probe, operation, token, body, future, sink, logged, System.nanoTime()));
+            if (!probe) metrics.recordSent(operation, wireLength);
+            if (logged) {
+                String payload = WireLogger.isEnabled(WireLogger.Level.DEBUG)
+                        ? WireLogger.truncate(encoder.toString(WireLogger.payloadLimit() + 1)) : null;
+                WireLogger.log("CLIENTE->SERVIDOR", operation.name(), null, wireLength, payload);
+            }
+            try {
+                if (frameLength > 0) writeFrame(frames.frame(), frameLength);
+                else write(encoder);
+            } catch (IOException e) {
+                fail(new IOException("Falha ao escrever no socket.", e));
+            }
+        }
+        return future;
+    }
+
+    /** Escreve a requisição codificada. Chamado com o lock de pending. */
+    protected abstract void write(RequestEncoder encoded) throws IOException;
+
+    /** Escreve um quadro comprimido (frame[0, length)); o array é reaproveitado depois. Chamado com o lock de pending. */
+    protected abstract void writeFrame(byte[] frame, int length) throws IOException;
+
+    /** Fecha o canal subjacente; chamado uma única vez, depois que as pendentes já falharam. */
+    protected abstract void closeChannel();
+
+    protected abstract boolean isChannelOpen();
+
+    public boolean isOpen() {
+        return failure == null && isChannelOpen();
+    }
+
+    /** Tempo desde a última resposta recebida (ou desde a abertura, se nenhuma chegou). */
+    public long idleNanos() {
+        return System.nanoTime() - lastReceiveNanos;
+    }
+
+    /** Chamado uma vez, na thread que detectar a falha, quando a conexão cai ou é fechada. */
+    public void setCloseListener(Runnable listener) {
+        this.closeListener = listener;
+    }
+
+    /** Número de requisições enviadas que ainda não receberam resposta. */
+    public int inFlight() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    // Consultado só quando os bytes da resposta já estão chegando, ou seja, com a requisição já na fila
+    protected final JsonStreamDecoder.ElementSink headSink = new JsonStreamDecoder.ElementSink() {
+        @Override public boolean wants(String field) {
+            JsonStreamDecoder.ElementSink sink = currentHeadSink();
+            return sink != null && sink.wants(field);
+        }
+        @Override public void accept(String field, Object element) {
+            JsonStreamDecoder.ElementSink sink = currentHeadSink();
+            if (sink != null) sink.accept(field, element);
+        }
+    };
+
+    private JsonStreamDecoder.ElementSink currentHeadSink() {
+        synchronized (pending) {
+            PendingRequest head = pending.peekFirst();
+            return head != null ? head.sink : null;
+        }
+    }
+
+    /** Resposta usada no lugar de uma linha que não é JSON válido. */
+    protected static JSONObject invalidResponse(JsonStreamDecoder.JsonFormatException e) {
+        return new JSONObject()
+                .put("status", "500")
+                .put("mensagem", "Resposta inválida (não-JSON) do servidor: " + e.getMessage());
+    }
+
+    /**
+     * Entrega a resposta à requisição correspondente.
+     *
+     * @param bytes          tamanho da resposta no fio.
+     * @param firstByteNanos instante (System.nanoTime) em que o primeiro byte da resposta foi processado.
+     */
+    protected void dispatch(JSONObject response, long bytes, long firstByteNanos) {
+        lastReceiveNanos = System.nanoTime();
+        Object echoed = response.remove(CORRELATION_FIELD);
+        PendingRequest target = takePending(parseId(echoed));
+        if (target == null) {
+            WireLogger.warn("ServerConnection", "Resposta sem requisição correspondente descartada (status " + response.optString("status") + ").");
+            return;
+        }
+        String status = response.optString("status");
+        long now = System.nanoTime();
+        if (target.probe) metrics.recordKeepAlive(now - target.sentNanos);
+        else metrics.recordResponse(target.operation, status, bytes, now - target.sentNanos, now - firstByteNanos);
+        if (target.logged) {
+            String payload = WireLogger.isEnabled(WireLogger.Level.DEBUG) ? WireLogger.truncate(response) : null;
+            WireLogger.log("SERVIDOR->CLIENTE", target.operation.name(), status, bytes, payload);
+        }
+        if (echoed == null && target.correlated) {
+            if (correlationIds) {
+                correlationIds = false;
+                WireLogger.notice(target.operation.name(), status, "servidor não ecoa id_requisicao; respostas casadas pela ordem");
+            }
+            if (isFieldRejection(status)) {
+                // Talvez recusada pelo próprio id: vai de novo sem ele, na ordem em que as recusas chegam
+                send(target.operation, target.token, target.body, target.sink, target.probe).whenComplete((retried, error) -> {
+                    if (error != null) target.future.completeExceptionally(error);
+                    else target.future.complete(retried);
+                });
+                return;
+            }
+        }
+        target.future.complete(response);
+    }
+
+    private static boolean isFieldRejection(String status) {
+        return "400".equals(status) || "405".equals(status) || "422".equals(status);
+    }
+
+    private static long parseId(Object echoed) {
+        if (echoed instanceof Number n) return n.longValue();
+        if (echoed instanceof String s) {
+            try {
+                return Long.parseLong(s);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return -1;
+    }
+
+    private PendingRequest takePending(long id) {
+        synchronized (pending) {
+            if (id >= 0) {
+                Iterator<PendingRequest> it = pending.iterator();
+                while (it.hasNext()) {
+                    PendingRequest p = it.next();
+                    if (p.id == id) {
+                        it.remove();
+                        return p;
+                    }
+                }
+            }
+            return pending.pollFirst();
+        }
+    }
+
+    protected void fail(IOException cause) {
+        boolean first;
+        synchronized (pending) {
+            first = failure == null;
+            if (first) failure = cause;
+            PendingRequest p;
+            while ((p = pending.pollFirst()) != null) {
+                if (!p.probe) metrics.recordFailure(p.operation); // keep-alive perdido conta em recordKeepAliveTimeout
+                p.future.completeExceptionally(cause);
+            }
+        }
+        if (first) {
+            closeChannel();
+            Runnable listener = closeListener;
+            if (listener != null) listener.run();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fail(new IOException("A conexão foi encerrada."));
+    }
+
+    // token e body ficam para o reenvio sem id_requisicao (ver dispatch)
+    protected record PendingRequest(long id, boolean correlated, boolean probe, Operation operation, String token,
+                                    RequestEncoder.Body body, CompletableFuture<JSONObject> future,
+                                    JsonStreamDecoder.ElementSink sink, boolean logged, long sentNanos) {}
+}
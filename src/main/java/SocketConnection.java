@@ -0,0 +1,87 @@
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Transporte bloqueante: um java.net.Socket e uma thread virtual leitora por conexão, que
+ * decodifica as respostas direto dos bytes do socket com o JsonStreamDecoder (arrays pedidos
+ * por um ElementSink são entregues enquanto ainda estão chegando). Com compressão, os bytes
+ * passam antes por um DeflateFrames.LineStream; um quadro comprimido só é decodificado depois
+ * de chegar inteiro.
+ */
+public class SocketConnection extends ServerConnection {
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final JsonStreamDecoder in;
+    private final DeflateFrames.LineStream lines;
+    private final Thread readerThread;
+
+    public SocketConnection(String ip, int port, int compressionThreshold, NetworkMetrics metrics) throws IOException {
+        super(metrics, compressionThreshold);
+        socket = new Socket(ip, port);
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        out = socket.getOutputStream();
+        lines = frames != null ? frames.lineStream(socket.getInputStream(), metrics::recordCompression) : null;
+        in = new JsonStreamDecoder(lines != null ? lines : socket.getInputStream());
+
+        // Thread virtual: a leitura bloqueante não prende uma thread do sistema por conexão
+        readerThread = Thread.ofVirtual()
+                .name("voteflix-reader-" + CONNECTION_COUNTER.incrementAndGet())
+                .start(this::readLoop);
+    }
+
+    @Override
+    protected void write(RequestEncoder encoded) throws IOException {
+        encoded.writeTo(out);
+        out.flush();
+    }
+
+    @Override
+    protected void writeFrame(byte[] frame, int length) throws IOException {
+        out.write(frame, 0, length);
+        out.flush();
+    }
+
+    @Override
+    protected boolean isChannelOpen() {
+        return !socket.isClosed();
+    }
+
+    private void readLoop() {
+        long lastPosition = 0;
+        try {
+            while (true) {
+                JSONObject response;
+                try {
+                    // O servidor responde em ordem: a resposta que está chegando é da primeira pendente
+                    response = in.next(headSink);
+                } catch (JsonStreamDecoder.JsonFormatException e) {
+                    response = invalidResponse(e);
+                }
+                if (response == null) break;
+                // Com compressão, conta o tamanho no fio, não o da linha já descomprimida
+                long position = lines != null ? lines.wirePosition() : in.position();
+                dispatch(response, position - lastPosition, in.messageStartNanos());
+                lastPosition = position;
+            }
+            fail(new IOException("O servidor encerrou a conexão inesperadamente."));
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            // Sem isto a thread leitora morreria calada, com as requisições pendentes esperando para sempre
+            fail(new IOException("Falha ao processar resposta.", e));
+        }
+    }
+
+    @Override
+    protected void closeChannel() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -1,7 +1,10 @@
 // Conteúdo de: castello898/projetosd/ProjetoSD-9a86b08447559d0a9d789a0d9a6580c2916b1b58/src/main/java/StatusCodeHandler.java
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Classe utilitária para traduzir códigos de status do servidor
@@ -20,6 +23,7 @@ public class StatusCodeHandler {
         // Sucesso (2xx)
         messages.put("200", "Operação realizada com sucesso."); // Mensagem genérica da imagem: "OK"
         messages.put("201", "A sua requisição foi bem-sucedida e, como resultado, um novo recurso foi criado no servidor.");
+        messages.put("202", "Aceito: a alteração foi guardada e será enviada quando a conexão voltar.");
 
         // Erro Cliente (4xx)
         messages.put("400", "Requisição inválida: O id fornecido não é válido (ex: está vazio ou no formato incorreto).");
@@ -49,4 +53,11 @@ public class StatusCodeHandler {
         // Retorna a mensagem do mapa ou uma mensagem padrão se o código não for encontrado
         return messages.getOrDefault(statusCode, "Ocorreu um erro desconhecido (Código: " + statusCode + ")");
     }
-}
\ No newline at end of file
+
+    /**
+     * Códigos de status conhecidos, em ordem crescente.
+     */
+    public static Set<String> getKnownCodes() {
+        return Collections.unmodifiableSet(new TreeSet<>(messages.keySet()));
+    }
+}
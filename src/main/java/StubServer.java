@@ -0,0 +1,368 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Servidor VoteFlix de mentira, para medir o cliente sem depender do servidor real.
+ * Fala o mesmo protocolo (um JSON por linha), atende todas as conexões numa única thread
+ * com um Selector não bloqueante e guarda os dados em memória (StubStore), com um catálogo
+ * sintético do tamanho pedido. Cada operação pode ter um atraso configurável, aplicado sem
+ * bloquear a thread; as respostas de uma conexão saem sempre na ordem das requisições.
+ * O "id_requisicao" recebido é devolvido na resposta. Quadros comprimidos (DeflateFrames) são
+ * aceitos a qualquer momento; as respostas só saem comprimidas depois de NEGOCIAR_COMPRESSAO.
+ *
+ * Embutido:
+ *   StubServer server = new StubServer(0).seed(10_000, 50, 3).latency(Operation.LISTAR_FILMES, 20, 5).start();
+ *   networkService.connect("127.0.0.1", server.getPort());
+ *
+ * Sozinho (argumentos chave=valor, todos opcionais):
+ *   java -cp ... StubServer port=20000 filmes=10000 usuarios=50 reviews=3 adminSenha=admin
+ *        latencia=LISTAR_FILMES:20,BUSCAR_FILME_ID:5 jitter=2
+ */
+public class StubServer implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final int requestedPort;
+    private final StubStore store;
+    private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+    private final PriorityQueue<DelayedResponse> delayed = new PriorityQueue<>();
+    // Buffer de leitura compartilhado: só a thread do seletor o usa
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final CountDownLatch started = new CountDownLatch(1);
+    // Compressão e descompressão de todas as conexões; só a thread do seletor usa
+    private final DeflateFrames frames = new DeflateFrames();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread loopThread;
+    private volatile boolean running;
+    private long sequence;
+
+    /** port 0 escolhe uma porta livre (ver getPort). */
+    public StubServer(int port) {
+        this(port, "admin");
+    }
+
+    public StubServer(int port, String adminPassword) {
+        this.requestedPort = port;
+        this.store = new StubStore(adminPassword);
+    }
+
+    /** Popula o catálogo sintético; deve ser chamado antes de start(). */
+    public StubServer seed(int movies, int users, int reviewsPerMovie) {
+        store.seed(movies, users, reviewsPerMovie, 42);
+        return this;
+    }
+
+    /** Atrasa as respostas da operação em baseMillis, mais até jitterMillis aleatórios. */
+    public StubServer latency(Operation operation, long baseMillis, long jitterMillis) {
+        latencies.put(operation, new long[]{baseMillis, jitterMillis});
+        return this;
+    }
+
+    public StubServer start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", requestedPort));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+
+        loopThread = new Thread(this::loop, "voteflix-stub-server");
+        loopThread.setDaemon(true);
+        loopThread.start();
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return this;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (selector != null) selector.wakeup();
+        if (loopThread != null) {
+            try {
+                loopThread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // --- laço do seletor ---
+
+    private void loop() {
+        started.countDown();
+        try {
+            while (running) {
+                DelayedResponse next = delayed.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    long waitMillis = (next.readyNanos - System.nanoTime()) / 1_000_000;
+                    if (waitMillis > 0) selector.select(waitMillis);
+                    else selector.selectNow();
+                }
+                releaseDueResponses();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isReadable()) read(key);
+                        if (key.isValid() && key.isWritable()) write(key);
+                    } catch (IOException e) {
+                        closeClient(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("Servidor stub encerrado por erro: " + e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client;
+        while ((client = serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            client.register(selector, SelectionKey.OP_READ, new Client());
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+        readBuffer.clear();
+        int n = channel.read(readBuffer);
+        if (n < 0) {
+            closeClient(key);
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (client.binaryRemaining >= 0) {
+                client.append(b);
+                if (--client.binaryRemaining > 0) continue;
+                if (client.binaryHeader) {
+                    client.binaryHeader = false;
+                    client.binaryRemaining = DeflateFrames.payloadLength(client.line, 0);
+                } else {
+                    client.binaryRemaining = -1;
+                    frames.inflate(client.line, DeflateFrames.HEADER_SIZE, client.length - DeflateFrames.HEADER_SIZE);
+                    client.length = 0;
+                    respond(key, client, new String(frames.inflated(), 0, frames.inflatedLength(), StandardCharsets.UTF_8));
+                }
+            } else if (b == DeflateFrames.MARKER && client.length == 0) {
+                // Início de um quadro comprimido: cabeçalho com o tamanho, depois o conteúdo
+                client.append(b);
+                client.binaryRemaining = DeflateFrames.HEADER_SIZE - 1;
+                client.binaryHeader = true;
+            } else if (b == '\n') {
+                String line = client.takeLine();
+                if (!line.isBlank()) respond(key, client, line);
+            } else {
+                client.append(b);
+            }
+        }
+    }
+
+    private void respond(SelectionKey key, Client client, String line) {
+        JSONObject response;
+        Object correlation = null;
+        Operation operation = null;
+        int negotiatedThreshold = DeflateFrames.DISABLED;
+        try {
+            JSONObject request = new JSONObject(line);
+            correlation = request.opt(ServerConnection.CORRELATION_FIELD);
+            response = store.handle(request);
+            try {
+                operation = Operation.valueOf(request.optString("operacao"));
+            } catch (IllegalArgumentException ignored) {
+            }
+            if (operation == Operation.NEGOCIAR_COMPRESSAO && "200".equals(response.optString("status"))) {
+                negotiatedThreshold = request.optInt("limite");
+            }
+        } catch (JSONException e) {
+            response = new JSONObject().put("status", "400").put("mensagem", "JSON inválido.");
+        } catch (RuntimeException e) {
+            response = new JSONObject().put("status", "500").put("mensagem", "Erro no servidor stub: " + e);
+        }
+        if (correlation != null) response.put(ServerConnection.CORRELATION_FIELD, correlation);
+        byte[] json = (response + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer bytes;
+        if (client.compressionThreshold >= 0 && json.length - 1 >= client.compressionThreshold) {
+            int n = frames.compress(json, 0, json.length - 1);
+            bytes = ByteBuffer.wrap(Arrays.copyOf(frames.frame(), n));
+        } else {
+            bytes = ByteBuffer.wrap(json);
+        }
+        // A própria resposta da negociação sai sem compressão; as seguintes já podem sair comprimidas
+        if (negotiatedThreshold >= 0) client.compressionThreshold = negotiatedThreshold;
+
+        long delayNanos = delayFor(operation);
+        // Nunca antes da resposta anterior da mesma conexão: a ordem do protocolo é preservada
+        long ready = Math.max(System.nanoTime() + delayNanos, client.lastReadyNanos);
+        client.lastReadyNanos = ready;
+        if (delayNanos == 0 && client.waiting == 0) {
+            enqueue(key, client, bytes);
+        } else {
+            client.waiting++;
+            delayed.add(new DelayedResponse(ready, sequence++, key, bytes));
+        }
+    }
+
+    private long delayFor(Operation operation) {
+        long[] config = operation == null ? null : latencies.get(operation);
+        if (config == null) return 0;
+        long jitter = config[1] > 0 ? ThreadLocalRandom.current().nextLong(config[1] + 1) : 0;
+        return (config[0] + jitter) * 1_000_000;
+    }
+
+    private void releaseDueResponses() {
+        long now = System.nanoTime();
+        while (!delayed.isEmpty() && delayed.peek().readyNanos <= now) {
+            DelayedResponse r = delayed.poll();
+            if (!r.key.isValid()) continue;
+            Client client = (Client) r.key.attachment();
+            client.waiting--;
+            enqueue(r.key, client, r.bytes);
+        }
+    }
+
+    private void enqueue(SelectionKey key, Client client, ByteBuffer bytes) {
+        if (!key.isValid()) return;
+        client.outbox.addLast(bytes);
+        try {
+            write(key);
+        } catch (IOException e) {
+            closeClient(key);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Client client = (Client) key.attachment();
+        while (!client.outbox.isEmpty()) {
+            ByteBuffer head = client.outbox.peekFirst();
+            channel.write(head);
+            if (head.hasRemaining()) break; // buffer do socket cheio: espera OP_WRITE
+            client.outbox.pollFirst();
+        }
+        int ops = client.outbox.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (key.interestOps() != ops) key.interestOps(ops);
+    }
+
+    private static void closeClient(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void shutdown() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException ignored) {
+        }
+    }
+
+    /** Estado de leitura e escrita de uma conexão. */
+    private static final class Client {
+        private byte[] line = new byte[1024];
+        private int length;
+        final Deque<ByteBuffer> outbox = new ArrayDeque<>();
+        long lastReadyNanos;
+        int waiting;
+        // Quadro comprimido em leitura: bytes que faltam (-1 fora de um quadro) e se ainda é o cabeçalho
+        int binaryRemaining = -1;
+        boolean binaryHeader;
+        int compressionThreshold = DeflateFrames.DISABLED;
+
+        void append(byte b) {
+            if (length == line.length) line = Arrays.copyOf(line, length * 2);
+            line[length++] = b;
+        }
+
+        String takeLine() {
+            String s = new String(line, 0, length, StandardCharsets.UTF_8);
+            length = 0;
+            return s;
+        }
+    }
+
+    private record DelayedResponse(long readyNanos, long order, SelectionKey key, ByteBuffer bytes)
+            implements Comparable<DelayedResponse> {
+        @Override
+        public int compareTo(DelayedResponse o) {
+            int c = Long.compare(readyNanos, o.readyNanos);
+            return c != 0 ? c : Long.compare(order, o.order);
+        }
+    }
+
+    // --- execução avulsa ---
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        StubServer server = new StubServer(Integer.parseInt(options.getOrDefault("port", "20000")),
+                options.getOrDefault("adminSenha", "admin"))
+                .seed(Integer.parseInt(options.getOrDefault("filmes", "1000")),
+                        Integer.parseInt(options.getOrDefault("usuarios", "50")),
+                        Integer.parseInt(options.getOrDefault("reviews", "3")));
+        long jitter = Long.parseLong(options.getOrDefault("jitter", "0"));
+        String latencySpec = options.getOrDefault("latencia", "");
+        if (!latencySpec.isBlank()) {
+            for (String part : latencySpec.split(",")) {
+                String[] kv = part.trim().split(":");
+                server.latency(Operation.valueOf(kv[0].trim().toUpperCase()), Long.parseLong(kv[1].trim()), jitter);
+            }
+        }
+        server.start();
+        System.out.printf("Servidor stub ouvindo em 127.0.0.1:%d com %d filmes (admin/%s).%n",
+                server.getPort(), server.store.movieCount(), options.getOrDefault("adminSenha", "admin"));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,453 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Estado em memória do StubServer: usuários, sessões, filmes e reviews, com as mesmas regras
+ * e códigos de status do servidor VoteFlix (401 sem token válido, 403 sem privilégio, 404, 405, 409).
+ * Listagens aceitam "limite" e "cursor" e devolvem "proximo_cursor" quando há mais itens.
+ * Uma requisição com "chave_idempotencia" já vista recebe a resposta guardada, sem ser aplicada de novo.
+ * Não é thread-safe: é usado apenas pela thread do seletor.
+ */
+final class StubStore {
+
+    static final String ADMIN_USER = "admin";
+
+    private static final String[] GENRES = {
+            "Ação", "Aventura", "Comédia", "Drama", "Fantasia",
+            "Ficção Científica", "Terror", "Romance", "Documentário",
+            "Musical", "Animação"
+    };
+    private static final String[] TITLE_WORDS = {
+            "Noite", "Sombra", "Cidade", "Último", "Verão", "Segredo", "Estrada", "Mar", "Caminho", "Horizonte",
+            "Silêncio", "Fogo", "Memória", "Vento", "Jardim", "Coração", "Tempo", "Ilha", "Lua", "Destino"
+    };
+
+    private static final class User {
+        final int id;
+        final String nome;
+        String senha;
+        final TreeMap<Integer, JSONObject> reviews = new TreeMap<>();
+
+        User(int id, String nome, String senha) {
+            this.id = id;
+            this.nome = nome;
+            this.senha = senha;
+        }
+
+        boolean isAdmin() {
+            return ADMIN_USER.equals(nome);
+        }
+
+        JSONObject toJson() {
+            return new JSONObject().put("id", String.valueOf(id)).put("nome", nome);
+        }
+    }
+
+    private final Map<String, User> usersByName = new HashMap<>();
+    private final TreeMap<Integer, User> usersById = new TreeMap<>();
+    private final TreeMap<Integer, JSONObject> userViews = new TreeMap<>();
+    private final Map<String, User> sessions = new HashMap<>();
+
+    private final TreeMap<Integer, JSONObject> movies = new TreeMap<>();
+    private final Map<Integer, TreeMap<Integer, JSONObject>> reviewsByMovie = new HashMap<>();
+    private final TreeMap<Integer, JSONObject> reviews = new TreeMap<>();
+    // "idUsuario:idFilme" de quem já avaliou, para o 409 de review duplicada
+    private final Set<String> reviewed = new HashSet<>();
+
+    // Respostas por "idUsuario:chave_idempotencia", das mais antigas para as mais novas
+    private static final int DEDUP_LIMIT = 10_000;
+    private final Map<String, JSONObject> dedupResponses = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JSONObject> eldest) {
+            return size() > DEDUP_LIMIT;
+        }
+    };
+
+    private int nextUserId = 1;
+    private int nextMovieId = 1;
+    private int nextReviewId = 1;
+    private long tokenCounter;
+
+    StubStore(String adminPassword) {
+        addUser(ADMIN_USER, adminPassword);
+    }
+
+    /**
+     * Gera um catálogo sintético determinístico: movieCount filmes, userCount usuários
+     * ("usuario1", "usuario2"... com senha "senha123") e até reviewsPerMovie reviews por filme.
+     */
+    void seed(int movieCount, int userCount, int reviewsPerMovie, long randomSeed) {
+        Random random = new Random(randomSeed);
+        User[] seeded = new User[userCount];
+        for (int i = 0; i < userCount; i++) {
+            seeded[i] = addUser("usuario" + (i + 1), "senha123");
+        }
+        for (int i = 0; i < movieCount; i++) {
+            JSONArray genero = new JSONArray().put(GENRES[random.nextInt(GENRES.length)]);
+            if (random.nextBoolean()) genero.put(GENRES[random.nextInt(GENRES.length)]);
+            JSONObject movie = addMovie(new JSONObject()
+                    .put("titulo", TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                            + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + (i + 1))
+                    .put("diretor", "Diretor " + (1 + random.nextInt(Math.max(1, movieCount / 10 + 1))))
+                    .put("ano", String.valueOf(1950 + random.nextInt(75)))
+                    .put("genero", genero)
+                    .put("sinopse", "Sinopse gerada para testes de desempenho do filme número " + (i + 1) + "."));
+            if (userCount == 0) continue;
+            int count = random.nextInt(reviewsPerMovie + 1);
+            int movieId = Integer.parseInt(movie.getString("id"));
+            for (int r = 0; r < count; r++) {
+                User author = seeded[random.nextInt(userCount)];
+                if (reviewed.contains(author.id + ":" + movieId)) continue;
+                addReview(author, movieId, "Review " + (r + 1), "Comentário sintético.", 1 + random.nextInt(5));
+            }
+        }
+    }
+
+    int movieCount() {
+        return movies.size();
+    }
+
+    /** Processa uma requisição já decodificada e devolve a resposta (sem o id de correlação). */
+    JSONObject handle(JSONObject request) {
+        Operation operation;
+        try {
+            operation = Operation.valueOf(request.optString("operacao"));
+        } catch (IllegalArgumentException e) {
+            return status("400", "Operação desconhecida: " + request.optString("operacao"));
+        }
+
+        User user = null;
+        if (operation.isAuthenticated()) {
+            user = sessions.get(request.optString("token"));
+            if (user == null) return status("401", "Token inválido ou ausente.");
+        }
+
+        String dedupKey = request.has("chave_idempotencia") && user != null
+                ? user.id + ":" + request.optString("chave_idempotencia") : null;
+        if (dedupKey != null) {
+            JSONObject previous = dedupResponses.get(dedupKey);
+            if (previous != null) return new JSONObject(previous.toString());
+        }
+        JSONObject response = apply(operation, user, request);
+        if (dedupKey != null) dedupResponses.put(dedupKey, new JSONObject(response.toString()));
+        return response;
+    }
+
+    private JSONObject apply(Operation operation, User user, JSONObject request) {
+        return switch (operation) {
+            case CRIAR_USUARIO -> createUser(request.optJSONObject("usuario"));
+            case LOGIN -> login(request.optString("usuario"), request.optString("senha"));
+            case LISTAR_PROPRIO_USUARIO -> status("200", "Sucesso").put("usuario", user.nome);
+            case EDITAR_PROPRIO_USUARIO -> changePassword(user, request.optJSONObject("usuario"));
+            case EXCLUIR_PROPRIO_USUARIO -> deleteUser(user);
+            case LOGOUT -> {
+                sessions.remove(request.optString("token"));
+                yield status("200", "Logout realizado.");
+            }
+            case LISTAR_FILMES -> page(request, "filmes", movies);
+            case BUSCAR_FILME_ID -> findMovie(request.optString("id_filme"));
+            case CRIAR_FILME -> user.isAdmin() ? createMovie(request.optJSONObject("filme")) : forbidden();
+            case EDITAR_FILME -> user.isAdmin() ? updateMovie(request.optJSONObject("filme")) : forbidden();
+            case EXCLUIR_FILME -> user.isAdmin() ? deleteMovie(request.optString("id")) : forbidden();
+            case CRIAR_REVIEW -> createReview(user, request.optJSONObject("review"));
+            case EDITAR_REVIEW -> updateReview(user, request.optJSONObject("review"));
+            case EXCLUIR_REVIEW -> deleteReview(user, request.optString("id"));
+            case LISTAR_REVIEWS_USUARIO -> page(request, "reviews", user.reviews);
+            case LISTAR_USUARIOS -> user.isAdmin() ? page(request, "usuarios", userViews) : forbidden();
+            case ADMIN_EXCLUIR_USUARIO -> {
+                if (!user.isAdmin()) yield forbidden();
+                User target = usersById.get(parseId(request.optString("id")));
+                yield target == null ? notFound() : deleteUser(target);
+            }
+            case ADMIN_EDITAR_USUARIO -> {
+                if (!user.isAdmin()) yield forbidden();
+                User target = usersById.get(parseId(request.optString("id")));
+                yield target == null ? notFound() : changePassword(target, request.optJSONObject("usuario"));
+            }
+            case LOTE -> batch(request);
+            case NEGOCIAR_COMPRESSAO -> compression(request);
+        };
+    }
+
+    /** Aceita o deflate; quem liga os quadros na conexão é o StubServer, ao ver o 200. */
+    private static JSONObject compression(JSONObject request) {
+        if (!DeflateFrames.ALGORITHM.equals(request.optString("algoritmo")) || request.optInt("limite", -1) < 0) {
+            return invalid();
+        }
+        return status("200", "Compressão ativada.").put("algoritmo", DeflateFrames.ALGORITHM);
+    }
+
+    /** Executa cada item com o token do envelope; LOTE e NEGOCIAR_COMPRESSAO dentro de LOTE não são aceitos. */
+    private JSONObject batch(JSONObject request) {
+        JSONArray itens = request.optJSONArray("itens");
+        if (itens == null) return invalid();
+        JSONArray resultados = new JSONArray();
+        for (int i = 0; i < itens.length(); i++) {
+            JSONObject item = itens.optJSONObject(i);
+            String operacao = item == null ? null : item.optString("operacao");
+            if (item == null || Operation.LOTE.name().equals(operacao) || Operation.NEGOCIAR_COMPRESSAO.name().equals(operacao)) {
+                resultados.put(invalid());
+            } else {
+                resultados.put(handle(item.put("token", request.optString("token"))));
+            }
+        }
+        return status("200", "Lote processado.").put("resultados", resultados);
+    }
+
+    // --- usuários ---
+
+    private User addUser(String nome, String senha) {
+        User user = new User(nextUserId++, nome, senha);
+        usersByName.put(nome, user);
+        usersById.put(user.id, user);
+        userViews.put(user.id, user.toJson());
+        return user;
+    }
+
+    private JSONObject createUser(JSONObject usuario) {
+        if (usuario == null || blank(usuario.optString("nome")) || blank(usuario.optString("senha"))) return invalid();
+        if (usersByName.containsKey(usuario.getString("nome"))) return status("409", "Usuário já existe.");
+        addUser(usuario.getString("nome"), usuario.getString("senha"));
+        return status("201", "Usuário criado.");
+    }
+
+    private JSONObject login(String nome, String senha) {
+        User user = usersByName.get(nome);
+        if (user == null || !user.senha.equals(senha)) return status("401", "Usuário ou senha inválidos.");
+        String token = "stub-" + user.id + "-" + (++tokenCounter);
+        sessions.put(token, user);
+        return status("200", "Login realizado.").put("token", token);
+    }
+
+    private JSONObject changePassword(User user, JSONObject usuario) {
+        if (usuario == null || blank(usuario.optString("senha"))) return invalid();
+        user.senha = usuario.getString("senha");
+        return status("200", "Senha alterada.");
+    }
+
+    private JSONObject deleteUser(User user) {
+        for (JSONObject review : user.reviews.values().toArray(new JSONObject[0])) {
+            removeReview(review);
+        }
+        usersByName.remove(user.nome);
+        usersById.remove(user.id);
+        userViews.remove(user.id);
+        sessions.values().removeIf(u -> u == user);
+        return status("200", "Usuário excluído.");
+    }
+
+    // --- filmes ---
+
+    private JSONObject addMovie(JSONObject fields) {
+        int id = nextMovieId++;
+        JSONObject movie = new JSONObject()
+                .put("id", String.valueOf(id))
+                .put("titulo", fields.optString("titulo"))
+                .put("diretor", fields.optString("diretor"))
+                .put("ano", fields.optString("ano"))
+                .put("genero", fields.optJSONArray("genero") != null ? fields.getJSONArray("genero") : new JSONArray())
+                .put("sinopse", fields.optString("sinopse"))
+                .put("nota", "0")
+                .put("qtd_avaliacoes", "0");
+        movies.put(id, movie);
+        reviewsByMovie.put(id, new TreeMap<>());
+        return movie;
+    }
+
+    private JSONObject findMovie(String idFilme) {
+        int id = parseId(idFilme);
+        if (id < 0) return status("400", "Id inválido.");
+        JSONObject movie = movies.get(id);
+        if (movie == null) return notFound();
+        return status("200", "Sucesso").put("filme", movie)
+                .put("reviews", new JSONArray(reviewsByMovie.get(id).values()));
+    }
+
+    private JSONObject createMovie(JSONObject filme) {
+        if (filme == null || blank(filme.optString("titulo")) || blank(filme.optString("diretor"))
+                || blank(filme.optString("ano"))) return invalid();
+        for (JSONObject m : movies.values()) {
+            if (m.getString("titulo").equalsIgnoreCase(filme.getString("titulo"))
+                    && m.getString("diretor").equalsIgnoreCase(filme.getString("diretor"))
+                    && m.getString("ano").equals(filme.getString("ano"))) {
+                return status("409", "Filme já cadastrado.");
+            }
+        }
+        return status("201", "Filme criado.").put("filme", addMovie(filme));
+    }
+
+    private JSONObject updateMovie(JSONObject filme) {
+        if (filme == null) return invalid();
+        int id = parseId(filme.optString("id"));
+        if (id < 0) return status("400", "Id inválido.");
+        JSONObject movie = movies.get(id);
+        if (movie == null) return notFound();
+        for (String key : new String[]{"titulo", "diretor", "ano", "sinopse"}) {
+            if (filme.has(key)) movie.put(key, filme.getString(key));
+        }
+        if (filme.has("genero")) movie.put("genero", filme.getJSONArray("genero"));
+        return status("200", "Filme atualizado.");
+    }
+
+    private JSONObject deleteMovie(String idFilme) {
+        int id = parseId(idFilme);
+        if (id < 0) return status("400", "Id inválido.");
+        if (!movies.containsKey(id)) return notFound();
+        for (JSONObject review : reviewsByMovie.get(id).values().toArray(new JSONObject[0])) {
+            removeReview(review);
+        }
+        movies.remove(id);
+        reviewsByMovie.remove(id);
+        return status("200", "Filme excluído.");
+    }
+
+    // --- reviews ---
+
+    private JSONObject createReview(User user, JSONObject review) {
+        if (review == null) return invalid();
+        int movieId = parseId(review.optString("id_filme"));
+        if (movieId < 0) return status("400", "Id inválido.");
+        if (!movies.containsKey(movieId)) return notFound();
+        int nota = parseNota(review.optString("nota"));
+        if (nota < 0 || blank(review.optString("titulo"))) return invalid();
+        if (reviewed.contains(user.id + ":" + movieId)) return status("409", "Você já avaliou este filme.");
+        addReview(user, movieId, review.getString("titulo"), review.optString("descricao"), nota);
+        return status("201", "Review criada.");
+    }
+
+    private void addReview(User author, int movieId, String titulo, String descricao, int nota) {
+        int id = nextReviewId++;
+        JSONObject review = new JSONObject()
+                .put("id", String.valueOf(id))
+                .put("id_filme", String.valueOf(movieId))
+                .put("nome_usuario", author.nome)
+                .put("titulo", titulo)
+                .put("descricao", descricao)
+                .put("nota", String.valueOf(nota))
+                .put("data", LocalDate.now().toString())
+                .put("editado", "false");
+        reviews.put(id, review);
+        author.reviews.put(id, review);
+        reviewsByMovie.get(movieId).put(id, review);
+        reviewed.add(author.id + ":" + movieId);
+        updateRating(movieId);
+    }
+
+    private JSONObject updateReview(User user, JSONObject changes) {
+        if (changes == null) return invalid();
+        int id = parseId(changes.optString("id"));
+        if (id < 0) return status("400", "Id inválido.");
+        JSONObject review = reviews.get(id);
+        if (review == null) return notFound();
+        if (!review.getString("nome_usuario").equals(user.nome)) return forbidden();
+        if (changes.has("nota")) {
+            int nota = parseNota(changes.optString("nota"));
+            if (nota < 0) return invalid();
+            review.put("nota", String.valueOf(nota));
+        }
+        if (changes.has("titulo")) review.put("titulo", changes.getString("titulo"));
+        if (changes.has("descricao")) review.put("descricao", changes.getString("descricao"));
+        review.put("editado", "true");
+        updateRating(Integer.parseInt(review.getString("id_filme")));
+        return status("200", "Review atualizada.");
+    }
+
+    private JSONObject deleteReview(User user, String idReview) {
+        int id = parseId(idReview);
+        if (id < 0) return status("400", "Id inválido.");
+        JSONObject review = reviews.get(id);
+        if (review == null) return notFound();
+        if (!review.getString("nome_usuario").equals(user.nome) && !user.isAdmin()) return forbidden();
+        removeReview(review);
+        return status("200", "Review excluída.");
+    }
+
+    private void removeReview(JSONObject review) {
+        int id = Integer.parseInt(review.getString("id"));
+        int movieId = Integer.parseInt(review.getString("id_filme"));
+        reviews.remove(id);
+        TreeMap<Integer, JSONObject> byMovie = reviewsByMovie.get(movieId);
+        if (byMovie != null) byMovie.remove(id);
+        User author = usersByName.get(review.getString("nome_usuario"));
+        if (author != null) {
+            author.reviews.remove(id);
+            reviewed.remove(author.id + ":" + movieId);
+        }
+        if (movies.containsKey(movieId)) updateRating(movieId);
+    }
+
+    private void updateRating(int movieId) {
+        TreeMap<Integer, JSONObject> byMovie = reviewsByMovie.get(movieId);
+        long sum = 0;
+        for (JSONObject r : byMovie.values()) sum += Integer.parseInt(r.getString("nota"));
+        JSONObject movie = movies.get(movieId);
+        movie.put("qtd_avaliacoes", String.valueOf(byMovie.size()));
+        movie.put("nota", byMovie.isEmpty() ? "0" : String.format(Locale.ROOT, "%.1f", (double) sum / byMovie.size()));
+    }
+
+    // --- auxiliares ---
+
+    /** Lista paginada por id: "cursor" é o último id entregue, "limite" o tamanho da página (ausente = tudo). */
+    private static JSONObject page(JSONObject request, String field, NavigableMap<Integer, JSONObject> items) {
+        int limit = request.optInt("limite", 0);
+        String cursor = request.optString("cursor", null);
+        NavigableMap<Integer, JSONObject> from = cursor == null ? items : items.tailMap(parseId(cursor), false);
+
+        JSONArray array = new JSONArray();
+        Iterator<Map.Entry<Integer, JSONObject>> it = from.entrySet().iterator();
+        int lastId = -1;
+        while (it.hasNext() && (limit <= 0 || array.length() < limit)) {
+            Map.Entry<Integer, JSONObject> e = it.next();
+            array.put(e.getValue());
+            lastId = e.getKey();
+        }
+        JSONObject response = status("200", "Sucesso").put(field, array);
+        if (it.hasNext()) response.put(PageIterator.NEXT_CURSOR_FIELD, String.valueOf(lastId));
+        return response;
+    }
+
+    private static JSONObject status(String code, String mensagem) {
+        return new JSONObject().put("status", code).put("mensagem", mensagem);
+    }
+
+    private static JSONObject forbidden() {
+        return status("403", "Sem permissão para esta operação.");
+    }
+
+    private static JSONObject notFound() {
+        return status("404", "Recurso não encontrado.");
+    }
+
+    private static JSONObject invalid() {
+        return status("405", "Campos inválidos.");
+    }
+
+    private static boolean blank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static int parseId(String s) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static int parseNota(String s) {
+        int nota = parseId(s);
+        return nota >= 1 && nota <= 5 ? nota : -1;
+    }
+}
@@ -0,0 +1,128 @@
+import org.json.JSONObject;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Executor central das tarefas de rede da interface, no lugar dos SwingWorker.
+ * Cada tarefa roda numa thread virtual própria: E/S bloqueante não limita quantas andam ao
+ * mesmo tempo (o executor do SwingWorker tem no máximo 10 threads e a 11ª tarefa esperava
+ * atrás das lentas). Resultado e erro são entregues na EDT; uma tarefa cancelada é
+ * interrompida e não entrega mais nada, nem se o resultado já estiver na fila da EDT.
+ */
+public final class UiTasks {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("voteflix-ui-", 0).factory());
+
+    /** Trabalho em segundo plano; pode lançar qualquer exceção. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws Exception;
+    }
+
+    /** Tarefa em andamento. */
+    public static final class Task {
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        /** Interrompe a tarefa e descarta o que ela ainda entregaria. Chamar da EDT. */
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            Future<?> f = future;
+            return f != null && f.isDone();
+        }
+
+        private void deliver(Runnable callback) {
+            SwingUtilities.invokeLater(() -> {
+                if (!cancelled) callback.run();
+            });
+        }
+    }
+
+    private UiTasks() {
+    }
+
+    /**
+     * Executa work fora da EDT e entrega o resultado a onSuccess, ou a exceção a onFailure, na EDT.
+     * Não há versão sem onFailure: um erro nunca some no stderr (ver reportTo).
+     */
+    public static <T> Task submit(Work<T> work, Consumer<? super T> onSuccess, Consumer<? super Exception> onFailure) {
+        Task task = new Task();
+        task.future = EXECUTOR.submit(() -> {
+            try {
+                T result = work.run();
+                task.deliver(() -> onSuccess.accept(result));
+            } catch (Exception e) {
+                if (!task.cancelled) task.deliver(() -> onFailure.accept(e));
+            }
+        });
+        return task;
+    }
+
+    /** Tratamento de falha padrão: mostra a causa num diálogo de erro sobre owner. Roda na EDT. */
+    public static Consumer<Exception> reportTo(Component owner) {
+        return e -> JOptionPane.showMessageDialog(owner, "Erro de comunicação: " + message(e), "Erro", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // A causa real, sem os invólucros que os futures e o PageIterator põem em volta
+    private static String message(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException || e instanceof UncheckedIOException)
+                && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Envia uma requisição cuja resposta só importa pelo status: em 2xx executa onSuccess
+     * (ou, se for null, mostra a mensagem do servidor); nos demais, mostra o erro sobre owner.
+     */
+    public static Task request(Component owner, Work<JSONObject> work, Runnable onSuccess) {
+        return submit(work, res -> {
+            if (res.optString("status").startsWith("2")) {
+                if (onSuccess != null) onSuccess.run();
+                else JOptionPane.showMessageDialog(owner, res.optString("mensagem"));
+            } else {
+                JOptionPane.showMessageDialog(owner, "Erro: " + res.optString("mensagem"));
+            }
+        }, reportTo(owner));
+    }
+
+    /**
+     * Envia uma mutação já aplicada na tela. Em 2xx entrega a resposta a onConfirmed (pode ser null);
+     * em erro ou falha de comunicação, desfaz com undo e mostra a mensagem sobre owner.
+     * 404 numa exclusão não desfaz: o item já não existe no servidor.
+     */
+    public static Task optimistic(Component owner, ModelList.Undo undo, boolean deletion, Work<JSONObject> work,
+                                  Consumer<JSONObject> onConfirmed) {
+        return submit(work, res -> {
+            String status = res.optString("status");
+            if (status.startsWith("2") || (deletion && "404".equals(status))) {
+                if (onConfirmed != null) onConfirmed.accept(res);
+            } else {
+                undo.undo();
+                JOptionPane.showMessageDialog(owner, "Erro: " + res.optString("mensagem", StatusCodeHandler.getMessage(status)));
+            }
+        }, e -> {
+            undo.undo();
+            reportTo(owner).accept(e);
+        });
+    }
+}
@@ -0,0 +1,230 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Log do tráfego cliente/servidor e dos alertas do cliente, fora do caminho crítico das requisições.
+ * As entradas vão para um buffer circular limitado e são formatadas, censuradas e escritas
+ * por uma thread de fundo; com o buffer cheio, a entrada é descartada em vez de bloquear.
+ * No nível padrão (WARN) só os alertas são registrados, e o log de tráfego custa só a
+ * leitura de um campo volatile.
+ *
+ * Configuração por propriedades de sistema:
+ *   voteflix.wire.level    OFF | WARN (só alertas) | INFO (operação, status e tamanho) | DEBUG (também o conteúdo)
+ *   voteflix.wire.maxChars limite de caracteres do conteúdo registrado (padrão 2000)
+ *   voteflix.wire.sample   fração das requisições registradas, entre 0 e 1 (padrão 1)
+ */
+public final class WireLogger {
+
+    public enum Level { OFF, WARN, INFO, DEBUG }
+
+    /** Destino das linhas já formatadas. */
+    @FunctionalInterface
+    public interface Sink {
+        void write(String line);
+    }
+
+    // Campos cujo valor nunca aparece no log
+    private static final Pattern REDACTED = Pattern.compile("\"(senha|token)\"\\s*:\\s*\"(?:[^\"\\\\]|\\\\.)*(\"|$)");
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private static volatile Level level = Level.valueOf(System.getProperty("voteflix.wire.level", "WARN").toUpperCase());
+    private static volatile int maxChars = Integer.getInteger("voteflix.wire.maxChars", 2000);
+    private static volatile long sampleEvery = sampleInterval(Double.parseDouble(System.getProperty("voteflix.wire.sample", "1")));
+    private static volatile Sink sink = System.out::println;
+
+    private static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong sampleCounter = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile Thread writer;
+
+    private WireLogger() {
+    }
+
+    public static boolean isEnabled(Level wanted) {
+        Level current = level;
+        return current != Level.OFF && current.compareTo(wanted) >= 0;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static void setMaxChars(int chars) {
+        maxChars = chars;
+    }
+
+    /** Fração das requisições a registrar (ex.: 0.01 registra 1 em cada 100). */
+    public static void setSampleRate(double rate) {
+        sampleEvery = sampleInterval(rate);
+    }
+
+    public static void setSink(Sink newSink) {
+        sink = newSink;
+    }
+
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Decide se a próxima requisição entra na amostra. Só deve ser chamado com o log ligado.
+     */
+    public static boolean sample() {
+        long every = sampleEvery;
+        return every <= 1 || sampleCounter.getAndIncrement() % every == 0;
+    }
+
+    public static int payloadLimit() {
+        return maxChars;
+    }
+
+    /**
+     * Registra uma mensagem. payload pode ser null (nível INFO) e já deve vir truncado por quem chama.
+     */
+    public static void log(String direction, String operation, String status, long bytes, String payload) {
+        if (writer == null) ensureWriter();
+        if (!queue.offer(new Entry(System.currentTimeMillis(), direction, operation, status, bytes, payload))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Registra um aviso do cliente sobre o protocolo (ex.: um recurso que o servidor não suporta),
+     * no nível INFO. Não conta para a amostragem: avisos são raros e não devem se perder.
+     */
+    public static void notice(String operation, String status, String message) {
+        if (isEnabled(Level.INFO)) log("AVISO", operation, status, -1, message);
+    }
+
+    /**
+     * Registra um problema do cliente (conexão perdida, arquivo local inválido...) no nível WARN.
+     * source diz de onde vem (ex.: "ConnectionPool"). Não conta para a amostragem.
+     */
+    public static void warn(String source, String message) {
+        if (isEnabled(Level.WARN)) log("ALERTA", source, null, -1, message);
+    }
+
+    public static String truncate(String text) {
+        int limit = maxChars;
+        return text.length() <= limit ? text : text.substring(0, limit) + "...(+" + (text.length() - limit) + " chars)";
+    }
+
+    /**
+     * Serializa json só até o limite de caracteres: uma resposta com o catálogo inteiro custa
+     * o mesmo que uma pequena na thread leitora, em vez de ser convertida toda em texto.
+     */
+    public static String truncate(JSONObject json) {
+        LimitedWriter out = new LimitedWriter(maxChars);
+        try {
+            json.write(out);
+        } catch (JSONException e) {
+            // Valores aninhados embrulham o erro de novo a cada nível
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof LimitReached) return out.text() + "...(truncado)";
+            }
+            return "(conteúdo não serializável: " + e.getMessage() + ")";
+        }
+        return out.text();
+    }
+
+    private static synchronized void ensureWriter() {
+        if (writer != null) return;
+        writer = new Thread(WireLogger::drain, "voteflix-wire-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static void drain() {
+        try {
+            while (true) {
+                Entry e = queue.take();
+                sink.write(format(e));
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String format(Entry e) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(LocalTime.ofInstant(Instant.ofEpochMilli(e.timeMillis), ZoneId.systemDefault())).append(' ')
+                .append('[').append(e.direction).append("] ")
+                .append(e.operation);
+        if (e.status != null) sb.append(" status=").append(e.status);
+        if (e.bytes >= 0) sb.append(' ').append(e.bytes).append(" bytes");
+        if (e.payload != null) {
+            sb.append(": ").append(redact(e.payload));
+        }
+        return sb.toString();
+    }
+
+    static String redact(String payload) {
+        Matcher m = REDACTED.matcher(payload);
+        if (!m.find()) return payload;
+        StringBuilder sb = new StringBuilder(payload.length());
+        do {
+            m.appendReplacement(sb, "\"" + m.group(1) + "\":\"***\"");
+        } while (m.find());
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static long sampleInterval(double rate) {
+        if (rate <= 0) return Long.MAX_VALUE;
+        return Math.max(1, Math.round(1 / Math.min(1, rate)));
+    }
+
+    private record Entry(long timeMillis, String direction, String operation, String status, long bytes, String payload) {}
+
+    private static final class LimitReached extends IOException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this; // só interrompe a serialização: a pilha não interessa
+        }
+    }
+
+    /** Acumula até limit caracteres e interrompe a escrita no seguinte. */
+    private static final class LimitedWriter extends Writer {
+        private final StringBuilder text = new StringBuilder();
+        private final int limit;
+
+        LimitedWriter(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            int room = limit - text.length();
+            text.append(chars, off, Math.min(room, len));
+            if (len > room) throw new LimitReached();
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            int room = limit - text.length();
+            text.append(str, off, off + Math.min(room, len));
+            if (len > room) throw new LimitReached();
+        }
+
+        String text() {
+            return text.toString();
+        }
+
+        @Override public void flush() {
+        }
+
+        @Override public void close() {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cópia do catálogo em disco: o que é gravado volta igual, por faixa, e um arquivo corrompido
+ * ou truncado é apagado e ignorado em vez de virar filmes errados na tela.
+ */
+class CatalogSnapshotTest {
+
+    private static final String SERVER = "127.0.0.1:20000";
+
+    private static JSONArray movies(int count) {
+        JSONArray movies = new JSONArray();
+        for (int i = 1; i <= count; i++) {
+            movies.put(new JSONObject()
+                    .put("id", String.valueOf(i))
+                    .put("titulo", "Filme número " + i + " — ação")
+                    .put("ano", String.valueOf(1990 + i))
+                    .put("genero", new JSONArray().put("Ação").put("Drama"))
+                    .put("sinopse", "Sinopse " + i));
+        }
+        return movies;
+    }
+
+    /** Roda body com a pasta das cópias apontando para uma pasta temporária, apagada no fim. */
+    private static void withSnapshotDir(ThrowingConsumer<Path> body) throws Exception {
+        Path dir = Files.createTempDirectory("voteflix-snapshot");
+        String previous = System.getProperty("voteflix.snapshot.dir");
+        System.setProperty("voteflix.snapshot.dir", dir.toString());
+        try {
+            body.accept(dir);
+        } finally {
+            if (previous == null) System.clearProperty("voteflix.snapshot.dir");
+            else System.setProperty("voteflix.snapshot.dir", previous);
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingConsumer<T> {
+        void accept(T value) throws Exception;
+    }
+
+    private static Path onlyFile(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws Exception {
+        withSnapshotDir(dir -> {
+            JSONArray movies = movies(50);
+            CatalogSnapshot.write(SERVER, CatalogSnapshot.encode(movies));
+
+            CatalogSnapshot snapshot = CatalogSnapshot.openLatest(SERVER);
+
+            assertNotNull(snapshot);
+            assertEquals(50, snapshot.size());
+            assertTrue(movies.similar(snapshot.read(0, 50)));
+            JSONArray page = snapshot.read(10, 20);
+            assertEquals(10, page.length());
+            assertTrue(movies.getJSONObject(10).similar(page.getJSONObject(0)));
+        });
+    }
+
+    @Test
+    void discardsFileWhoseChecksumDoesNotMatch() throws Exception {
+        withSnapshotDir(dir -> {
+            CatalogSnapshot.write(SERVER, CatalogSnapshot.encode(movies(20)));
+            Path file = onlyFile(dir);
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[bytes.length / 2] ^= 0x5A;
+            Files.write(file, bytes);
+
+            assertNull(CatalogSnapshot.openLatest(SERVER));
+            assertFalse(Files.exists(file));
+        });
+    }
+
+    @Test
+    void discardsTruncatedFile() throws Exception {
+        withSnapshotDir(dir -> {
+            CatalogSnapshot.write(SERVER, CatalogSnapshot.encode(movies(20)));
+            Path file = onlyFile(dir);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 7));
+
+            assertNull(CatalogSnapshot.openLatest(SERVER));
+            assertFalse(Files.exists(file));
+        });
+    }
+
+    @Test
+    void keepsOnlyTheLatestCopy() throws Exception {
+        withSnapshotDir(dir -> {
+            CatalogSnapshot.write(SERVER, CatalogSnapshot.encode(movies(5)));
+            Thread.sleep(5); // nomes com a data de gravação
+            CatalogSnapshot.write(SERVER, CatalogSnapshot.encode(movies(8)));
+
+            CatalogSnapshot snapshot = CatalogSnapshot.openLatest(SERVER);
+
+            assertEquals(8, snapshot.size());
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(1L, files.count());
+            }
+        });
+    }
+}
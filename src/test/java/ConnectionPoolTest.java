@@ -0,0 +1,90 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pool contra o StubServer: as conexões extras abrem em segundo plano sem passar do limite,
+ * toda requisição é respondida mesmo enquanto elas abrem, e o pool encerrado falha na hora.
+ */
+class ConnectionPoolTest {
+
+    private static final int MAX_SIZE = 3;
+
+    private static CompletableFuture<JSONObject> findMovie(ConnectionPool pool, String token, int id) {
+        return pool.send(Operation.BUSCAR_FILME_ID, token, enc -> enc.string(RequestEncoder.ID_FILME, String.valueOf(id)), null);
+    }
+
+    @Test
+    void spreadsRequestsOverConnectionsUpToTheLimit() throws Exception {
+        try (StubServer server = new StubServer(0).seed(20, 0, 0).latency(Operation.BUSCAR_FILME_ID, 20, 0).start()) {
+            for (ServerConnection.Transport transport : ServerConnection.Transport.values()) {
+                ConnectionPool pool = new ConnectionPool("127.0.0.1", server.getPort(), MAX_SIZE, transport,
+                        DeflateFrames.DISABLED, new NetworkMetrics());
+                try {
+                    String token = pool.login("admin", "admin").get(5, TimeUnit.SECONDS).getString("token");
+                    for (int round = 0; round < 5; round++) {
+                        List<CompletableFuture<JSONObject>> pending = new ArrayList<>();
+                        for (int i = 1; i <= 10; i++) pending.add(findMovie(pool, token, i));
+                        for (CompletableFuture<JSONObject> f : pending) {
+                            assertEquals("200", f.get(5, TimeUnit.SECONDS).getString("status"));
+                        }
+                        assertTrue(pool.size() <= MAX_SIZE, "pool passou do limite: " + pool.size());
+                    }
+                    assertEquals(MAX_SIZE, pool.size());
+                } finally {
+                    pool.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void logoutEndsTheSession() throws Exception {
+        try (StubServer server = new StubServer(0).seed(20, 0, 0).latency(Operation.BUSCAR_FILME_ID, 20, 0).start()) {
+            ConnectionPool pool = new ConnectionPool("127.0.0.1", server.getPort(), MAX_SIZE,
+                    ServerConnection.Transport.BLOCKING, DeflateFrames.DISABLED, new NetworkMetrics());
+            try {
+                String token = pool.login("admin", "admin").get(5, TimeUnit.SECONDS).getString("token");
+                for (int round = 0; round < 3; round++) {
+                    List<CompletableFuture<JSONObject>> pending = new ArrayList<>();
+                    for (int i = 1; i <= 6; i++) pending.add(findMovie(pool, token, i));
+                    for (CompletableFuture<JSONObject> f : pending) f.get(5, TimeUnit.SECONDS);
+                }
+
+                assertEquals("200", pool.send(Operation.LOGOUT, token, RequestEncoder.EMPTY, null)
+                        .get(5, TimeUnit.SECONDS).getString("status"));
+
+                // Sem credenciais guardadas, o pool manda o token antigo como veio: o servidor já o esqueceu
+                assertEquals("401", pool.send(Operation.LISTAR_PROPRIO_USUARIO, token, RequestEncoder.EMPTY, null)
+                        .get(5, TimeUnit.SECONDS).getString("status"));
+            } finally {
+                pool.close();
+            }
+        }
+    }
+
+    @Test
+    void failsRightAwayOnceClosed() throws Exception {
+        try (StubServer server = new StubServer(0).start()) {
+            ConnectionPool pool = new ConnectionPool("127.0.0.1", server.getPort(), MAX_SIZE,
+                    ServerConnection.Transport.BLOCKING, DeflateFrames.DISABLED, new NetworkMetrics());
+            pool.close();
+
+            CompletableFuture<JSONObject> result = pool.send(Operation.LISTAR_FILMES, null, RequestEncoder.EMPTY, null);
+
+            assertTrue(result.isDone());
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+}
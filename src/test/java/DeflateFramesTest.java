@@ -0,0 +1,85 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Quadros comprimidos: o que sai de compress volta igual em inflate, e o LineStream devolve
+ * as mensagens como linhas, misturando quadros e linhas comuns na mesma conexão.
+ */
+class DeflateFramesTest {
+
+    private static String catalog() {
+        JSONArray filmes = new JSONArray();
+        for (int i = 0; i < 2_000; i++) {
+            filmes.put(new JSONObject().put("id", String.valueOf(i)).put("titulo", "Filme " + i + " — ação")
+                    .put("genero", new JSONArray().put("Drama").put("Comédia")));
+        }
+        return new JSONObject().put("status", "200").put("filmes", filmes).toString();
+    }
+
+    @Test
+    void inflateReturnsWhatWasCompressed() throws IOException {
+        byte[] plain = catalog().getBytes(StandardCharsets.UTF_8);
+        DeflateFrames frames = new DeflateFrames();
+
+        int size = frames.compress(plain, 0, plain.length);
+
+        assertEquals(DeflateFrames.MARKER, frames.frame()[0]);
+        assertEquals(size - DeflateFrames.HEADER_SIZE, DeflateFrames.payloadLength(frames.frame(), 0));
+        assertTrue(size < plain.length / 4, "quadro de " + size + " bytes para " + plain.length);
+
+        byte[] frame = Arrays.copyOf(frames.frame(), size);
+        frames.inflate(frame, DeflateFrames.HEADER_SIZE, size - DeflateFrames.HEADER_SIZE);
+        assertEquals(plain.length, frames.inflatedLength());
+        assertTrue(Arrays.equals(plain, Arrays.copyOf(frames.inflated(), frames.inflatedLength())));
+    }
+
+    @Test
+    void lineStreamMixesFramesAndPlainLines() throws IOException {
+        String small = "{\"status\":\"200\"}";
+        String big = catalog();
+        DeflateFrames sender = new DeflateFrames();
+        byte[] bigBytes = big.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        wire.writeBytes((small + "\n").getBytes(StandardCharsets.UTF_8));
+        int frameSize = sender.compress(bigBytes, 0, bigBytes.length);
+        wire.write(sender.frame(), 0, frameSize);
+        wire.writeBytes((small + "\n").getBytes(StandardCharsets.UTF_8));
+        List<long[]> read = new ArrayList<>();
+
+        DeflateFrames.LineStream lines = new DeflateFrames().lineStream(new ByteArrayInputStream(wire.toByteArray()),
+                (plainBytes, wireBytes) -> read.add(new long[]{plainBytes, wireBytes}));
+        String text = new String(lines.readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(small + "\n" + big + "\n" + small + "\n", text);
+        assertEquals(1, read.size());
+        assertEquals((long) bigBytes.length + 1, read.get(0)[0]);
+        assertEquals((long) frameSize, read.get(0)[1]);
+        assertEquals((long) wire.size(), lines.wirePosition());
+    }
+
+    @Test
+    void rejectsTruncatedAndOversizedFrames() {
+        byte[] plain = catalog().getBytes(StandardCharsets.UTF_8);
+        DeflateFrames frames = new DeflateFrames();
+        int size = frames.compress(plain, 0, plain.length);
+        byte[] frame = Arrays.copyOf(frames.frame(), size);
+
+        assertThrows(IOException.class, () -> frames.inflate(frame, DeflateFrames.HEADER_SIZE, (size - DeflateFrames.HEADER_SIZE) / 2));
+
+        byte[] header = {DeflateFrames.MARKER, 0x7F, 0, 0, 0};
+        assertThrows(IOException.class, () -> DeflateFrames.payloadLength(header, 0));
+    }
+}
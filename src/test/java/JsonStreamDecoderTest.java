@@ -0,0 +1,85 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Strings maiores que o buffer de chars (256) do decodificador: sinopses e descrições de review
+ * passam disso com frequência, e o array cresce no meio da leitura.
+ */
+class JsonStreamDecoderTest {
+
+    private static String longText(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        String pattern = "Sinopse com acentuação, \"aspas\" e emoji 🎬. ";
+        while (sb.length() < length) sb.append(pattern);
+        return sb.substring(0, length);
+    }
+
+    private static JSONObject decode(String json, int bufferSize, JsonStreamDecoder.ElementSink sink) throws Exception {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        return new JsonStreamDecoder(new ByteArrayInputStream(bytes), bufferSize).next(sink);
+    }
+
+    @Test
+    void readsStringLongerThanCharBuffer() throws Exception {
+        String sinopse = longText(5_000);
+        JSONObject expected = new JSONObject().put("status", "200").put("sinopse", sinopse);
+
+        JSONObject decoded = decode(expected.toString(), 64 * 1024, null);
+
+        assertEquals(sinopse, decoded.getString("sinopse"));
+    }
+
+    @Test
+    void readsLongStringSplitAcrossByteBufferRefills() throws Exception {
+        String descricao = longText(3_000);
+        JSONObject expected = new JSONObject().put("review", new JSONObject().put("descricao", descricao));
+
+        // Buffer de bytes pequeno: a string (e seus caracteres multibyte) chega em vários pedaços
+        JSONObject decoded = decode(expected.toString(), 64, null);
+
+        assertEquals(descricao, decoded.getJSONObject("review").getString("descricao"));
+    }
+
+    @Test
+    void deliversLongStringsInsideStreamedArrayElements() throws Exception {
+        JSONArray filmes = new JSONArray();
+        for (int i = 0; i < 3; i++) {
+            filmes.put(new JSONObject().put("id", String.valueOf(i)).put("sinopse", longText(300 + i * 700)));
+        }
+        List<Object> received = new ArrayList<>();
+        JsonStreamDecoder.ElementSink sink = new JsonStreamDecoder.ElementSink() {
+            @Override public boolean wants(String field) {
+                return "filmes".equals(field);
+            }
+            @Override public void accept(String field, Object element) {
+                received.add(element);
+            }
+        };
+
+        decode(new JSONObject().put("status", "200").put("filmes", filmes).toString(), 128, sink);
+
+        assertEquals(3, received.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(longText(300 + i * 700), ((JSONObject) received.get(i)).getString("sinopse"));
+        }
+    }
+
+    @Test
+    void readsLongStringFromWholeMessage() throws Exception {
+        String sinopse = longText(1_000);
+        byte[] bytes = new JSONObject().put("sinopse", sinopse).toString().getBytes(StandardCharsets.UTF_8);
+        JsonStreamDecoder decoder = new JsonStreamDecoder();
+
+        decoder.reset(bytes, 0, bytes.length);
+
+        assertEquals(sinopse, decoder.next(null).getString("sinopse"));
+    }
+}
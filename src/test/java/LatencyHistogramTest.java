@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Percentis do histograma log-linear contra os exatos de uma amostra ordenada: erro relativo
+ * dentro do prometido (~6%) e nunca abaixo do valor real.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundsContainTheirValues() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1_000, 65_535, 1_000_000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long v : values) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= v, "limite abaixo de " + v);
+            if (bucket > 0) assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < v, "bucket anterior já contém " + v);
+        }
+    }
+
+    @Test
+    void percentilesStayWithinTheRelativeError() {
+        Random random = new Random(7);
+        long[] samples = new long[20_000];
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < samples.length; i++) {
+            // Cauda longa, como latências de rede: quase tudo entre 0,1 e 5 ms, alguns segundos
+            samples[i] = (long) (100_000 * Math.exp(random.nextGaussian() * 1.5));
+            h.record(samples[i]);
+        }
+        Arrays.sort(samples);
+
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            long exact = samples[(int) Math.ceil(samples.length * p / 100.0) - 1];
+            long estimate = h.percentileNanos(p);
+            assertTrue(estimate >= exact, "p" + p + " abaixo do real: " + estimate + " < " + exact);
+            assertTrue(estimate <= exact * 1.07, "p" + p + " longe demais: " + estimate + " vs " + exact);
+        }
+        assertEquals(samples[samples.length - 1], h.maxNanos());
+        assertEquals(samples[samples.length - 1], h.percentileNanos(100));
+        assertEquals(samples.length, h.count());
+    }
+
+    @Test
+    void emptyAndResetHistogramsReportZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0L, h.percentileNanos(99));
+
+        h.record(5_000);
+        h.record(-3); // relógio que voltou: conta como zero
+        assertEquals(2, h.count());
+        assertEquals(0L, h.percentileNanos(50));
+        assertEquals(5_000L, h.percentileNanos(100));
+
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0L, h.maxNanos());
+        assertEquals(0L, h.percentileNanos(50));
+    }
+}
@@ -0,0 +1,131 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Lista observável: cada alteração avisa os ouvintes só do item afetado e o Undo devolvido
+ * deixa a lista como estava, com os itens nas posições de antes.
+ */
+class ModelListTest {
+
+    private static JSONObject item(String id) {
+        return new JSONObject().put("id", id);
+    }
+
+    private static ModelList list(int size) {
+        ModelList list = new ModelList();
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < size; i++) items.put(item("x" + i));
+        list.replaceAll(items);
+        return list;
+    }
+
+    private static List<String> ids(ModelList list) {
+        return list.items().stream().map(i -> i.getString("id")).toList();
+    }
+
+    /** Cópia dos ids mantida só pelos avisos: prova que os índices avisados estão certos. */
+    private static List<String> shadow(ModelList list) {
+        List<String> shadow = new ArrayList<>(ids(list));
+        list.addListener(new ModelList.Listener() {
+            @Override public void added(int index, JSONObject item) {
+                shadow.add(index, item.getString("id"));
+            }
+
+            @Override public void changed(int index, JSONObject previous, JSONObject item) {
+                shadow.set(index, item.getString("id"));
+            }
+
+            @Override public void removed(int index, JSONObject item) {
+                assertEquals(shadow.get(index), item.getString("id"));
+                shadow.remove(index);
+            }
+        });
+        return shadow;
+    }
+
+    @Test
+    void singleChangesUndoInReverseOrder() {
+        ModelList list = list(4);
+        List<String> shadow = shadow(list);
+
+        ModelList.Undo undo = list.remove("x1");
+        undo = list.replace(item("x2").put("titulo", "novo")).andThen(undo);
+        undo = list.add(item("x9")).andThen(undo);
+
+        assertEquals(List.of("x0", "x2", "x3", "x9"), ids(list));
+        assertEquals("novo", list.find("x2").getString("titulo"));
+        assertEquals(ids(list), shadow);
+
+        undo.undo();
+
+        assertEquals(List.of("x0", "x1", "x2", "x3"), ids(list));
+        assertEquals(ids(list), shadow);
+        assertFalse(list.find("x2").has("titulo"));
+        assertEquals(-1, list.indexOf("x9"));
+    }
+
+    @Test
+    void removeAllReportsAscendingOriginalPositions() {
+        ModelList list = list(6);
+        List<int[]> reported = new ArrayList<>();
+        list.addListener(new ModelList.Listener() {
+            @Override public void added(int index, JSONObject item) { }
+            @Override public void changed(int index, JSONObject previous, JSONObject item) { }
+            @Override public void removed(int index, JSONObject item) { }
+
+            @Override public void removedAll(int[] indices, List<JSONObject> items) {
+                reported.add(indices);
+            }
+        });
+
+        ModelList.Removal removal = list.removeAll(List.of("x4", "x1", "desconhecido", "x5"));
+
+        assertEquals(List.of("x0", "x2", "x3"), ids(list));
+        assertEquals(1, reported.size());
+        assertEquals("[1, 4, 5]", Arrays.toString(reported.get(0)));
+
+        removal.undo();
+        assertEquals(List.of("x0", "x1", "x2", "x3", "x4", "x5"), ids(list));
+    }
+
+    @Test
+    void partialRestorePutsItemsBackInTheirRelativePlaces() {
+        Random random = new Random(1);
+        for (int round = 0; round < 500; round++) {
+            int size = 1 + random.nextInt(30);
+            ModelList list = list(size);
+            List<String> shadow = shadow(list);
+            List<String> removed = new ArrayList<>();
+            for (int i = 0; i < size; i++) if (random.nextBoolean()) removed.add("x" + i);
+            Collections.shuffle(removed, random);
+            List<String> back = new ArrayList<>();
+            for (String id : removed) if (random.nextBoolean()) back.add(id);
+
+            ModelList.Removal removal = list.removeAll(removed);
+            removal.restore(back);
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String id = "x" + i;
+                if (!removed.contains(id) || back.contains(id)) expected.add(id);
+            }
+            assertEquals(expected, ids(list));
+            assertEquals(expected, shadow);
+
+            // O resto volta depois, sem duplicar os que já voltaram
+            removal.undo();
+            assertEquals(ids(list(size)), ids(list));
+            assertEquals(ids(list), shadow);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache de detalhes: limite em bytes estimados com saída pela ordem LRU, uma busca por filme
+ * em voo e respostas descartadas quando uma mutação as deixa desatualizadas.
+ */
+class MovieDetailCacheTest {
+
+    /** NetworkService sem rede: cada BUSCAR_FILME_ID fica pendente até o teste responder. */
+    private static final class FakeNetwork extends NetworkService {
+        final List<String> requested = new ArrayList<>();
+        final Map<String, CompletableFuture<JSONObject>> pending = new HashMap<>();
+
+        @Override
+        public CompletableFuture<JSONObject> getMovieByIdAsync(String idFilme) {
+            requested.add(idFilme);
+            CompletableFuture<JSONObject> future = new CompletableFuture<>();
+            pending.put(idFilme, future);
+            return future;
+        }
+
+        void answer(String idFilme, int reviews) {
+            pending.remove(idFilme).complete(details(idFilme, reviews));
+        }
+    }
+
+    private static JSONObject details(String idFilme, int reviewCount) {
+        JSONArray reviews = new JSONArray();
+        for (int i = 0; i < reviewCount; i++) {
+            reviews.put(new JSONObject().put("id", idFilme + "-" + i).put("nota", "4").put("descricao", "Muito bom, recomendo."));
+        }
+        return new JSONObject().put("status", "200")
+                .put("filme", new JSONObject().put("id", idFilme).put("titulo", "Filme " + idFilme))
+                .put("reviews", reviews);
+    }
+
+    private static void load(FakeNetwork network, MovieDetailCache cache, String id, int reviews) {
+        CompletableFuture<JSONObject> future = cache.getAsync(id);
+        network.answer(id, reviews);
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverTheByteLimit() {
+        long small = MovieDetailCache.estimateBytes(details("1", 0));
+        FakeNetwork network = new FakeNetwork();
+        MovieDetailCache cache = new MovieDetailCache(network, small * 3, Long.MAX_VALUE);
+        load(network, cache, "1", 0);
+        load(network, cache, "2", 0);
+        load(network, cache, "3", 0);
+        assertNotNull(cache.getIfPresent("1")); // o 2 passa a ser o menos usado
+
+        load(network, cache, "4", 0);
+
+        assertNull(cache.getIfPresent("2"));
+        assertNotNull(cache.getIfPresent("1"));
+        assertNotNull(cache.getIfPresent("3"));
+        assertNotNull(cache.getIfPresent("4"));
+        assertEquals(1L, cache.getEvictions());
+        assertEquals(small * 3, cache.getBytes());
+    }
+
+    @Test
+    void bigResponsePushesOutSeveralSmallOnes() {
+        long small = MovieDetailCache.estimateBytes(details("1", 0));
+        long big = MovieDetailCache.estimateBytes(details("9", 5));
+        FakeNetwork network = new FakeNetwork();
+        MovieDetailCache cache = new MovieDetailCache(network, big + small, Long.MAX_VALUE);
+        load(network, cache, "1", 0);
+        load(network, cache, "2", 0);
+        load(network, cache, "3", 0);
+
+        load(network, cache, "9", 5);
+
+        assertNull(cache.getIfPresent("1"));
+        assertNull(cache.getIfPresent("2"));
+        assertNotNull(cache.getIfPresent("3"));
+        assertNotNull(cache.getIfPresent("9"));
+        assertEquals(big + small, cache.getBytes());
+
+        // Maior que o cache inteiro: é entregue, mas não guardado nem expulsa ninguém
+        load(network, cache, "10", 500);
+        assertNull(cache.getIfPresent("10"));
+        assertNotNull(cache.getIfPresent("3"));
+    }
+
+    @Test
+    void concurrentRequestsShareOneFetch() {
+        FakeNetwork network = new FakeNetwork();
+        MovieDetailCache cache = new MovieDetailCache(network, 1 << 20, Long.MAX_VALUE);
+
+        cache.prefetchFirst("7");
+        CompletableFuture<JSONObject> first = cache.getAsync("7");
+        CompletableFuture<JSONObject> second = cache.getAsync("7");
+        network.answer("7", 2);
+
+        assertEquals(List.of("7"), network.requested);
+        assertTrue(first.join() == second.join());
+        assertNotNull(cache.getIfPresent("7"));
+    }
+
+    @Test
+    void mutationsDropStaleResponses() {
+        FakeNetwork network = new FakeNetwork();
+        MovieDetailCache cache = new MovieDetailCache(network, 1 << 20, Long.MAX_VALUE);
+        load(network, cache, "1", 3);
+        load(network, cache, "2", 3);
+
+        // Só o id da review vem na requisição: sai o filme que a contém
+        cache.onMutation("EXCLUIR_REVIEW", new JSONObject().put("id", "2-1"), new JSONObject());
+        assertNull(cache.getIfPresent("2"));
+        assertNotNull(cache.getIfPresent("1"));
+
+        // Resposta que chega depois de uma edição do filme não entra no cache
+        cache.getAsync("3");
+        cache.onMutation("EDITAR_FILME", new JSONObject().put("filme", new JSONObject().put("id", "3")), new JSONObject());
+        network.answer("3", 1);
+        assertNull(cache.getIfPresent("3"));
+        assertEquals(MovieDetailCache.estimateBytes(details("1", 3)), cache.getBytes());
+    }
+}
@@ -0,0 +1,149 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Busca local: palavras sem acento casam como prefixo, todas precisam casar, o resultado vem na
+ * ordem do catálogo e as mutações confirmadas atualizam o índice sem reindexar tudo. Os filtros
+ * por gênero (E/OU) e as contagens por gênero saem dos mapas de bits.
+ */
+class MovieSearchIndexTest {
+
+    private static JSONObject movie(String id, String titulo, String diretor, String... generos) {
+        JSONArray genero = new JSONArray();
+        for (String g : generos) genero.put(g);
+        return new JSONObject().put("id", id).put("titulo", titulo).put("diretor", diretor)
+                .put("sinopse", "Sinopse de " + titulo).put("genero", genero);
+    }
+
+    private static JSONArray movies() {
+        return new JSONArray()
+                .put(movie("1", "Cidade de Deus", "Fernando Meirelles", "Drama", "Crime"))
+                .put(movie("2", "Central do Brasil", "Walter Salles", "Drama"))
+                .put(movie("3", "O Auto da Compadecida", "Guel Arraes", "Comédia"))
+                .put(movie("4", "Tropa de Elite", "José Padilha", "Ação", "Crime"));
+    }
+
+    private static MovieSearchIndex catalog() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        index.replaceAll(movies());
+        return index;
+    }
+
+    private static List<String> ids(List<JSONObject> movies) {
+        return movies.stream().map(m -> m.getString("id")).toList();
+    }
+
+    @Test
+    void tokenizeFoldsCaseAndAccents() {
+        assertEquals(List.of("acao", "ficcao", "cientifica", "2002"), MovieSearchIndex.tokenize("AÇÃO, Ficção-Científica (2002)"));
+        assertEquals(List.of(), MovieSearchIndex.tokenize("  -- "));
+        assertEquals("ficcao cientifica", MovieSearchIndex.genreKey("Ficção  Científica"));
+    }
+
+    @Test
+    void everyWordMustMatchAsPrefix() {
+        MovieSearchIndex index = catalog();
+
+        assertEquals(List.of("1", "2"), ids(index.search("dram")));
+        assertEquals(List.of("4"), ids(index.search("acao")));
+        assertEquals(List.of("1"), ids(index.search("CRIME meir")));
+        assertEquals(List.of(), ids(index.search("crime salles")));
+        assertEquals(List.of("1", "2", "3", "4"), ids(index.search("  ")));
+    }
+
+    @Test
+    void mutationsUpdateOnlyTheAffectedMovie() {
+        MovieSearchIndex index = catalog();
+
+        index.onMutation("CRIAR_FILME", new JSONObject(),
+                new JSONObject().put("status", "201").put("filme", movie("5", "Bacurau", "Kleber Mendonça", "Drama")));
+        JSONObject edit = new JSONObject().put("id", "2").put("titulo", "Estação Central").put("sinopse", "Carta a um pai");
+        index.onMutation("EDITAR_FILME", new JSONObject().put("filme", edit), new JSONObject());
+        index.onMutation("EXCLUIR_FILME", new JSONObject().put("id", "1"), new JSONObject());
+
+        assertEquals(List.of("2", "5"), ids(index.search("drama")));
+        assertEquals(List.of("2"), ids(index.search("estacao")));
+        assertEquals(List.of(), ids(index.search("brasil")));
+        assertEquals(List.of("2"), ids(index.search("salles"))); // campos não editados continuam
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void editKeepsThePositionInTheCatalog() {
+        MovieSearchIndex index = catalog();
+
+        index.addAll(new JSONArray().put(movie("1", "Cidade de Deus (remasterizado)", "Fernando Meirelles", "Drama")));
+
+        assertEquals(List.of("1", "2"), ids(index.search("drama")));
+        assertEquals(List.of("1"), ids(index.search("remaster")));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shortPrefixesOverDenseTermsMatchLikeSparseOnes() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        JSONArray movies = new JSONArray();
+        for (int i = 0; i < 3_000; i++) {
+            movies.put(movie(String.valueOf(i), (i % 3 == 0 ? "Aventura " : "Mistério ") + i, "Diretor " + (i % 7), "Drama"));
+        }
+        index.replaceAll(movies);
+
+        assertEquals(1_000, index.search("a").size());
+        assertEquals(3_000, index.search("d").size());
+        assertEquals(2_000, index.search("mist dir").size());
+        // Remover docs de uma lista densa mantém BitSet e lista de acordo
+        for (int i = 0; i < 3_000; i += 2) {
+            index.onMutation("EXCLUIR_FILME", new JSONObject().put("id", String.valueOf(i)), new JSONObject());
+        }
+        assertEquals(500, index.search("aventura").size());
+        assertEquals(1_500, index.search("dram").size());
+    }
+
+    @Test
+    void genreFiltersCombineWithAndOrOr() {
+        MovieSearchIndex index = catalog();
+
+        assertEquals(List.of("1", "4"), ids(index.query("", List.of("crime"), true).movies()));
+        assertEquals(List.of("1"), ids(index.query("", List.of("Drama", "Crime"), true).movies()));
+        assertEquals(List.of("1", "2", "3"), ids(index.query("", List.of("Drama", "Comedia"), false).movies()));
+        assertEquals(List.of("2"), ids(index.query("salles", List.of("Drama", "Crime"), false).movies()));
+        assertEquals(List.of(), ids(index.query("", List.of("Faroeste"), false).movies()));
+        assertEquals(List.of("1", "2", "3", "4"), ids(index.query("", List.of(), true).movies()));
+    }
+
+    @Test
+    void facetsCountWhatEachGenreWouldLeave() {
+        MovieSearchIndex index = new MovieSearchIndex();
+        index.registerGenres("Ação", "Comédia", "Drama", "Crime", "Terror");
+        index.replaceAll(movies());
+
+        // E: dentro do resultado atual
+        assertEquals(Map.of("Ação", 1, "Comédia", 0, "Drama", 1, "Crime", 2, "Terror", 0),
+                index.query("", List.of("Crime"), true).genreCounts());
+        // OU: entre os que casam com o texto, antes do filtro de gênero
+        assertEquals(Map.of("Ação", 1, "Comédia", 1, "Drama", 2, "Crime", 2, "Terror", 0),
+                index.query("", List.of("Crime"), false).genreCounts());
+        assertEquals(List.of("Ação", "Comédia", "Drama", "Crime", "Terror"),
+                List.copyOf(index.query("de", List.of(), true).genreCounts().keySet()));
+    }
+
+    @Test
+    void genreBitmapsFollowEditsAndDeletes() {
+        MovieSearchIndex index = catalog();
+
+        // Numa edição o gênero pode vir como texto separado por vírgulas
+        JSONObject edit = new JSONObject().put("id", "3").put("genero", "Comédia, Crime");
+        index.onMutation("EDITAR_FILME", new JSONObject().put("filme", edit), new JSONObject());
+        index.onMutation("EXCLUIR_FILME", new JSONObject().put("id", "4"), new JSONObject());
+
+        assertEquals(List.of("1", "3"), ids(index.query("", List.of("Crime"), true).movies()));
+        assertEquals(List.of(), ids(index.query("", List.of("Ação"), true).movies()));
+        assertEquals(Map.of("Drama", 2, "Crime", 2, "Comédia", 1, "Ação", 0), index.query("", List.of(), true).genreCounts());
+    }
+}
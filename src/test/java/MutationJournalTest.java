@@ -0,0 +1,186 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Diário de mutações: as entradas saem uma por vez, na ordem em que foram gravadas, inclusive
+ * depois de uma queda ou numa sessão seguinte, e o reenvio leva a mesma chave de idempotência.
+ */
+class MutationJournalTest {
+
+    private static final String SERVER = "127.0.0.1:20000";
+
+    /** NetworkService sem rede que diz estar sempre conectado (ou nunca, com connected falso). */
+    private static final class FakeNetwork extends NetworkService {
+        private final boolean connected;
+
+        FakeNetwork(boolean connected) {
+            this.connected = connected;
+        }
+
+        @Override
+        CompletableFuture<Void> whenConnected() {
+            return connected ? CompletableFuture.completedFuture(null) : new CompletableFuture<>();
+        }
+    }
+
+    /** Servidor de mentira: registra "OPERACAO id chave" e responde 200, a não ser que falte conexão. */
+    private static final class Recorder implements MutationJournal.Sender {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        volatile int failuresLeft;
+        volatile String status = "200";
+
+        @Override
+        public CompletableFuture<JSONObject> send(Operation operation, String bodyFragment, String dedupKey) {
+            JSONObject request = new JSONObject("{\"operacao\":\"" + operation.name() + "\"" + bodyFragment + "}");
+            sent.add(operation.name() + " " + request.optString("id") + " " + dedupKey);
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                return CompletableFuture.failedFuture(new IOException("sem conexão"));
+            }
+            return CompletableFuture.completedFuture(new JSONObject().put("status", status));
+        }
+
+        List<String> operationsAndIds() {
+            synchronized (sent) {
+                return sent.stream().map(s -> s.substring(0, s.lastIndexOf(' '))).toList();
+            }
+        }
+    }
+
+    private static String delete(String id) {
+        return RequestEncoder.bodyFragment(Operation.EXCLUIR_REVIEW, e -> e.string(RequestEncoder.ID, id));
+    }
+
+    /** Roda body com a pasta do diário apontando para uma pasta temporária, apagada no fim. */
+    private static void withJournalDir(ThrowingRunnable body) throws Exception {
+        Path dir = Files.createTempDirectory("voteflix-journal");
+        String previous = System.getProperty("voteflix.snapshot.dir");
+        System.setProperty("voteflix.snapshot.dir", dir.toString());
+        try {
+            body.run();
+        } finally {
+            if (previous == null) System.clearProperty("voteflix.snapshot.dir");
+            else System.setProperty("voteflix.snapshot.dir", previous);
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    @Test
+    void sendsEntriesInTheOrderTheyWereWritten() throws Exception {
+        withJournalDir(() -> {
+            Recorder server = new Recorder();
+            MutationJournal journal = MutationJournal.open(SERVER, "ana", new FakeNetwork(true), server);
+            try {
+                List<CompletableFuture<JSONObject>> results = new ArrayList<>();
+                for (int i = 1; i <= 20; i++) results.add(journal.submit(Operation.EXCLUIR_REVIEW, delete(String.valueOf(i))));
+
+                for (CompletableFuture<JSONObject> result : results) {
+                    assertEquals("200", result.get(5, TimeUnit.SECONDS).getString("status"));
+                }
+                List<String> expected = new ArrayList<>();
+                for (int i = 1; i <= 20; i++) expected.add("EXCLUIR_REVIEW " + i);
+                assertEquals(expected, server.operationsAndIds());
+                assertEquals(0, journal.pendingCount());
+            } finally {
+                journal.close();
+            }
+        });
+    }
+
+    @Test
+    void resendsWithTheSameKeyAfterTheConnectionDrops() throws Exception {
+        withJournalDir(() -> {
+            Recorder server = new Recorder();
+            server.failuresLeft = 1;
+            MutationJournal journal = MutationJournal.open(SERVER, "ana", new FakeNetwork(true), server);
+            try {
+                CompletableFuture<JSONObject> first = journal.submit(Operation.EXCLUIR_REVIEW, delete("1"));
+                CompletableFuture<JSONObject> second = journal.submit(Operation.EXCLUIR_REVIEW, delete("2"));
+
+                // Sem conexão, quem enviou não espera a volta dela
+                assertEquals(MutationJournal.QUEUED_STATUS, first.get(5, TimeUnit.SECONDS).getString("status"));
+                assertEquals(MutationJournal.QUEUED_STATUS, second.get(5, TimeUnit.SECONDS).getString("status"));
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (journal.pendingCount() > 0 && System.nanoTime() < deadline) Thread.sleep(20);
+
+                assertEquals(0, journal.pendingCount());
+                assertEquals(List.of("EXCLUIR_REVIEW 1", "EXCLUIR_REVIEW 1", "EXCLUIR_REVIEW 2"), server.operationsAndIds());
+                assertEquals(server.sent.get(0), server.sent.get(1));
+            } finally {
+                journal.close();
+            }
+        });
+    }
+
+    @Test
+    void nextSessionReplaysWhatWasLeftInOrder() throws Exception {
+        withJournalDir(() -> {
+            Recorder offline = new Recorder();
+            offline.failuresLeft = Integer.MAX_VALUE;
+            MutationJournal journal = MutationJournal.open(SERVER, "ana", new FakeNetwork(false), offline);
+            List<CompletableFuture<JSONObject>> results = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) results.add(journal.submit(Operation.EXCLUIR_REVIEW, delete(String.valueOf(i))));
+            for (CompletableFuture<JSONObject> result : results) result.get(5, TimeUnit.SECONDS);
+            journal.close();
+            String firstKey = offline.sent.get(0).substring(offline.sent.get(0).lastIndexOf(' ') + 1);
+
+            Recorder server = new Recorder();
+            MutationJournal next = MutationJournal.open(SERVER, "ana", new FakeNetwork(true), server);
+            try {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (next.pendingCount() > 0 && System.nanoTime() < deadline) Thread.sleep(20);
+
+                assertEquals(List.of("EXCLUIR_REVIEW 1", "EXCLUIR_REVIEW 2", "EXCLUIR_REVIEW 3"), server.operationsAndIds());
+                assertTrue(server.sent.get(0).endsWith(" " + firstKey));
+                assertEquals(0, next.pendingCount());
+            } finally {
+                next.close();
+            }
+        });
+    }
+
+    @Test
+    void rejectionsAfterTheQueuedAnswerGoToTheConflictListener() throws Exception {
+        withJournalDir(() -> {
+            Recorder server = new Recorder();
+            server.failuresLeft = 1;
+            server.status = "409";
+            MutationJournal journal = MutationJournal.open(SERVER, "ana", new FakeNetwork(true), server);
+            List<String> conflicts = Collections.synchronizedList(new ArrayList<>());
+            journal.setConflictListener((operation, request, response) ->
+                    conflicts.add(operation.name() + " " + request.getString("id") + " " + response.getString("status")));
+            try {
+                journal.submit(Operation.EXCLUIR_FILME, RequestEncoder.bodyFragment(Operation.EXCLUIR_FILME,
+                        e -> e.string(RequestEncoder.ID, "8"))).get(5, TimeUnit.SECONDS);
+                // O ouvinte é avisado logo depois de a entrada sair da fila
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (conflicts.isEmpty() && System.nanoTime() < deadline) Thread.sleep(20);
+
+                assertEquals(List.of("EXCLUIR_FILME 8 409"), conflicts);
+            } finally {
+                journal.close();
+            }
+        });
+    }
+}
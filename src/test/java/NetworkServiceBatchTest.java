@@ -0,0 +1,121 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lotes: os itens vão num envelope LOTE e voltam na ordem em que foram pedidos, cada um avisado
+ * aos ouvintes de mutação; um servidor que recusa o envelope recebe os itens um a um, e os lotes
+ * seguintes já saem sem envelope.
+ */
+class NetworkServiceBatchTest {
+
+    private static final List<NetworkService.BatchItem> ITEMS = List.of(
+            NetworkService.BatchItem.deleteUser("2"),
+            NetworkService.BatchItem.deleteUser("99"),
+            NetworkService.BatchItem.deleteUser("3"));
+
+    private static List<String> statuses(BatchResult result) {
+        return result.responses().stream().map(r -> r.getString("status")).toList();
+    }
+
+    @Test
+    void sendsItemsInOneEnvelopeAndAnswersInOrder() throws Exception {
+        try (StubServer server = new StubServer(0).seed(0, 5, 0).start()) {
+            NetworkService service = new NetworkService();
+            service.connect("127.0.0.1", server.getPort(), 1, ServerConnection.Transport.BLOCKING, DeflateFrames.DISABLED);
+            List<String> notified = new ArrayList<>();
+            service.addMutationListener((operacao, request, response) ->
+                    notified.add(operacao + " " + request.getString("id") + " " + response.getString("status")));
+            service.loginUser("admin", "admin");
+
+            BatchResult result = service.sendBatch(ITEMS);
+
+            assertEquals(List.of("200", "404", "200"), statuses(result));
+            // Só as que o servidor aceitou chegam aos ouvintes
+            assertEquals(List.of("ADMIN_EXCLUIR_USUARIO 2 200", "ADMIN_EXCLUIR_USUARIO 3 200"), notified);
+            assertEquals(Map.of("200", 1L), service.getMetrics().stats(Operation.LOTE).statusCounts());
+            service.closeConnection();
+        }
+    }
+
+    @Test
+    void fallsBackToSingleRequestsWhenTheServerRejectsTheEnvelope() throws Exception {
+        try (NoBatchServer server = new NoBatchServer()) {
+            NetworkService service = new NetworkService();
+            service.connect("127.0.0.1", server.port(), 1, ServerConnection.Transport.BLOCKING, DeflateFrames.DISABLED);
+            service.loginUser("admin", "admin");
+
+            assertEquals(List.of("200", "200", "200"), statuses(service.sendBatch(ITEMS)));
+            assertEquals(List.of("2", "99", "3"), server.deleted);
+            assertEquals(1, server.envelopes);
+
+            // O servidor já mostrou que não entende LOTE: o segundo lote nem tenta
+            assertEquals(List.of("200", "200", "200"), statuses(service.sendBatch(ITEMS)));
+            assertEquals(1, server.envelopes);
+            assertEquals(6, server.deleted.size());
+            service.closeConnection();
+        }
+    }
+
+    /** Servidor de uma conexão que aceita login e exclusões, ecoa id_requisicao e recusa LOTE com 400. */
+    private static final class NoBatchServer implements AutoCloseable {
+        final ServerSocket socket = new ServerSocket(0);
+        final List<String> deleted = new CopyOnWriteArrayList<>();
+        volatile int envelopes;
+
+        NoBatchServer() throws IOException {
+            Thread.ofVirtual().start(this::serve);
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        private void serve() {
+            try (Socket client = socket.accept();
+                 BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8), true)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    JSONObject request = new JSONObject(line);
+                    JSONObject response = switch (request.getString("operacao")) {
+                        case "LOGIN" -> new JSONObject().put("status", "200").put("token", "tk");
+                        case "LOTE" -> {
+                            envelopes++;
+                            yield new JSONObject().put("status", "400").put("mensagem", "Operação desconhecida.");
+                        }
+                        case "ADMIN_EXCLUIR_USUARIO" -> {
+                            deleted.add(request.getString("id"));
+                            yield new JSONObject().put("status", "200");
+                        }
+                        default -> new JSONObject().put("status", "200");
+                    };
+                    Object id = request.opt(ServerConnection.CORRELATION_FIELD);
+                    if (id != null) response.put(ServerConnection.CORRELATION_FIELD, id);
+                    out.println(response);
+                }
+            } catch (IOException ignored) {
+                // Teste encerrado
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
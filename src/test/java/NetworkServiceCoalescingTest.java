@@ -0,0 +1,76 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Single-flight: leituras idênticas em voo viram uma só ida ao servidor, cada chamador com o
+ * seu futuro; uma mutação faz as leituras seguintes irem ao servidor de novo.
+ */
+class NetworkServiceCoalescingTest {
+
+    private static NetworkService connect(StubServer server) throws Exception {
+        NetworkService service = new NetworkService();
+        service.connect("127.0.0.1", server.getPort(), 2, ServerConnection.Transport.BLOCKING, DeflateFrames.DISABLED);
+        service.loginUser("admin", "admin");
+        return service;
+    }
+
+    private static Map<String, Long> findMovieStatuses(NetworkService service) {
+        return service.getMetrics().stats(Operation.BUSCAR_FILME_ID).statusCounts();
+    }
+
+    @Test
+    void identicalReadsInFlightShareOneRequest() throws Exception {
+        try (StubServer server = new StubServer(0).seed(5, 0, 2).latency(Operation.BUSCAR_FILME_ID, 200, 0).start()) {
+            NetworkService service = connect(server);
+            try {
+                List<CompletableFuture<JSONObject>> reads = new ArrayList<>();
+                for (int i = 0; i < 10; i++) reads.add(service.getMovieByIdAsync("1"));
+                CompletableFuture<JSONObject> other = service.getMovieByIdAsync("2");
+
+                // Cancelar a cópia de um chamador não afeta os outros
+                reads.get(0).cancel(false);
+                for (CompletableFuture<JSONObject> read : reads.subList(1, reads.size())) {
+                    assertEquals("200", read.get(5, TimeUnit.SECONDS).getString("status"));
+                }
+                assertEquals("200", other.get(5, TimeUnit.SECONDS).getString("status"));
+
+                assertEquals(9L, service.getMetrics().getCoalesced());
+                assertEquals(Map.of("200", 2L), findMovieStatuses(service));
+
+                // Depois da resposta, a mesma leitura vai ao servidor de novo
+                service.getMovieById("1");
+                assertEquals(Map.of("200", 3L), findMovieStatuses(service));
+            } finally {
+                service.closeConnection();
+            }
+        }
+    }
+
+    @Test
+    void mutationSendsLaterReadsToTheServer() throws Exception {
+        try (StubServer server = new StubServer(0).seed(5, 0, 0).latency(Operation.BUSCAR_FILME_ID, 200, 0).start()) {
+            NetworkService service = connect(server);
+            try {
+                CompletableFuture<JSONObject> before = service.getMovieByIdAsync("1");
+                service.updateMovie("1", "Título novo", "Diretor", "2001", "Drama", "Sinopse nova");
+                CompletableFuture<JSONObject> after = service.getMovieByIdAsync("1");
+
+                before.get(5, TimeUnit.SECONDS);
+                JSONObject fresh = after.get(5, TimeUnit.SECONDS);
+
+                assertEquals(0L, service.getMetrics().getCoalesced());
+                assertEquals("Título novo", fresh.getJSONObject("filme").getString("titulo"));
+            } finally {
+                service.closeConnection();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Paginação por cursor: nada sai na construção, a página seguinte é pedida ao entregar a
+ * atual e uma página que falhou é pedida de novo no next() seguinte.
+ */
+class PageIteratorTest {
+
+    /** Servidor de mentira com três páginas de dois filmes; registra os cursores pedidos. */
+    private static final class Pages implements PageIterator.PageFetcher {
+        final List<String> requested = new ArrayList<>();
+        int failuresLeft;
+
+        @Override
+        public CompletableFuture<JSONObject> fetch(String cursor) {
+            requested.add(cursor);
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                return CompletableFuture.failedFuture(new IOException("conexão perdida"));
+            }
+            int start = cursor == null ? 0 : Integer.parseInt(cursor);
+            JSONObject page = new JSONObject().put("status", "200")
+                    .put("filmes", new JSONArray().put(movie(start)).put(movie(start + 1)));
+            if (start + 2 < 6) page.put(PageIterator.NEXT_CURSOR_FIELD, String.valueOf(start + 2));
+            return CompletableFuture.completedFuture(page);
+        }
+
+        private static JSONObject movie(int id) {
+            return new JSONObject().put("id", String.valueOf(id));
+        }
+    }
+
+    @Test
+    void fetchesNothingUntilTheFirstNext() {
+        Pages server = new Pages();
+        PageIterator pages = new PageIterator(server, "filmes");
+
+        assertTrue(pages.hasNext());
+        assertEquals(0, server.requested.size());
+
+        assertEquals(2, pages.next().length());
+        // A primeira página e, já a caminho, a segunda
+        assertEquals(List.of("null", "2"), server.requested.stream().map(String::valueOf).toList());
+    }
+
+    @Test
+    void walksEveryPageInOrder() {
+        PageIterator pages = new PageIterator(new Pages(), "filmes");
+
+        List<String> ids = pages.stream().map(m -> m.getString("id")).toList();
+
+        assertEquals(List.of("0", "1", "2", "3", "4", "5"), ids);
+        assertFalse(pages.hasNext());
+        assertThrows(NoSuchElementException.class, pages::next);
+    }
+
+    @Test
+    void retriesTheSamePageAfterAFailure() {
+        Pages server = new Pages();
+        PageIterator pages = new PageIterator(server, "filmes");
+        pages.next();
+        server.failuresLeft = 1;
+        pages.next(); // a segunda já estava a caminho; a terceira sai agora e falha
+
+        assertThrows(UncheckedIOException.class, pages::next);
+        assertTrue(pages.hasNext());
+
+        JSONArray third = pages.next();
+        assertEquals("4", third.getJSONObject(0).getString("id"));
+        assertEquals(List.of("null", "2", "4", "4"), server.requested.stream().map(String::valueOf).toList());
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    void reportsServerErrorsAndKeepsThePagePending() {
+        List<String> requested = new ArrayList<>();
+        PageIterator pages = new PageIterator(cursor -> {
+            requested.add(String.valueOf(cursor));
+            JSONObject response = requested.size() == 1
+                    ? new JSONObject().put("status", "500").put("mensagem", "instável")
+                    : new JSONObject().put("status", "200").put("filmes", new JSONArray().put(new JSONObject().put("id", "7")));
+            return CompletableFuture.completedFuture(response);
+        }, "filmes");
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, pages::next);
+        assertTrue(e.getCause().getMessage().contains("instável"));
+
+        assertEquals("7", pages.next().getJSONObject(0).getString("id"));
+        assertEquals(List.of("null", "null"), requested);
+        assertFalse(pages.hasNext());
+    }
+
+    @Test
+    void singlePageWhenTheServerIgnoresPaging() {
+        JSONObject whole = new JSONObject().put("status", "200")
+                .put("filmes", new JSONArray().put(new JSONObject().put("id", "1")));
+
+        PageIterator pages = PageIterator.of(whole, "filmes");
+
+        assertEquals(1, pages.next().length());
+        assertFalse(pages.hasNext());
+    }
+}
@@ -0,0 +1,132 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Notas por filme: criar, editar e excluir reviews ajustam as contas sem recarregar o filme, e
+ * o resultado é sempre o mesmo que montar tudo de novo a partir das reviews restantes.
+ */
+class RatingStatsTest {
+
+    private static JSONObject review(String id, String movieId, int nota) {
+        return new JSONObject().put("id", id).put("id_filme", movieId).put("nota", String.valueOf(nota));
+    }
+
+    private static JSONObject details(Map<String, Integer> notas) {
+        JSONArray reviews = new JSONArray();
+        notas.forEach((id, nota) -> reviews.put(review(id, "1", nota)));
+        return new JSONObject().put("status", "200").put("reviews", reviews);
+    }
+
+    private static void assertSameSummary(RatingStats.Summary expected, RatingStats.Summary actual) {
+        assertEquals(expected.count(), actual.count());
+        assertEquals(expected.sum(), actual.sum());
+        assertEquals(expected.sumOfSquares(), actual.sumOfSquares());
+        assertEquals(Arrays.toString(expected.histogram()), Arrays.toString(actual.histogram()));
+    }
+
+    @Test
+    void incrementalUpdatesMatchARebuildFromScratch() {
+        Random random = new Random(3);
+        Map<String, Integer> reviews = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) reviews.put("r" + i, random.nextInt(6));
+        RatingStats stats = new RatingStats(new NetworkService());
+        stats.onMovieLoaded("1", details(reviews));
+        int nextId = 50;
+
+        for (int step = 0; step < 2_000; step++) {
+            List<String> ids = new ArrayList<>(reviews.keySet());
+            int action = ids.isEmpty() ? 0 : random.nextInt(3);
+            if (action == 0) {
+                String id = "r" + nextId++;
+                int nota = random.nextInt(6);
+                stats.onMutation("CRIAR_REVIEW", new JSONObject().put("review", review(id, "1", nota)),
+                        new JSONObject().put("status", "201").put("review", new JSONObject().put("id", id)));
+                reviews.put(id, nota);
+            } else if (action == 1) {
+                String id = ids.get(random.nextInt(ids.size()));
+                int nota = random.nextInt(6);
+                stats.onMutation("EDITAR_REVIEW", new JSONObject().put("review", new JSONObject().put("id", id).put("nota", String.valueOf(nota))),
+                        new JSONObject().put("status", "200"));
+                reviews.put(id, nota);
+            } else {
+                String id = ids.get(random.nextInt(ids.size()));
+                stats.onMutation("EXCLUIR_REVIEW", new JSONObject().put("id", id), new JSONObject().put("status", "200"));
+                reviews.remove(id);
+            }
+        }
+
+        RatingStats rebuilt = new RatingStats(new NetworkService());
+        rebuilt.onMovieLoaded("1", details(reviews));
+        assertSameSummary(rebuilt.get("1"), stats.get("1"));
+        assertEquals(reviews.size(), stats.get("1").count());
+    }
+
+    @Test
+    void summaryReportsMeanVarianceAndBars() {
+        RatingStats stats = new RatingStats(new NetworkService());
+        stats.onMovieLoaded("1", details(Map.of("a", 5, "b", 5, "c", 3)));
+
+        RatingStats.Summary summary = stats.get("1");
+
+        assertTrue(Math.abs(summary.mean() - 13.0 / 3) < 1e-12);
+        assertTrue(Math.abs(summary.variance() - (59.0 / 3 - 169.0 / 9)) < 1e-12);
+        assertEquals(2, summary.countOf(5));
+        assertEquals("★ 4.3 (3)    ▄ █", summary.shortText());
+        assertEquals("★ - (0)", new RatingStats.Summary(0, 0, 0, new int[RatingStats.MAX_SCORE + 1]).shortText());
+    }
+
+    @Test
+    void reviewCreatedWithoutIdIsMatchedByTheUserReviews() {
+        RatingStats stats = new RatingStats(new NetworkService());
+        stats.onMovieLoaded("1", details(Map.of("a", 2)));
+        List<String> fired = new ArrayList<>();
+        stats.addListener(fired::add);
+
+        // Servidor que não devolve a review criada
+        stats.onMutation("CRIAR_REVIEW", new JSONObject().put("review", review("", "1", 4)), new JSONObject().put("status", "201"));
+        stats.onUserReviews(new JSONArray().put(review("b", "1", 4)));
+        stats.onMutation("EDITAR_REVIEW", new JSONObject().put("review", new JSONObject().put("id", "b").put("nota", "0")),
+                new JSONObject().put("status", "200"));
+
+        RatingStats.Summary summary = stats.get("1");
+        assertEquals(2, summary.count());
+        assertEquals(2L, summary.sum());
+        assertEquals(1, summary.countOf(0));
+        assertEquals(List.of("1", "1"), fired);
+    }
+
+    @Test
+    void deletingTheMovieOrAUserForgetsTheNotes() {
+        RatingStats stats = new RatingStats(new NetworkService());
+        stats.onMovieLoaded("1", details(Map.of("a", 2)));
+        stats.onMovieLoaded("2", new JSONObject().put("reviews", new JSONArray().put(review("z", "2", 5))));
+
+        stats.onMutation("EXCLUIR_FILME", new JSONObject().put("id", "1"), new JSONObject().put("status", "200"));
+        assertNull(stats.get("1"));
+        assertEquals(1, stats.get("2").count());
+
+        stats.onMutation("ADMIN_EXCLUIR_USUARIO", new JSONObject().put("id", "7"), new JSONObject().put("status", "200"));
+        assertNull(stats.get("2"));
+    }
+
+    @Test
+    void parsesFreeTextScores() {
+        assertEquals(4, RatingStats.parseNota("4.0"));
+        assertEquals(3, RatingStats.parseNota(" 3 "));
+        assertEquals(-1, RatingStats.parseNota("6"));
+        assertEquals(-1, RatingStats.parseNota("-1"));
+        assertEquals(-1, RatingStats.parseNota("ótimo"));
+    }
+}
@@ -0,0 +1,128 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * O encoder monta os bytes na mão: cada requisição tem de ser o mesmo JSON que o JSONObject
+ * equivalente produziria (a ordem das chaves pode mudar), com uma linha por mensagem.
+ */
+class RequestEncoderTest {
+
+    private static final String AWKWARD = "Aspas \" barra \\ quebra\nlinha\ttab \u0001 ç ã 日本 🎬 </script>";
+
+    private static String encode(RequestEncoder enc) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        enc.writeTo(out);
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.endsWith("\n"), "sem o delimitador de linha");
+        assertEquals(text.length() - 1, text.indexOf('\n'));
+        return text.substring(0, text.length() - 1);
+    }
+
+    private static void assertSameJson(JSONObject expected, String actual) {
+        JSONObject parsed = new JSONObject(actual);
+        assertTrue(expected.similar(parsed), "esperado " + expected + "\nobtido   " + actual);
+    }
+
+    @Test
+    void encodesFlatRequestLikeJsonObject() throws Exception {
+        RequestEncoder enc = new RequestEncoder();
+        enc.begin(Operation.LOGIN).string(RequestEncoder.USUARIO, AWKWARD).string(RequestEncoder.SENHA, "123").end();
+
+        JSONObject expected = new JSONObject().put("operacao", "LOGIN").put("usuario", AWKWARD).put("senha", "123");
+        assertSameJson(expected, encode(enc));
+    }
+
+    @Test
+    void encodesNestedObjectsArraysAndNumbers() throws Exception {
+        RequestEncoder enc = new RequestEncoder();
+        enc.begin(Operation.CRIAR_FILME).token("tk-1")
+                .numericString(RequestEncoder.ID_REQUISICAO, 42)
+                .beginObject(RequestEncoder.FILME)
+                .string(RequestEncoder.TITULO, "Cidade de Deus")
+                .numericString(RequestEncoder.ANO, 2002)
+                .csvArray(RequestEncoder.GENERO, "Drama,Crime,Ação")
+                .string(RequestEncoder.SINOPSE, AWKWARD)
+                .endObject()
+                .number(RequestEncoder.LIMITE, -7)
+                .end();
+
+        JSONObject expected = new JSONObject()
+                .put("operacao", "CRIAR_FILME")
+                .put("token", "tk-1")
+                .put(ServerConnection.CORRELATION_FIELD, "42")
+                .put("filme", new JSONObject()
+                        .put("titulo", "Cidade de Deus")
+                        .put("ano", "2002")
+                        .put("genero", new JSONArray().put("Drama").put("Crime").put("Ação"))
+                        .put("sinopse", AWKWARD))
+                .put("limite", -7);
+        assertSameJson(expected, encode(enc));
+    }
+
+    @Test
+    void encodesBatchItems() throws Exception {
+        RequestEncoder enc = new RequestEncoder();
+        enc.begin(Operation.LOTE).token("tk").beginArray(RequestEncoder.ITENS);
+        for (String id : new String[]{"1", "2", "3"}) {
+            enc.beginItem(Operation.EXCLUIR_REVIEW).string(RequestEncoder.ID, id).endItem();
+        }
+        enc.endArray().end();
+
+        JSONArray items = new JSONArray();
+        for (String id : new String[]{"1", "2", "3"}) items.put(new JSONObject().put("operacao", "EXCLUIR_REVIEW").put("id", id));
+        assertSameJson(new JSONObject().put("operacao", "LOTE").put("token", "tk").put("itens", items), encode(enc));
+    }
+
+    @Test
+    void csvArrayKeepsEmptyItemsBetweenCommas() throws Exception {
+        RequestEncoder enc = new RequestEncoder();
+        enc.begin(Operation.CRIAR_FILME).csvArray(RequestEncoder.GENERO, "").end();
+        assertSameJson(new JSONObject().put("operacao", "CRIAR_FILME").put("genero", new JSONArray()), encode(enc));
+
+        enc.begin(Operation.CRIAR_FILME).csvArray(RequestEncoder.GENERO, "a,,b").end();
+        assertSameJson(new JSONObject().put("operacao", "CRIAR_FILME").put("genero", new JSONArray().put("a").put("").put("b")),
+                encode(enc));
+    }
+
+    @Test
+    void reusesTheTokenFragmentOnlyWhileTheTokenIsTheSame() throws Exception {
+        RequestEncoder enc = new RequestEncoder();
+        enc.begin(Operation.LISTAR_FILMES).token("primeiro").end();
+        enc.begin(Operation.LISTAR_FILMES).token("primeiro").end();
+        assertSameJson(new JSONObject().put("operacao", "LISTAR_FILMES").put("token", "primeiro"), encode(enc));
+
+        enc.begin(Operation.LISTAR_FILMES).token("segundo").end();
+        assertSameJson(new JSONObject().put("operacao", "LISTAR_FILMES").put("token", "segundo"), encode(enc));
+    }
+
+    @Test
+    void growsTheBufferForLargeValues() throws Exception {
+        String big = AWKWARD.repeat(500);
+        RequestEncoder enc = new RequestEncoder();
+        enc.begin(Operation.CRIAR_REVIEW).beginObject(RequestEncoder.REVIEW).string(RequestEncoder.DESCRICAO, big).endObject().end();
+
+        JSONObject parsed = new JSONObject(encode(enc));
+        assertEquals(big, parsed.getJSONObject("review").getString("descricao"));
+    }
+
+    @Test
+    void toJsonAndRequestKeyIgnoreTokenAndCorrelation() {
+        RequestEncoder.Body body = e -> e.string(RequestEncoder.ID_FILME, "9");
+
+        JSONObject json = RequestEncoder.toJson(Operation.BUSCAR_FILME_ID, body);
+
+        assertTrue(new JSONObject().put("operacao", "BUSCAR_FILME_ID").put("id_filme", "9").similar(json));
+        assertEquals(RequestEncoder.requestKey(Operation.BUSCAR_FILME_ID, body),
+                RequestEncoder.requestKey(Operation.BUSCAR_FILME_ID, e -> e.string(RequestEncoder.ID_FILME, "9")));
+        assertFalse(RequestEncoder.requestKey(Operation.BUSCAR_FILME_ID, body)
+                .equals(RequestEncoder.requestKey(Operation.BUSCAR_FILME_ID, e -> e.string(RequestEncoder.ID_FILME, "10"))));
+    }
+}
@@ -0,0 +1,94 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Censura de senha e token, serialização limitada do conteúdo e alertas no nível WARN.
+ */
+class WireLoggerTest {
+
+    @Test
+    void redactsPasswordsAndTokens() {
+        String line = "{\"operacao\":\"LOGIN\",\"usuario\":\"ana\",\"senha\":\"s3gr\\\"edo\",\"token\":\"abc.def\"}";
+
+        String redacted = WireLogger.redact(line);
+
+        assertEquals("{\"operacao\":\"LOGIN\",\"usuario\":\"ana\",\"senha\":\"***\",\"token\":\"***\"}", redacted);
+    }
+
+    @Test
+    void redactsValueCutByTruncation() {
+        String cut = "{\"usuario\":\"ana\",\"senha\":\"meia-sen";
+
+        assertEquals("{\"usuario\":\"ana\",\"senha\":\"***\"", WireLogger.redact(cut));
+    }
+
+    @Test
+    void leavesOtherFieldsAlone() {
+        String line = "{\"review\":{\"descricao\":\"a senha do filme é boa\",\"nota\":\"5\"}}";
+
+        assertEquals(line, WireLogger.redact(line));
+    }
+
+    @Test
+    void serializesOnlyUpToTheLimit() {
+        JSONArray filmes = new JSONArray();
+        for (int i = 0; i < 10_000; i++) filmes.put(new JSONObject().put("id", String.valueOf(i)).put("titulo", "Filme " + i));
+        JSONObject response = new JSONObject().put("status", "200").put("filmes", filmes);
+        WireLogger.setMaxChars(100);
+        try {
+            String text = WireLogger.truncate(response);
+
+            assertTrue(text.endsWith("...(truncado)"));
+            assertEquals(100 + "...(truncado)".length(), text.length());
+            assertEquals(response.toString().substring(0, 100), text.substring(0, 100));
+
+            String small = new JSONObject().put("status", "200").toString();
+            assertEquals(small, WireLogger.truncate(new JSONObject(small)));
+        } finally {
+            WireLogger.setMaxChars(2000);
+        }
+    }
+
+    private static String nextFrom(BlockingQueue<String> lines, String source) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        String line;
+        while ((line = lines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) != null) {
+            if (line.contains(" " + source + ":") || line.contains("LISTAR_FILMES")) return line;
+        }
+        return null;
+    }
+
+    @Test
+    void warningsFollowTheLevel() throws Exception {
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        WireLogger.setSink(lines::add);
+        try {
+            WireLogger.setLevel(WireLogger.Level.OFF);
+            WireLogger.warn("Teste", "não deve aparecer");
+            WireLogger.setLevel(WireLogger.Level.WARN);
+            WireLogger.notice("LISTAR_FILMES", "422", "aviso de protocolo fica no INFO");
+            WireLogger.warn("Teste", "conexão perdida");
+
+            // Outros testes podem deixar alertas a caminho: só contam as linhas deste
+            String line = nextFrom(lines, "Teste");
+            assertNotNull(line);
+            assertTrue(line.contains("[ALERTA] Teste: conexão perdida"), line);
+            assertFalse(line.contains("bytes"));
+            assertNull(nextFrom(lines, "Teste"));
+        } finally {
+            WireLogger.setLevel(WireLogger.Level.WARN);
+            WireLogger.setSink(System.out::println);
+        }
+    }
+}